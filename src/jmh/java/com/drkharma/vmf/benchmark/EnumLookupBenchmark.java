@@ -0,0 +1,189 @@
+package com.drkharma.vmf.benchmark;
+
+import com.drkharma.vmf.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for resolving VMF codes to their enums, as done for every note constructed.
+ * <p/>
+ * The enums look codes up in arrays indexed by code. The {@code HashMap} benchmarks reproduce the boxed map lookups
+ * the enums used before, as a baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class EnumLookupBenchmark {
+
+    /**
+     * Every valid pitch class code.
+     */
+    private final int[] pitchClassCodes = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11};
+
+    /**
+     * Every valid dynamic code.
+     */
+    private final int[] dynamicCodes = {-5, -4, -3, -2, -1, 1, 2, 3, 4, 5};
+
+    /**
+     * Every valid articulation code.
+     */
+    private final int[] articulationCodes = {0, 3, 4, 5, 6, 7};
+
+    /**
+     * Every valid key signature code.
+     */
+    private final int[] keySignatureCodes = {-7, -6, -5, -4, -3, -2, -1, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    /**
+     * The pitch classes keyed by code, as a baseline.
+     */
+    private final Map<Integer, PitchClass> pitchClassMap = new HashMap<Integer, PitchClass>();
+
+    /**
+     * The dynamics keyed by code, as a baseline.
+     */
+    private final Map<Integer, Dynamic> dynamicMap = new HashMap<Integer, Dynamic>();
+
+    /**
+     * The articulations keyed by code, as a baseline.
+     */
+    private final Map<Integer, Articulation> articulationMap = new HashMap<Integer, Articulation>();
+
+    /**
+     * The key signatures keyed by code, as a baseline.
+     */
+    private final Map<Integer, KeySignature> keySignatureMap = new HashMap<Integer, KeySignature>();
+
+    /**
+     * Builds the baseline maps.
+     */
+    @Setup
+    public void buildMaps() {
+        for (PitchClass pitchClass : PitchClass.values()) {
+            this.pitchClassMap.put(pitchClass.getPitchClassCode(), pitchClass);
+        }
+        for (Dynamic dynamic : Dynamic.values()) {
+            this.dynamicMap.put(dynamic.getDynamicCode(), dynamic);
+        }
+        for (Articulation articulation : Articulation.values()) {
+            this.articulationMap.put(articulation.getArticulationCode(), articulation);
+        }
+        for (KeySignature keySignature : KeySignature.values()) {
+            this.keySignatureMap.put(keySignature.getKeySignatureCode(), keySignature);
+        }
+    }
+
+    /**
+     * Measures looking up every pitch class.
+     *
+     * @param bh Consumes the results.
+     */
+    @Benchmark
+    public void pitchClass(Blackhole bh) {
+        for (int code : this.pitchClassCodes) {
+            bh.consume(PitchClass.getPitchClass(code));
+        }
+    }
+
+    /**
+     * Measures looking up every dynamic.
+     *
+     * @param bh Consumes the results.
+     */
+    @Benchmark
+    public void dynamic(Blackhole bh) {
+        for (int code : this.dynamicCodes) {
+            bh.consume(Dynamic.getDynamic(code));
+        }
+    }
+
+    /**
+     * Measures looking up every articulation.
+     *
+     * @param bh Consumes the results.
+     */
+    @Benchmark
+    public void articulation(Blackhole bh) {
+        for (int code : this.articulationCodes) {
+            bh.consume(Articulation.getArticulation(code));
+        }
+    }
+
+    /**
+     * Measures looking up every key signature.
+     *
+     * @param bh Consumes the results.
+     */
+    @Benchmark
+    public void keySignature(Blackhole bh) {
+        for (int code : this.keySignatureCodes) {
+            bh.consume(KeySignature.getKeySignature(code));
+        }
+    }
+
+    /**
+     * Measures looking up every pitch class in a {@code HashMap}.
+     *
+     * @param bh Consumes the results.
+     */
+    @Benchmark
+    public void pitchClassHashMap(Blackhole bh) {
+        for (int code : this.pitchClassCodes) {
+            bh.consume(this.pitchClassMap.get(code));
+        }
+    }
+
+    /**
+     * Measures looking up every dynamic in a {@code HashMap}.
+     *
+     * @param bh Consumes the results.
+     */
+    @Benchmark
+    public void dynamicHashMap(Blackhole bh) {
+        for (int code : this.dynamicCodes) {
+            bh.consume(this.dynamicMap.get(code));
+        }
+    }
+
+    /**
+     * Measures looking up every articulation in a {@code HashMap}.
+     *
+     * @param bh Consumes the results.
+     */
+    @Benchmark
+    public void articulationHashMap(Blackhole bh) {
+        for (int code : this.articulationCodes) {
+            bh.consume(this.articulationMap.get(code));
+        }
+    }
+
+    /**
+     * Measures looking up every key signature in a {@code HashMap}.
+     *
+     * @param bh Consumes the results.
+     */
+    @Benchmark
+    public void keySignatureHashMap(Blackhole bh) {
+        for (int code : this.keySignatureCodes) {
+            bh.consume(this.keySignatureMap.get(code));
+        }
+    }
+
+    /**
+     * Measures constructing a note, which performs three lookups.
+     *
+     * @return The note.
+     */
+    @Benchmark
+    public Note note() {
+        return new Note(-1, 3, 7, 4, 1, 2);
+    }
+}
@@ -0,0 +1,76 @@
+package com.drkharma.vmf.benchmark;
+
+import com.drkharma.vmf.Note;
+import com.drkharma.vmf.VectorMusic;
+import com.drkharma.vmf.index.Match;
+import com.drkharma.vmf.index.MelodicIndex;
+import com.drkharma.vmf.io.VMFGenerator;
+import com.drkharma.vmf.parser.VMFStreamParser;
+import com.drkharma.vmf.parser.exception.TimeSignatureMissingException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for finding melodic fragments in a corpus of synthetic pieces.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class MelodicIndexBenchmark {
+
+    /**
+     * The number of pieces in the corpus.
+     */
+    @Param({"1000", "100000"})
+    public int pieces;
+
+    /**
+     * The index of the corpus.
+     */
+    private MelodicIndex index;
+
+    /**
+     * A fragment taken from a piece of the corpus.
+     */
+    private List<Note> fragment;
+
+    /**
+     * Indexes the corpus once per trial.
+     *
+     * @throws IOException If a piece cannot be parsed.
+     * @throws TimeSignatureMissingException Never, the pieces have a time signature.
+     */
+    @Setup(Level.Trial)
+    public void buildIndex() throws IOException, TimeSignatureMissingException {
+        VMFGenerator generator = new VMFGenerator().setTicks(200);
+
+        this.index = new MelodicIndex(4);
+
+        for (int i = 0; i < this.pieces; ++i) {
+            VectorMusic music = new VMFStreamParser(generator.toByteArray(i), "synthetic").parse();
+
+            if (i == this.pieces / 2) {
+                this.fragment = new ArrayList<Note>(music.getNotes().subList(10, 16));
+            }
+
+            this.index.add(music);
+        }
+    }
+
+    /**
+     * Measures finding every occurrence of a six note fragment.
+     *
+     * @return The occurrences.
+     */
+    @Benchmark
+    public List<Match> search() {
+        return this.index.search(this.fragment);
+    }
+}
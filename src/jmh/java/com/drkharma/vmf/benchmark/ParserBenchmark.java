@@ -0,0 +1,145 @@
+package com.drkharma.vmf.benchmark;
+
+import com.drkharma.vmf.VectorMusic;
+import com.drkharma.vmf.io.VMFGenerator;
+import com.drkharma.vmf.parser.VMFParser;
+import com.drkharma.vmf.parser.VMFStreamParser;
+import com.drkharma.vmf.parser.exception.TimeSignatureMissingException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for parsing synthetic bodies of increasing length.
+ * <p/>
+ * The largest bodies need a generous heap for {@link VMFParser}, which holds the whole JSON tree in memory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    /**
+     * The number of ticks in the body.
+     */
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int ticks;
+
+    /**
+     * The VMF content being parsed.
+     */
+    private byte[] contents;
+
+    /**
+     * Builds the content once per trial.
+     */
+    @Setup(Level.Trial)
+    public void buildContent() {
+        this.contents = new VMFGenerator().setTicks(this.ticks).toByteArray(42);
+    }
+
+    /**
+     * Measures building the JSON tree in the {@link VMFParser} constructor.
+     *
+     * @return The parser, to prevent dead code elimination.
+     * @throws IOException If the content is not JSON.
+     */
+    @Benchmark
+    public VMFParser construct() throws IOException {
+        return new VMFParser(this.contents, "synthetic");
+    }
+
+    /**
+     * Measures {@link VMFParser#parse()} alone, over a JSON tree already built.
+     *
+     * @param tree Holds a parser whose JSON tree has been built.
+     * @return The parsed music.
+     * @throws IOException If the content cannot be parsed.
+     * @throws TimeSignatureMissingException Never, the content has a time signature.
+     */
+    @Benchmark
+    public VectorMusic parseTree(Tree tree) throws IOException, TimeSignatureMissingException {
+        return tree.parser.parse();
+    }
+
+    /**
+     * Measures constructing a {@link VMFParser} and parsing.
+     *
+     * @return The parsed music.
+     * @throws IOException If the content cannot be parsed.
+     * @throws TimeSignatureMissingException Never, the content has a time signature.
+     */
+    @Benchmark
+    public VectorMusic constructAndParse() throws IOException, TimeSignatureMissingException {
+        return new VMFParser(this.contents, "synthetic").parse();
+    }
+
+    /**
+     * Measures parsing with {@link VMFStreamParser}.
+     *
+     * @return The parsed music.
+     * @throws IOException If the content cannot be parsed.
+     * @throws TimeSignatureMissingException Never, the content has a time signature.
+     */
+    @Benchmark
+    public VectorMusic stream() throws IOException, TimeSignatureMissingException {
+        return new VMFStreamParser(this.contents, "synthetic").parse();
+    }
+
+    /**
+     * Measures parsing with {@link VMFStreamParser}, decoding parts of the body in parallel.
+     *
+     * @return The parsed music.
+     * @throws IOException If the content cannot be parsed.
+     * @throws TimeSignatureMissingException Never, the content has a time signature.
+     */
+    @Benchmark
+    public VectorMusic streamParallel() throws IOException, TimeSignatureMissingException {
+        return new VMFStreamParser(this.contents, "synthetic").parseParallel();
+    }
+
+    /**
+     * Holds a parser whose JSON tree is rebuilt before every invocation, since it can only be parsed once.
+     */
+    @State(Scope.Thread)
+    public static class Tree {
+
+        /**
+         * The number of ticks in the body.
+         */
+        @Param({"1000", "100000", "1000000", "10000000"})
+        public int ticks;
+
+        /**
+         * The VMF content being parsed.
+         */
+        private byte[] contents;
+
+        /**
+         * A parser whose JSON tree has been built but not yet parsed.
+         */
+        private VMFParser parser;
+
+        /**
+         * Builds the content once per trial.
+         */
+        @Setup(Level.Trial)
+        public void buildContent() {
+            this.contents = new VMFGenerator().setTicks(this.ticks).toByteArray(42);
+        }
+
+        /**
+         * Builds the JSON tree before each invocation.
+         *
+         * @throws IOException If the content is not JSON.
+         */
+        @Setup(Level.Invocation)
+        public void buildTree() throws IOException {
+            this.parser = new VMFParser(this.contents, "synthetic");
+        }
+    }
+}
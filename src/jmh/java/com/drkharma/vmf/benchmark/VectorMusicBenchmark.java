@@ -0,0 +1,131 @@
+package com.drkharma.vmf.benchmark;
+
+import com.drkharma.vmf.Note;
+import com.drkharma.vmf.NoteSpliterator;
+import com.drkharma.vmf.VectorMusic;
+import com.drkharma.vmf.io.VMFGenerator;
+import com.drkharma.vmf.parser.VMFStreamParser;
+import com.drkharma.vmf.parser.exception.TimeSignatureMissingException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for comparing, hashing and traversing pieces of increasing length.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VectorMusicBenchmark {
+
+    /**
+     * The number of ticks in the body of the pieces.
+     */
+    @Param({"1000", "100000", "1000000"})
+    public int ticks;
+
+    /**
+     * Sums a per-note feature, the key number of each note weighted by its onset.
+     */
+    private static final NoteSpliterator.Reducer<long[]> FEATURE_SUM = new NoteSpliterator.Reducer<long[]>() {
+        @Override
+        public long[] identity() {
+            return new long[1];
+        }
+
+        @Override
+        public long[] accumulate(long[] result, Note note, int onset) {
+            result[0] += (long) onset * ((note.getOctave() + 1) * 12 + note.getPitchClass().getPitchClassCode());
+            return result;
+        }
+
+        @Override
+        public long[] combine(long[] left, long[] right) {
+            left[0] += right[0];
+            return left;
+        }
+    };
+
+    /**
+     * The pool on which pieces are traversed in parallel.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * A piece.
+     */
+    private VectorMusic music;
+
+    /**
+     * A separately parsed piece equal to {@link #music}.
+     */
+    private VectorMusic copy;
+
+    /**
+     * Parses two equal pieces.
+     *
+     * @throws IOException If the content cannot be parsed.
+     * @throws TimeSignatureMissingException Never, the content has a time signature.
+     */
+    @Setup(Level.Trial)
+    public void parse() throws IOException, TimeSignatureMissingException {
+        byte[] contents = new VMFGenerator().setTicks(this.ticks).toByteArray(42);
+
+        this.music = new VMFStreamParser(contents, "synthetic").parse();
+        this.copy = new VMFStreamParser(contents, "synthetic").parse();
+        this.pool = new ForkJoinPool();
+    }
+
+    /**
+     * Shuts down the pool.
+     */
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        this.pool.shutdown();
+    }
+
+    /**
+     * Measures comparing two equal pieces, the worst case for {@link VectorMusic#equals(Object)}.
+     *
+     * @return Whether the pieces are equal.
+     */
+    @Benchmark
+    public boolean equalsCopy() {
+        return this.music.equals(this.copy);
+    }
+
+    /**
+     * Measures hashing a piece.
+     *
+     * @return The hash code.
+     */
+    @Benchmark
+    public int hashCodeOf() {
+        return this.music.hashCode();
+    }
+
+    /**
+     * Measures extracting a feature from every note on one thread.
+     *
+     * @return The sum of the feature.
+     */
+    @Benchmark
+    public long reduceSequential() {
+        return this.music.notes().reduce(FEATURE_SUM)[0];
+    }
+
+    /**
+     * Measures extracting a feature from every note across the pool.
+     *
+     * @return The sum of the feature.
+     */
+    @Benchmark
+    public long reduceParallel() {
+        return this.music.notes().reduce(this.pool, FEATURE_SUM)[0];
+    }
+}
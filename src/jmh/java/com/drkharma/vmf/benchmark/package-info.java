@@ -0,0 +1,4 @@
+/**
+ * JMH benchmarks for parsing VMF files and operating on the object model.
+ */
+package com.drkharma.vmf.benchmark;
@@ -1,7 +1,5 @@
 package com.drkharma.vmf;
 
-import java.util.HashMap;
-
 /**
  * Represents an articulation.
  */
@@ -17,7 +15,14 @@ public enum Articulation {
      * A lookup table allowing the enum to be searched by the VMF
      * articulation code.
      */
-    private static HashMap<Integer, Articulation> articulationLookup;
+    private static final Articulation[] ARTICULATION_LOOKUP = new Articulation[8];
+
+    static {
+        for (Articulation articulation : values()) {
+            ARTICULATION_LOOKUP[articulation.articulationCode] = articulation;
+        }
+    }
+
     /**
      * The VMF code of this articulation.
      */
@@ -30,8 +35,6 @@ public enum Articulation {
      */
     Articulation(int articulationCode) {
         this.articulationCode = articulationCode;
-
-        this.registerArticulation();
     }
 
     /**
@@ -46,7 +49,7 @@ public enum Articulation {
             throw new IllegalArgumentException("The code should be 0 or between 3 and 7.");
         }
 
-        return articulationLookup.get(articulationCode);
+        return ARTICULATION_LOOKUP[articulationCode];
     }
 
     /**
@@ -57,15 +60,4 @@ public enum Articulation {
     public int getArticulationCode() {
         return articulationCode;
     }
-
-    /**
-     * Registers an Articulation in the lookup table.
-     */
-    private void registerArticulation() {
-        if (articulationLookup == null) {
-            articulationLookup = new HashMap<Integer, Articulation>();
-        }
-
-        articulationLookup.put(this.articulationCode, this);
-    }
 }
@@ -1,7 +1,5 @@
 package com.drkharma.vmf;
 
-import java.util.HashMap;
-
 /**
  * Represents a dynamic level.
  */
@@ -19,9 +17,16 @@ public enum Dynamic {
 
     /**
      * A lookup table allowing the enum to be searched by the VMF
-     * articulation code.
+     * dynamic code, indexed by the code plus five.
      */
-    private static HashMap<Integer, Dynamic> dynamicLookup;
+    private static final Dynamic[] DYNAMIC_LOOKUP = new Dynamic[11];
+
+    static {
+        for (Dynamic dynamic : values()) {
+            DYNAMIC_LOOKUP[dynamic.dynamicCode + 5] = dynamic;
+        }
+    }
+
     /**
      * The VMF code of this dynamic.
      */
@@ -34,8 +39,6 @@ public enum Dynamic {
      */
     Dynamic(int dynamicCode) {
         this.dynamicCode = dynamicCode;
-
-        this.registerDynamic();
     }
 
     /**
@@ -46,11 +49,11 @@ public enum Dynamic {
      * @throws IllegalArgumentException If the code provided is greater than 5 or less than -5, or 0.
      */
     public static Dynamic getDynamic(int dynamicCode) throws IllegalArgumentException {
-        if (Math.abs(dynamicCode) > 5 || dynamicCode == 0) {
+        if (dynamicCode < -5 || dynamicCode > 5 || dynamicCode == 0) {
             throw new IllegalArgumentException("The code should be between -5 and 5, but not 0");
         }
 
-        return dynamicLookup.get(dynamicCode);
+        return DYNAMIC_LOOKUP[dynamicCode + 5];
     }
 
     /**
@@ -61,15 +64,4 @@ public enum Dynamic {
     public int getDynamicCode() {
         return dynamicCode;
     }
-
-    /**
-     * Registers a Dynamic in the lookup table.
-     */
-    private void registerDynamic() {
-        if (dynamicLookup == null) {
-            dynamicLookup = new HashMap<Integer, Dynamic>();
-        }
-
-        dynamicLookup.put(this.dynamicCode, this);
-    }
 }
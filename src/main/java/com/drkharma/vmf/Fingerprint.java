@@ -0,0 +1,103 @@
+package com.drkharma.vmf;
+
+import java.util.List;
+
+/**
+ * Folds values into a 64 bit content fingerprint.
+ * <p/>
+ * Each value is mixed into the running state with a multiply and rotate, and the result is finished with the
+ * avalanche step of MurmurHash3, so that pieces which differ in any value are very unlikely to share a fingerprint.
+ */
+final class Fingerprint {
+
+    /**
+     * The initial state of a fingerprint.
+     */
+    static final long SEED = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The multiplier applied to each value.
+     */
+    private static final long MULTIPLIER = 0xC2B2AE3D27D4EB4FL;
+
+    /**
+     * Utility class, not instantiable.
+     */
+    private Fingerprint() {
+    }
+
+    /**
+     * Folds a value into a fingerprint.
+     *
+     * @param state The fingerprint so far.
+     * @param value The value.
+     * @return The fingerprint including the value.
+     */
+    static long fold(long state, long value) {
+        return Long.rotateLeft(state ^ (value * MULTIPLIER), 31) * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Folds a note into a fingerprint.
+     *
+     * @param state The fingerprint so far.
+     * @param note  The note.
+     * @return The fingerprint including the note.
+     */
+    static long fold(long state, Note note) {
+        long codes = (note.getDynamic().getDynamicCode() + 5)
+                | note.getArticulation().getArticulationCode() << 4
+                | note.getPitchClass().getPitchClassCode() << 8;
+
+        state = fold(state, codes | (long) note.getOctave() << 32);
+
+        return fold(state, (long) note.getDuration() << 32 | (note.getOffset() & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Folds the measures and values of header events into a fingerprint.
+     *
+     * @param state  The fingerprint so far.
+     * @param events The events, or null.
+     * @return The fingerprint including the events.
+     */
+    static long fold(long state, List<? extends MeasureEvent> events) {
+        if (events == null) {
+            return fold(state, -1);
+        }
+
+        state = fold(state, events.size());
+
+        for (MeasureEvent event : events) {
+            long value;
+
+            if (event instanceof TimeSignature) {
+                value = (long) ((TimeSignature) event).getUpper() << 16 | ((TimeSignature) event).getLower();
+            } else if (event instanceof KeySignatureInstance) {
+                value = ((KeySignatureInstance) event).getKeySignature().getKeySignatureCode();
+            } else {
+                value = ((MetronomeMarking) event).getQuarterBPM();
+            }
+
+            state = fold(state, (long) event.getMeasure() << 32 ^ value);
+        }
+
+        return state;
+    }
+
+    /**
+     * Finishes a fingerprint so that every bit of the state affects every bit of the result.
+     *
+     * @param state The fingerprint.
+     * @return The finished fingerprint.
+     */
+    static long finish(long state) {
+        state ^= state >>> 33;
+        state *= 0xFF51AFD7ED558CCDL;
+        state ^= state >>> 33;
+        state *= 0xC4CEB9FE1A85EC53L;
+        state ^= state >>> 33;
+
+        return state;
+    }
+}
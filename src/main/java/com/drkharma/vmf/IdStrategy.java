@@ -0,0 +1,88 @@
+package com.drkharma.vmf;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Strategies for generating the ID of a piece.
+ * <p/>
+ * An ID is generated the first time it is requested, so pieces whose ID is never read cost nothing.
+ *
+ * @see VectorMusicHeader#setDefaultIdStrategy(IdStrategy)
+ */
+public enum IdStrategy {
+
+    /**
+     * A random version 4 UUID from {@link UUID#randomUUID()}, which draws on a shared
+     * {@link java.security.SecureRandom}.
+     */
+    RANDOM {
+        @Override
+        UUID generate(VectorMusicHeader header) {
+            return UUID.randomUUID();
+        }
+    },
+
+    /**
+     * A random version 4 UUID from {@link ThreadLocalRandom}, which does not contend between threads. The IDs are
+     * as unlikely to collide as those of {@link #RANDOM}, but are not cryptographically unpredictable.
+     */
+    FAST {
+        @Override
+        UUID generate(VectorMusicHeader header) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            long mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+            long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+
+            return new UUID(mostSigBits, leastSigBits);
+        }
+    },
+
+    /**
+     * A version 3 UUID derived from the name and contents of the header, so that equal headers with equal names
+     * always have the same ID. The ID reflects the header as it was when the ID was first requested.
+     */
+    CONTENT {
+        @Override
+        UUID generate(VectorMusicHeader header) {
+            StringBuilder sb = new StringBuilder();
+
+            sb.append(header.getName()).append('|')
+                    .append(header.getTickValue()).append('|')
+                    .append(header.getNumberOfParts()).append('|')
+                    .append(header.getNumberOfVoices());
+
+            if (header.getTimeSignatures() != null) {
+                for (TimeSignature timeSignature : header.getTimeSignatures()) {
+                    sb.append("|t").append(timeSignature.getMeasure()).append(':')
+                            .append(timeSignature.getUpper()).append('/').append(timeSignature.getLower());
+                }
+            }
+
+            if (header.getKeySignatures() != null) {
+                for (KeySignatureInstance keySignature : header.getKeySignatures()) {
+                    sb.append("|k").append(keySignature.getMeasure()).append(':')
+                            .append(keySignature.getKeySignature().getKeySignatureCode());
+                }
+            }
+
+            if (header.getMetronomeMarkings() != null) {
+                for (MetronomeMarking tempo : header.getMetronomeMarkings()) {
+                    sb.append("|m").append(tempo.getMeasure()).append(':').append(tempo.getQuarterBPM());
+                }
+            }
+
+            return UUID.nameUUIDFromBytes(sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    };
+
+    /**
+     * Generates the ID of a piece.
+     *
+     * @param header The header of the piece.
+     * @return The ID.
+     */
+    abstract UUID generate(VectorMusicHeader header);
+}
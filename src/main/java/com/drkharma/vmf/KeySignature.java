@@ -1,7 +1,5 @@
 package com.drkharma.vmf;
 
-import java.util.HashMap;
-
 /**
  * Representation of a key signature.
  */
@@ -26,9 +24,15 @@ public enum KeySignature {
 
     /**
      * A lookup table allowing the enum to be searched by the VMF
-     * key signature code.
+     * key signature code, indexed by the code plus seven.
      */
-    private static HashMap<Integer, KeySignature> keySignatureLookup;
+    private static final KeySignature[] KEY_SIGNATURE_LOOKUP = new KeySignature[15];
+
+    static {
+        for (KeySignature keySignature : values()) {
+            KEY_SIGNATURE_LOOKUP[keySignature.getKeySignatureCode() + 7] = keySignature;
+        }
+    }
 
     /**
      * The number of sharps in the key signature.
@@ -54,8 +58,6 @@ public enum KeySignature {
     KeySignature(int sharps, int flats) {
         this.sharps = sharps;
         this.flats = flats;
-
-        this.registerKeySignature();
     }
 
     /**
@@ -66,11 +68,11 @@ public enum KeySignature {
      * @throws IllegalArgumentException If the code provided is greater than 7 or less than -7.
      */
     public static KeySignature getKeySignature(int keySignatureCode) throws IllegalArgumentException {
-        if (Math.abs(keySignatureCode) > 7) {
+        if (keySignatureCode < -7 || keySignatureCode > 7) {
             throw new IllegalArgumentException("The code should be between -7 and 7");
         }
 
-        return keySignatureLookup.get(keySignatureCode);
+        return KEY_SIGNATURE_LOOKUP[keySignatureCode + 7];
     }
 
     /**
@@ -88,21 +90,4 @@ public enum KeySignature {
             return this.flats * -1;
         }
     }
-
-    /**
-     * Registers a KeySignature in the lookup table.
-     */
-    private void registerKeySignature() {
-        if (keySignatureLookup == null) {
-            keySignatureLookup = new HashMap<Integer, KeySignature>();
-        }
-
-        if (this.flats == 0 && this.sharps == 0) {
-            keySignatureLookup.put(0, this);
-        } else if (this.flats == 0) {
-            keySignatureLookup.put(this.sharps, this);
-        } else {
-            keySignatureLookup.put(this.flats * -1, this);
-        }
-    }
 }
@@ -3,7 +3,7 @@ package com.drkharma.vmf;
 /**
  * An instance of a KeySignature at a specific location in the piece.
  */
-public class KeySignatureInstance {
+public class KeySignatureInstance implements MeasureEvent {
 
     /**
      * The KeySignature represented by this instance.
@@ -26,6 +26,24 @@ public class KeySignatureInstance {
         this.keySignature = keySignature;
     }
 
+    /**
+     * Gets the key signature represented by this instance.
+     *
+     * @return The key signature represented by this instance.
+     */
+    public KeySignature getKeySignature() {
+        return keySignature;
+    }
+
+    /**
+     * Gets the measure at which this key signature is placed.
+     *
+     * @return The measure at which this key signature is placed.
+     */
+    public int getMeasure() {
+        return measure;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,14 @@
+package com.drkharma.vmf;
+
+/**
+ * An event of the header placed at a specific measure of the piece.
+ */
+public interface MeasureEvent {
+
+    /**
+     * Gets the measure at which this event is placed.
+     *
+     * @return The measure at which this event is placed.
+     */
+    int getMeasure();
+}
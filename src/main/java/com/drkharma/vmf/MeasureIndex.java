@@ -0,0 +1,160 @@
+package com.drkharma.vmf;
+
+import org.apache.commons.lang3.math.Fraction;
+
+import java.util.*;
+
+/**
+ * Converts between ticks and measures using the time signatures and tick value of a piece.
+ * <p/>
+ * The measures governed by each time signature form a segment of equal length measures, so only the start of each
+ * segment is stored and conversions binary search the segments. Lengths are kept as integers in a unit which divides
+ * every measure length exactly, so no rounding error accumulates. When a measure does not begin on a whole tick it
+ * is taken to begin on the following tick.
+ * <p/>
+ * The first time signature governs every measure before the next, including any before its own measure.
+ */
+public class MeasureIndex {
+
+    /**
+     * The first measure of each segment.
+     */
+    private final int[] measures;
+
+    /**
+     * The start of each segment, in scaled units.
+     */
+    private final long[] starts;
+
+    /**
+     * The length of a measure within each segment, in scaled units.
+     */
+    private final long[] lengths;
+
+    /**
+     * The number of scaled units in a tick.
+     */
+    private final long scale;
+
+    /**
+     * Builds the index of a piece.
+     *
+     * @param header The header of the piece.
+     * @throws IllegalArgumentException If the header has no tick value or no time signatures.
+     */
+    public MeasureIndex(VectorMusicHeader header) {
+        Fraction tickValue = header.getTickValue();
+        List<TimeSignature> timeSignatures = header.getTimeSignatures();
+
+        if (tickValue == null || timeSignatures == null || timeSignatures.isEmpty()) {
+            throw new IllegalArgumentException("A tick value and at least one time signature are required.");
+        }
+
+        // Later time signatures at the same measure replace earlier ones.
+        SortedMap<Integer, TimeSignature> sorted = new TreeMap<Integer, TimeSignature>();
+        for (TimeSignature timeSignature : timeSignatures) {
+            sorted.put(timeSignature.getMeasure(), timeSignature);
+        }
+
+        int size = sorted.size();
+        Fraction[] ticksPerMeasure = new Fraction[size];
+        long scale = 1;
+        int i = 0;
+
+        for (TimeSignature timeSignature : sorted.values()) {
+            ticksPerMeasure[i] = Fraction.getFraction(timeSignature.getUpper() * 4, timeSignature.getLower())
+                    .divideBy(tickValue);
+            scale = lcm(scale, ticksPerMeasure[i].getDenominator());
+            i++;
+        }
+
+        this.measures = new int[size];
+        this.starts = new long[size];
+        this.lengths = new long[size];
+        this.scale = scale;
+
+        i = 0;
+        for (Integer measure : sorted.keySet()) {
+            this.measures[i] = i == 0 ? 0 : measure;
+            this.lengths[i] = ticksPerMeasure[i].getNumerator() * (scale / ticksPerMeasure[i].getDenominator());
+            this.starts[i] = i == 0 ? 0
+                    : this.starts[i - 1] + (long) (this.measures[i] - this.measures[i - 1]) * this.lengths[i - 1];
+            i++;
+        }
+    }
+
+    /**
+     * Gets the tick at which a measure begins.
+     *
+     * @param measure The measure, counted from zero.
+     * @return The first tick of the measure.
+     * @throws IllegalArgumentException If the measure is negative.
+     */
+    public int tickOfMeasure(int measure) {
+        if (measure < 0) {
+            throw new IllegalArgumentException("A measure cannot be negative.");
+        }
+
+        int segment = Arrays.binarySearch(this.measures, measure);
+        if (segment < 0) {
+            segment = -segment - 2;
+        }
+
+        long scaled = this.starts[segment] + (measure - this.measures[segment]) * this.lengths[segment];
+
+        return (int) ((scaled + this.scale - 1) / this.scale);
+    }
+
+    /**
+     * Gets the measure which contains a tick.
+     *
+     * @param tick The tick, counted from the beginning of the music.
+     * @return The measure, counted from zero.
+     * @throws IllegalArgumentException If the tick is negative.
+     */
+    public int measureOfTick(int tick) {
+        if (tick < 0) {
+            throw new IllegalArgumentException("A tick cannot be negative.");
+        }
+
+        long scaled = tick * this.scale;
+
+        int segment = Arrays.binarySearch(this.starts, scaled);
+        if (segment < 0) {
+            segment = -segment - 2;
+        }
+
+        return this.measures[segment] + (int) ((scaled - this.starts[segment]) / this.lengths[segment]);
+    }
+
+    /**
+     * Gets the notes of a voice which sound during a measure.
+     *
+     * @param music   A voice of the piece this index was built for.
+     * @param measure The measure, counted from zero.
+     * @return A read-only view of the notes, in order.
+     * @see VectorMusic#notesBetween(int, int)
+     */
+    public List<Note> notesInMeasure(VectorMusic music, int measure) {
+        return music.notesBetween(this.tickOfMeasure(measure), this.tickOfMeasure(measure + 1));
+    }
+
+    /**
+     * Calculates the least common multiple of two positive numbers.
+     *
+     * @param a The first number.
+     * @param b The second number.
+     * @return The least common multiple.
+     */
+    private static long lcm(long a, long b) {
+        long x = a, y = b;
+
+        while (y != 0) {
+            long t = x % y;
+            x = y;
+            y = t;
+        }
+
+        return a / x * b;
+    }
+}
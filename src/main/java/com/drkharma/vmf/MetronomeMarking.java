@@ -3,7 +3,7 @@ package com.drkharma.vmf;
 /**
  * Represents a metronome marking in a score in BPM at a specific location.
  */
-public class MetronomeMarking {
+public class MetronomeMarking implements MeasureEvent {
 
     /**
      * The measure where this marking is located,
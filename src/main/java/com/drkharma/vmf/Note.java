@@ -80,6 +80,24 @@ public class Note {
         return duration;
     }
 
+    /**
+     * Gets the dynamic level.
+     *
+     * @return The dynamic level.
+     */
+    public Dynamic getDynamic() {
+        return dynamic;
+    }
+
+    /**
+     * Gets the articulation.
+     *
+     * @return The articulation.
+     */
+    public Articulation getArticulation() {
+        return articulation;
+    }
+
     /**
      * Gets the pitch class.
      * @return The pitch class.
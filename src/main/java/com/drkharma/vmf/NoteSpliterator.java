@@ -0,0 +1,260 @@
+package com.drkharma.vmf;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Traverses and partitions the notes of a piece, together with the absolute onset of each, so that per-note work can
+ * be spread across processors.
+ * <p/>
+ * This mirrors {@code java.util.Spliterator}, which is not available before Java 8. A spliterator covers a range of
+ * a random access list of notes and always knows its exact size. {@link #trySplit()} hands the first half of the
+ * range to a new spliterator, so the parts of a range are balanced however often they are split.
+ * {@link #reduce(ForkJoinPool, Reducer)} does so on a fork/join pool, combining the results of the parts in order.
+ * <p/>
+ * A spliterator covers the notes the piece had when it was created. Like any other traversal, it must not be used
+ * while notes are added to the piece.
+ *
+ * @see VectorMusic#notes()
+ */
+public final class NoteSpliterator {
+
+    /**
+     * The number of parts per thread of the pool into which a parallel reduction splits its range, so that threads
+     * which finish early can steal work from the rest.
+     */
+    private static final int PARTS_PER_THREAD = 4;
+
+    /**
+     * The notes, which support fast random access.
+     */
+    private final List<Note> notes;
+
+    /**
+     * The absolute onset of each note, in ticks.
+     */
+    private final int[] onsets;
+
+    /**
+     * The index of the next note.
+     */
+    private int index;
+
+    /**
+     * The index after the last note of the range.
+     */
+    private final int fence;
+
+    /**
+     * Receives each note of a traversal.
+     */
+    public interface Action {
+
+        /**
+         * Called with a note.
+         *
+         * @param note  The note.
+         * @param onset The absolute onset of the note, in ticks from the beginning of the music.
+         */
+        void accept(Note note, int onset);
+    }
+
+    /**
+     * Reduces the notes of a range to a result. A parallel reduction calls it from several threads, for different
+     * parts of the range.
+     *
+     * @param <R> The type of the result.
+     */
+    public interface Reducer<R> {
+
+        /**
+         * Creates the result of an empty part of the range, into which its notes are accumulated.
+         *
+         * @return The result of no notes.
+         */
+        R identity();
+
+        /**
+         * Accumulates a note into the result of the part of the range it belongs to.
+         *
+         * @param result The result of the notes before it in the part.
+         * @param note   The note.
+         * @param onset  The absolute onset of the note, in ticks from the beginning of the music.
+         * @return The result including the note.
+         */
+        R accumulate(R result, Note note, int onset);
+
+        /**
+         * Combines the results of two adjacent parts of the range.
+         *
+         * @param left  The result of the earlier part.
+         * @param right The result of the later part.
+         * @return The result of both parts.
+         */
+        R combine(R left, R right);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param notes  The notes, which support fast random access.
+     * @param onsets The absolute onset of each note, in ticks.
+     * @param index  The index of the first note of the range.
+     * @param fence  The index after the last note of the range.
+     */
+    NoteSpliterator(List<Note> notes, int[] onsets, int index, int fence) {
+        this.notes = notes;
+        this.onsets = onsets;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    /**
+     * Gets the number of notes not yet traversed.
+     *
+     * @return The number of notes.
+     */
+    public int size() {
+        return this.fence - this.index;
+    }
+
+    /**
+     * Splits off the first half of the notes not yet traversed.
+     *
+     * @return A spliterator over the first half, or null if fewer than two notes remain.
+     */
+    public NoteSpliterator trySplit() {
+        int low = this.index;
+        int mid = (low + this.fence) >>> 1;
+
+        if (low >= mid) {
+            return null;
+        }
+
+        this.index = mid;
+
+        return new NoteSpliterator(this.notes, this.onsets, low, mid);
+    }
+
+    /**
+     * Traverses the next note, if any remain.
+     *
+     * @param action The receiver of the note.
+     * @return True if a note was traversed, false if none remained.
+     */
+    public boolean tryAdvance(Action action) {
+        if (this.index >= this.fence) {
+            return false;
+        }
+
+        action.accept(this.notes.get(this.index), this.onsets[this.index]);
+        this.index++;
+
+        return true;
+    }
+
+    /**
+     * Traverses every note remaining, in order.
+     *
+     * @param action The receiver of the notes.
+     */
+    public void forEachRemaining(Action action) {
+        for (int i = this.index; i < this.fence; ++i) {
+            action.accept(this.notes.get(i), this.onsets[i]);
+        }
+
+        this.index = this.fence;
+    }
+
+    /**
+     * Reduces every note remaining, in order, on the calling thread.
+     *
+     * @param reducer The reducer.
+     * @param <R>     The type of the result.
+     * @return The result.
+     */
+    public <R> R reduce(Reducer<R> reducer) {
+        R result = reducer.identity();
+
+        for (int i = this.index; i < this.fence; ++i) {
+            result = reducer.accumulate(result, this.notes.get(i), this.onsets[i]);
+        }
+
+        this.index = this.fence;
+
+        return result;
+    }
+
+    /**
+     * Reduces every note remaining on a fork/join pool, splitting the range into balanced parts which are reduced in
+     * parallel and combined in order.
+     *
+     * @param pool    The pool.
+     * @param reducer The reducer, which must be safe to call from several threads at once.
+     * @param <R>     The type of the result.
+     * @return The result.
+     */
+    public <R> R reduce(ForkJoinPool pool, Reducer<R> reducer) {
+        int threshold = Math.max(1, this.size() / (pool.getParallelism() * PARTS_PER_THREAD));
+
+        return pool.invoke(new ReduceTask<R>(this, reducer, threshold));
+    }
+
+    /**
+     * Reduces a spliterator, splitting it until its parts are no larger than a threshold.
+     *
+     * @param <R> The type of the result.
+     */
+    private static final class ReduceTask<R> extends RecursiveTask<R> {
+
+        /**
+         * The version of the serialized form.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The notes of the task.
+         */
+        private final NoteSpliterator spliterator;
+
+        /**
+         * The reducer.
+         */
+        private final Reducer<R> reducer;
+
+        /**
+         * The largest part reduced without splitting.
+         */
+        private final int threshold;
+
+        /**
+         * Constructor
+         *
+         * @param spliterator The notes of the task.
+         * @param reducer     The reducer.
+         * @param threshold   The largest part reduced without splitting.
+         */
+        ReduceTask(NoteSpliterator spliterator, Reducer<R> reducer, int threshold) {
+            this.spliterator = spliterator;
+            this.reducer = reducer;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected R compute() {
+            NoteSpliterator prefix;
+
+            if (this.spliterator.size() <= this.threshold || (prefix = this.spliterator.trySplit()) == null) {
+                return this.spliterator.reduce(this.reducer);
+            }
+
+            ReduceTask<R> left = new ReduceTask<R>(prefix, this.reducer, this.threshold);
+            left.fork();
+
+            R right = this.compute();
+
+            return this.reducer.combine(left.join(), right);
+        }
+    }
+}
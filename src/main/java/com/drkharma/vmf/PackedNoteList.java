@@ -0,0 +1,358 @@
+package com.drkharma.vmf;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A compact list of notes stored as parallel primitive arrays.
+ * <p/>
+ * Each note is held as its VMF codes rather than as an object: a byte each for the dynamic, articulation and
+ * pitch class codes and an int each for the octave, duration and offset. This uses a fraction of the memory of a
+ * list of {@link Note} objects and allows constant time access by index.
+ * <p/>
+ * {@link #get(int)} builds a new {@link Note} on demand. Changes made to that note are not reflected in the list;
+ * use {@link #set(int, Note)} to replace a note.
+ */
+public class PackedNoteList extends AbstractList<Note> implements RandomAccess {
+
+    /**
+     * The default number of notes the list can hold before it grows.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The VMF dynamic code of each note.
+     */
+    private byte[] dynamics;
+
+    /**
+     * The VMF articulation code of each note.
+     */
+    private byte[] articulations;
+
+    /**
+     * The VMF pitch class code of each note.
+     */
+    private byte[] pitchClasses;
+
+    /**
+     * The octave of each note.
+     */
+    private int[] octaves;
+
+    /**
+     * The duration of each note in ticks.
+     */
+    private int[] durations;
+
+    /**
+     * The offset of each note from the beginning of the previous note.
+     */
+    private int[] offsets;
+
+    /**
+     * The number of notes in the list.
+     */
+    private int size;
+
+    /**
+     * Creates an empty list.
+     */
+    public PackedNoteList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty list able to hold a number of notes before growing.
+     *
+     * @param initialCapacity The number of notes the list can hold before growing.
+     * @throws IllegalArgumentException If the capacity is negative.
+     */
+    public PackedNoteList(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("The capacity should not be negative.");
+        }
+
+        this.dynamics = new byte[initialCapacity];
+        this.articulations = new byte[initialCapacity];
+        this.pitchClasses = new byte[initialCapacity];
+        this.octaves = new int[initialCapacity];
+        this.durations = new int[initialCapacity];
+        this.offsets = new int[initialCapacity];
+    }
+
+    /**
+     * Creates a list holding the provided notes.
+     *
+     * @param notes The notes to copy into the list.
+     */
+    public PackedNoteList(Collection<Note> notes) {
+        this(notes.size());
+
+        this.addAll(notes);
+    }
+
+    @Override
+    public Note get(int index) {
+        this.checkIndex(index);
+
+        return new Note(this.dynamics[index], this.articulations[index], this.pitchClasses[index],
+                this.octaves[index], this.offsets[index], this.durations[index]);
+    }
+
+    @Override
+    public Note set(int index, Note note) {
+        Note previous = this.get(index);
+
+        this.store(index, note);
+
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Note note) {
+        if (index < 0 || index > this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+
+        this.ensureCapacity(this.size + 1);
+        this.shift(index, index + 1, this.size - index);
+        this.size++;
+        this.store(index, note);
+        this.modCount++;
+    }
+
+    /**
+     * Appends a note described by its VMF codes without building a {@link Note}.
+     *
+     * @param dynamic      The VMF code for the dynamic.
+     * @param articulation The VMF code for the articulation.
+     * @param pitchClass   The VMF code for the pitch class.
+     * @param octave       The octave of the note.
+     * @param offset       The offset from the beginning of the previous note.
+     * @param duration     The duration of the note in ticks.
+     * @throws IllegalArgumentException If a VMF code is invalid.
+     */
+    public void add(int dynamic, int articulation, int pitchClass, int octave, int offset, int duration) {
+        // Validate the codes as the Note constructor would.
+        Dynamic.getDynamic(dynamic);
+        Articulation.getArticulation(articulation);
+        PitchClass.getPitchClass(pitchClass);
+
+        this.ensureCapacity(this.size + 1);
+
+        this.dynamics[this.size] = (byte) dynamic;
+        this.articulations[this.size] = (byte) articulation;
+        this.pitchClasses[this.size] = (byte) pitchClass;
+        this.octaves[this.size] = octave;
+        this.durations[this.size] = duration;
+        this.offsets[this.size] = offset;
+
+        this.size++;
+        this.modCount++;
+    }
+
+    /**
+     * Appends notes, copying the arrays of another packed list directly rather than building each note.
+     *
+     * @param notes The notes to append.
+     * @return True if the list changed.
+     */
+    @Override
+    public boolean addAll(Collection<? extends Note> notes) {
+        if (!(notes instanceof PackedNoteList)) {
+            return super.addAll(notes);
+        }
+
+        PackedNoteList other = (PackedNoteList) notes;
+        int length = other.size;
+
+        this.ensureCapacity(this.size + length);
+
+        System.arraycopy(other.dynamics, 0, this.dynamics, this.size, length);
+        System.arraycopy(other.articulations, 0, this.articulations, this.size, length);
+        System.arraycopy(other.pitchClasses, 0, this.pitchClasses, this.size, length);
+        System.arraycopy(other.octaves, 0, this.octaves, this.size, length);
+        System.arraycopy(other.durations, 0, this.durations, this.size, length);
+        System.arraycopy(other.offsets, 0, this.offsets, this.size, length);
+
+        this.size += length;
+        this.modCount++;
+
+        return length > 0;
+    }
+
+    @Override
+    public Note remove(int index) {
+        Note previous = this.get(index);
+
+        this.shift(index + 1, index, this.size - index - 1);
+        this.size--;
+        this.modCount++;
+
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        this.size = 0;
+        this.modCount++;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the duration of a note without building it.
+     *
+     * @param index The index of the note.
+     * @return The duration of the note in ticks.
+     */
+    public int getDuration(int index) {
+        this.checkIndex(index);
+
+        return this.durations[index];
+    }
+
+    /**
+     * Gets the offset of a note without building it.
+     *
+     * @param index The index of the note.
+     * @return The offset of the note from the beginning of the previous note in ticks.
+     */
+    public int getOffset(int index) {
+        this.checkIndex(index);
+
+        return this.offsets[index];
+    }
+
+    /**
+     * Changes the duration of a note without building it.
+     *
+     * @param index    The index of the note.
+     * @param duration The duration of the note in ticks.
+     */
+    public void setDuration(int index, int duration) {
+        this.checkIndex(index);
+
+        this.durations[index] = duration;
+    }
+
+    /**
+     * Changes the offset of a note without building it.
+     *
+     * @param index  The index of the note.
+     * @param offset The offset of the note from the beginning of the previous note in ticks.
+     */
+    public void setOffset(int index, int offset) {
+        this.checkIndex(index);
+
+        this.offsets[index] = offset;
+    }
+
+    /**
+     * Gets the octave of a note without building it.
+     *
+     * @param index The index of the note.
+     * @return The octave of the note.
+     */
+    public int getOctave(int index) {
+        this.checkIndex(index);
+
+        return this.octaves[index];
+    }
+
+    /**
+     * Gets the VMF pitch class code of a note without building it.
+     *
+     * @param index The index of the note.
+     * @return The VMF pitch class code of the note.
+     */
+    public int getPitchClassCode(int index) {
+        this.checkIndex(index);
+
+        return this.pitchClasses[index];
+    }
+
+    /**
+     * Ensures the list can hold a number of notes without growing.
+     *
+     * @param capacity The number of notes the list should be able to hold.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > this.octaves.length) {
+            int grown = Math.max(capacity, this.octaves.length + (this.octaves.length >> 1) + 1);
+            this.resize(grown);
+        }
+    }
+
+    /**
+     * Releases any capacity beyond the notes held.
+     */
+    public void trimToSize() {
+        if (this.size < this.octaves.length) {
+            this.resize(this.size);
+        }
+    }
+
+    /**
+     * Stores a note at a position in the arrays.
+     *
+     * @param index The position to store the note at.
+     * @param note  The note to store.
+     */
+    private void store(int index, Note note) {
+        this.dynamics[index] = (byte) note.getDynamic().getDynamicCode();
+        this.articulations[index] = (byte) note.getArticulation().getArticulationCode();
+        this.pitchClasses[index] = (byte) note.getPitchClass().getPitchClassCode();
+        this.octaves[index] = note.getOctave();
+        this.durations[index] = note.getDuration();
+        this.offsets[index] = note.getOffset();
+    }
+
+    /**
+     * Moves a range of notes within the arrays.
+     *
+     * @param from   The first position to move.
+     * @param to     The position to move it to.
+     * @param length The number of notes to move.
+     */
+    private void shift(int from, int to, int length) {
+        System.arraycopy(this.dynamics, from, this.dynamics, to, length);
+        System.arraycopy(this.articulations, from, this.articulations, to, length);
+        System.arraycopy(this.pitchClasses, from, this.pitchClasses, to, length);
+        System.arraycopy(this.octaves, from, this.octaves, to, length);
+        System.arraycopy(this.durations, from, this.durations, to, length);
+        System.arraycopy(this.offsets, from, this.offsets, to, length);
+    }
+
+    /**
+     * Reallocates the arrays with a new capacity.
+     *
+     * @param capacity The new capacity.
+     */
+    private void resize(int capacity) {
+        this.dynamics = Arrays.copyOf(this.dynamics, capacity);
+        this.articulations = Arrays.copyOf(this.articulations, capacity);
+        this.pitchClasses = Arrays.copyOf(this.pitchClasses, capacity);
+        this.octaves = Arrays.copyOf(this.octaves, capacity);
+        this.durations = Arrays.copyOf(this.durations, capacity);
+        this.offsets = Arrays.copyOf(this.offsets, capacity);
+    }
+
+    /**
+     * Checks that an index refers to a note in the list.
+     *
+     * @param index The index to check.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+    }
+}
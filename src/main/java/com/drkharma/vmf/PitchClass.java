@@ -1,7 +1,5 @@
 package com.drkharma.vmf;
 
-import java.util.HashMap;
-
 /**
  * Represents a Pitch Class.
  */
@@ -23,7 +21,14 @@ public enum PitchClass {
      * A lookup table allowing the enum to be searched by the VMF
      * pitch class code.
      */
-    private static HashMap<Integer, PitchClass> pitchClassLookup;
+    private static final PitchClass[] PITCH_CLASS_LOOKUP = new PitchClass[12];
+
+    static {
+        for (PitchClass pitchClass : values()) {
+            PITCH_CLASS_LOOKUP[pitchClass.pitchClassCode] = pitchClass;
+        }
+    }
+
     /**
      * The VMF code of this pitch class.
      */
@@ -36,8 +41,6 @@ public enum PitchClass {
      */
     PitchClass(int pitchClassCode) {
         this.pitchClassCode = pitchClassCode;
-
-        this.registerPitchClass();
     }
 
     /**
@@ -52,7 +55,7 @@ public enum PitchClass {
             throw new IllegalArgumentException("The code should be between 0 and 11 inclusive.");
         }
 
-        return pitchClassLookup.get(pitchClassCode);
+        return PITCH_CLASS_LOOKUP[pitchClassCode];
     }
 
     /**
@@ -63,15 +66,4 @@ public enum PitchClass {
     public int getPitchClassCode() {
         return pitchClassCode;
     }
-
-    /**
-     * Registers a pitch class in the lookup table.
-     */
-    private void registerPitchClass() {
-        if (pitchClassLookup == null) {
-            pitchClassLookup = new HashMap<Integer, PitchClass>();
-        }
-
-        pitchClassLookup.put(this.pitchClassCode, this);
-    }
 }
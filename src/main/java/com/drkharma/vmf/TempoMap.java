@@ -0,0 +1,126 @@
+package com.drkharma.vmf;
+
+import java.util.*;
+
+/**
+ * Converts between ticks and seconds using the metronome markings and tick value of a piece.
+ * <p/>
+ * Each metronome marking begins a segment of constant tempo. The tick at which each segment begins, the time
+ * elapsed before it and the length of a tick within it are computed once, so conversions binary search the
+ * segments rather than integrating over every marking.
+ * <p/>
+ * The first marking governs every tick before the next, including any before its own measure. A piece without
+ * markings is played at {@link #DEFAULT_TEMPO}.
+ */
+public class TempoMap {
+
+    /**
+     * The tempo in quarter notes per minute of a piece without metronome markings.
+     */
+    public static final int DEFAULT_TEMPO = 100;
+
+    /**
+     * The first tick of each segment.
+     */
+    private final int[] ticks;
+
+    /**
+     * The time elapsed before each segment, in seconds.
+     */
+    private final double[] seconds;
+
+    /**
+     * The length of a tick within each segment, in seconds.
+     */
+    private final double[] secondsPerTick;
+
+    /**
+     * Builds the tempo map of a piece.
+     *
+     * @param header The header of the piece.
+     * @throws IllegalArgumentException If the header has no tick value or no time signatures.
+     */
+    public TempoMap(VectorMusicHeader header) {
+        this(header, new MeasureIndex(header));
+    }
+
+    /**
+     * Builds the tempo map of a piece whose measure index is already built.
+     *
+     * @param header   The header of the piece.
+     * @param measures The measure index of the piece.
+     * @throws IllegalArgumentException If a metronome marking is not a positive tempo.
+     */
+    public TempoMap(VectorMusicHeader header, MeasureIndex measures) {
+        // Later markings at the same measure replace earlier ones.
+        SortedMap<Integer, Integer> tempi = new TreeMap<Integer, Integer>();
+        if (header.getMetronomeMarkings() != null) {
+            for (MetronomeMarking marking : header.getMetronomeMarkings()) {
+                if (marking.getQuarterBPM() <= 0) {
+                    throw new IllegalArgumentException("A tempo must be positive.");
+                }
+
+                tempi.put(marking.getMeasure(), marking.getQuarterBPM());
+            }
+        }
+        if (tempi.isEmpty()) {
+            tempi.put(0, DEFAULT_TEMPO);
+        }
+
+        double quartersPerTick = header.getTickValue().doubleValue();
+        int size = tempi.size();
+        int i = 0;
+
+        this.ticks = new int[size];
+        this.seconds = new double[size];
+        this.secondsPerTick = new double[size];
+
+        for (Map.Entry<Integer, Integer> tempo : tempi.entrySet()) {
+            this.ticks[i] = i == 0 ? 0 : measures.tickOfMeasure(tempo.getKey());
+            this.secondsPerTick[i] = quartersPerTick * 60 / tempo.getValue();
+            this.seconds[i] = i == 0 ? 0
+                    : this.seconds[i - 1] + (this.ticks[i] - this.ticks[i - 1]) * this.secondsPerTick[i - 1];
+            i++;
+        }
+    }
+
+    /**
+     * Gets the time at which a tick begins.
+     *
+     * @param tick The tick, counted from the beginning of the music.
+     * @return The seconds elapsed from the beginning of the music.
+     * @throws IllegalArgumentException If the tick is negative.
+     */
+    public double toSeconds(int tick) {
+        if (tick < 0) {
+            throw new IllegalArgumentException("A tick cannot be negative.");
+        }
+
+        int segment = Arrays.binarySearch(this.ticks, tick);
+        if (segment < 0) {
+            segment = -segment - 2;
+        }
+
+        return this.seconds[segment] + (tick - this.ticks[segment]) * this.secondsPerTick[segment];
+    }
+
+    /**
+     * Gets the position of a time in ticks.
+     *
+     * @param seconds The seconds elapsed from the beginning of the music.
+     * @return The position in ticks, including the fraction of the tick elapsed.
+     * @throws IllegalArgumentException If the time is negative.
+     */
+    public double toTicks(double seconds) {
+        if (seconds < 0) {
+            throw new IllegalArgumentException("A time cannot be negative.");
+        }
+
+        int segment = Arrays.binarySearch(this.seconds, seconds);
+        if (segment < 0) {
+            segment = -segment - 2;
+        }
+
+        return this.ticks[segment] + (seconds - this.seconds[segment]) / this.secondsPerTick[segment];
+    }
+}
@@ -3,7 +3,7 @@ package com.drkharma.vmf;
 /**
  * An instance of a Time Signature at a specific location in the piece.
  */
-public class TimeSignature {
+public class TimeSignature implements MeasureEvent {
 
     /**
      * The measure at which this time signature is placed.
@@ -35,6 +35,33 @@ public class TimeSignature {
         this.measure = measure;
     }
 
+    /**
+     * Gets the measure at which this time signature is placed.
+     *
+     * @return The measure at which this time signature is placed.
+     */
+    public int getMeasure() {
+        return measure;
+    }
+
+    /**
+     * Gets the upper value of the time signature, the number of units in a measure.
+     *
+     * @return The upper value of the time signature.
+     */
+    public int getUpper() {
+        return upper;
+    }
+
+    /**
+     * Gets the lower value of the time signature, the value of a single unit.
+     *
+     * @return The lower value of the time signature.
+     */
+    public int getLower() {
+        return lower;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
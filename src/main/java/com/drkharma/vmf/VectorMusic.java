@@ -1,11 +1,22 @@
 package com.drkharma.vmf;
 
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
 
 /**
  * Represents a piece of music.
+ * <p/>
+ * The absolute onset of every note, the tick at which it begins, is the sum of the offsets of the notes up to and
+ * including it. These sums are indexed on first use and extended as notes are added, so that the notes sounding at
+ * a tick or over a range of ticks are found by binary search. The index assumes the notes of a single voice, which
+ * do not overlap, and that the list of notes is only changed through {@link #addNote(Note)}.
+ * <p/>
+ * The index is built under a lock and published whole, so a piece which is no longer being added to may be queried
+ * from several threads at once.
+ * <p/>
+ * The notes are also folded into a content fingerprint, which is cached until a note is added. {@link #equals(Object)}
+ * compares fingerprints before comparing every note, and {@link #hashCode()} is derived from the fingerprint. The
+ * parsers only add notes once they are complete; code which changes a note already added must call
+ * {@link #invalidateFingerprint()}.
  */
 public class VectorMusic {
 
@@ -19,19 +30,29 @@ public class VectorMusic {
      */
     private List<Note> notes;
 
+    /**
+     * The latest onset index, which is replaced rather than changed once published.
+     */
+    private volatile OnsetIndex onsetIndex;
+
+    /**
+     * The cached fingerprint of the notes, or null if it has to be folded again.
+     */
+    private volatile NotesFingerprint notesFingerprint;
+
     /**
      * Default Constructor.
      */
     public VectorMusic() {
         this.header = new VectorMusicHeader();
-        this.notes = new LinkedList<Note>();
+        this.notes = new ArrayList<Note>();
     }
 
     /**
      * Constructor allowing provided values.
      *
      * @param header The header of the file.
-     * @param notes The body of the file.
+     * @param notes The body of the file. A {@link RandomAccess} list keeps onset queries logarithmic.
      */
     public VectorMusic(VectorMusicHeader header, List<Note> notes) {
         this.header = header;
@@ -53,6 +74,7 @@ public class VectorMusic {
      */
     public void addNote(Note note) {
         this.notes.add(note);
+        this.notesFingerprint = null;
     }
 
     /**
@@ -63,6 +85,273 @@ public class VectorMusic {
         return Collections.unmodifiableList(this.notes);
     }
 
+    /**
+     * Gets a spliterator over the notes in this piece and their onsets, which splits into balanced parts for
+     * parallel traversal.
+     *
+     * @return A spliterator over every note.
+     */
+    public NoteSpliterator notes() {
+        OnsetIndex index = this.index();
+        List<Note> notes = this.notes instanceof RandomAccess ? this.notes : new ArrayList<Note>(this.notes);
+
+        return new NoteSpliterator(notes, index.onsets, 0, index.count);
+    }
+
+    /**
+     * Gets the absolute onset of a note, the tick at which it begins.
+     *
+     * @param index The index of the note.
+     * @return The onset of the note in ticks from the beginning of the music.
+     * @throws IndexOutOfBoundsException If there is no note at the index.
+     */
+    public int getOnset(int index) {
+        if (index < 0 || index >= this.notes.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.notes.size());
+        }
+
+        return this.index().onsets[index];
+    }
+
+    /**
+     * Gets the note sounding at a tick.
+     *
+     * @param tick The tick, counted from the beginning of the music.
+     * @return The note sounding at the tick, or null if the tick is a rest.
+     */
+    public Note noteAt(int tick) {
+        OnsetIndex index = this.index();
+        int i = index.lastOnsetAtOrBefore(tick);
+
+        if (i < 0) {
+            return null;
+        }
+
+        Note note = this.notes.get(i);
+
+        return tick < index.onsets[i] + note.getDuration() ? note : null;
+    }
+
+    /**
+     * Gets the notes which sound during a range of ticks, including a note which began before the range but is
+     * still sounding at its start.
+     *
+     * @param startTick The first tick of the range, inclusive.
+     * @param endTick   The last tick of the range, exclusive.
+     * @return A read-only view of the notes, in order.
+     */
+    public List<Note> notesBetween(int startTick, int endTick) {
+        if (endTick <= startTick) {
+            return Collections.emptyList();
+        }
+
+        OnsetIndex index = this.index();
+        int first = index.lastOnsetAtOrBefore(startTick);
+        int last = index.lastOnsetAtOrBefore(endTick - 1);
+
+        if (first < 0) {
+            first = 0;
+        } else if (index.onsets[first] + this.notes.get(first).getDuration() <= startTick) {
+            first++;
+        }
+
+        if (first > last) {
+            return Collections.emptyList();
+        }
+
+        return Collections.unmodifiableList(this.notes.subList(first, last + 1));
+    }
+
+    /**
+     * Gets an onset index covering every note, extending the latest one if notes have been added since.
+     * <p/>
+     * An index is extended by writing past the end of its array, which readers of the index it replaces never look
+     * at, and published through a volatile field, so readers need no lock.
+     *
+     * @return The onset index.
+     */
+    private OnsetIndex index() {
+        OnsetIndex index = this.onsetIndex;
+
+        if (index != null && index.count == this.notes.size()) {
+            return index;
+        }
+
+        synchronized (this) {
+            index = this.onsetIndex;
+
+            int size = this.notes.size();
+            int count = index == null ? 0 : index.count;
+
+            if (count == size) {
+                return index == null ? (this.onsetIndex = new OnsetIndex(new int[0], 0)) : index;
+            }
+
+            int[] onsets = index == null ? null : index.onsets;
+
+            if (count > size) {
+                // Notes were removed from the list behind this piece, so the index is rebuilt.
+                count = 0;
+                onsets = null;
+            }
+
+            if (onsets == null) {
+                onsets = new int[size];
+            } else if (onsets.length < size) {
+                onsets = Arrays.copyOf(onsets, Math.max(size, onsets.length + (onsets.length >> 1)));
+            }
+
+            int onset = count == 0 ? 0 : onsets[count - 1];
+            ListIterator<Note> it = this.notes.listIterator(count);
+
+            while (it.hasNext()) {
+                onset += it.next().getOffset();
+                onsets[count++] = onset;
+            }
+
+            this.onsetIndex = index = new OnsetIndex(onsets, count);
+
+            return index;
+        }
+    }
+
+    /**
+     * The absolute onsets of the first notes of a piece.
+     */
+    private static final class OnsetIndex {
+
+        /**
+         * The absolute onset of each indexed note, in ticks, followed by unused space.
+         */
+        private final int[] onsets;
+
+        /**
+         * The number of notes indexed.
+         */
+        private final int count;
+
+        /**
+         * Constructor
+         *
+         * @param onsets The absolute onset of each indexed note, in ticks.
+         * @param count  The number of notes indexed.
+         */
+        OnsetIndex(int[] onsets, int count) {
+            this.onsets = onsets;
+            this.count = count;
+        }
+
+        /**
+         * Finds the last note which begins at or before a tick.
+         *
+         * @param tick The tick.
+         * @return The index of the note, or -1 if every note begins after the tick.
+         */
+        int lastOnsetAtOrBefore(int tick) {
+            int low = 0;
+            int high = this.count - 1;
+
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+
+                if (this.onsets[mid] <= tick) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+
+            return high;
+        }
+    }
+
+    /**
+     * The fingerprint of the notes of a piece.
+     */
+    private static final class NotesFingerprint {
+
+        /**
+         * The notes folded into a fingerprint.
+         */
+        private final long value;
+
+        /**
+         * The number of notes folded.
+         */
+        private final int count;
+
+        /**
+         * Constructor
+         *
+         * @param value The notes folded into a fingerprint.
+         * @param count The number of notes folded.
+         */
+        NotesFingerprint(long value, int count) {
+            this.value = value;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Gets a 64 bit fingerprint of the header and notes, covering exactly what {@link #equals(Object)} compares.
+     * Equal pieces always have the same fingerprint, and pieces which differ are very unlikely to.
+     * <p/>
+     * The fingerprint of the notes is cached until a note is added or the number of notes changes, so only the
+     * small header is fingerprinted on each call.
+     *
+     * @return The fingerprint of this piece.
+     */
+    public long getFingerprint() {
+        long state = Fingerprint.SEED;
+
+        state = Fingerprint.fold(state, this.header == null ? 0 : this.header.getFingerprint());
+
+        if (this.notes == null) {
+            state = Fingerprint.fold(state, -1);
+        } else {
+            NotesFingerprint fingerprint = this.fingerprintNotes();
+
+            state = Fingerprint.fold(state, fingerprint.count);
+            state = Fingerprint.fold(state, fingerprint.value);
+        }
+
+        return Fingerprint.finish(state);
+    }
+
+    /**
+     * Discards the cached fingerprint of the notes. This must be called after a note already in this piece is
+     * changed, or the notes are changed other than through {@link #addNote(Note)}.
+     */
+    public void invalidateFingerprint() {
+        this.notesFingerprint = null;
+    }
+
+    /**
+     * Gets the fingerprint of the notes, folding and caching it if it is not current.
+     *
+     * @return The fingerprint of the notes.
+     */
+    private NotesFingerprint fingerprintNotes() {
+        NotesFingerprint fingerprint = this.notesFingerprint;
+
+        if (fingerprint != null && fingerprint.count == this.notes.size()) {
+            return fingerprint;
+        }
+
+        long state = Fingerprint.SEED;
+        int count = 0;
+
+        for (Note note : this.notes) {
+            state = Fingerprint.fold(state, note);
+            count++;
+        }
+
+        // Threads racing here fold the same notes, so whichever result is published last is as good.
+        this.notesFingerprint = fingerprint = new NotesFingerprint(state, count);
+
+        return fingerprint;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -70,6 +359,9 @@ public class VectorMusic {
 
         VectorMusic that = (VectorMusic) o;
 
+        // Pieces with different fingerprints cannot be equal, and most unequal pieces are rejected here.
+        if (this.getFingerprint() != that.getFingerprint()) return false;
+
         if (header != null ? !header.equals(that.header) : that.header != null) return false;
 
         return !(notes != null ? !notes.equals(that.notes) : that.notes != null);
@@ -77,9 +369,8 @@ public class VectorMusic {
 
     @Override
     public int hashCode() {
-        int result = header != null ? header.hashCode() : 0;
-        result = 31 * result + (notes != null ? notes.hashCode() : 0);
+        long fingerprint = this.getFingerprint();
 
-        return result;
+        return (int) (fingerprint ^ (fingerprint >>> 32));
     }
 }
@@ -2,19 +2,45 @@ package com.drkharma.vmf;
 
 import org.apache.commons.lang3.math.Fraction;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 /**
  * The header of a VMF file.
+ * <p/>
+ * Time signatures, key signatures and metronome markings are each kept sorted by measure, with events at the same
+ * measure in the order they were added, so that the event in effect at a measure is found by binary search.
+ * <p/>
+ * To keep that order, the lists returned by {@link #getTimeSignatures()}, {@link #getKeySignatures()} and
+ * {@link #getMetronomeMarkings()} are read-only and throw {@link UnsupportedOperationException} if modified. Earlier
+ * versions returned the lists themselves; events are now added with the {@code add} methods, such as
+ * {@link #addTimeSignature(TimeSignature)}, and replaced with the {@code set} methods.
  */
 public class VectorMusicHeader {
 
     /**
-     * The unique ID of this piece.
+     * Orders events by the measure at which they are placed.
      */
-    private UUID id;
+    private static final Comparator<MeasureEvent> BY_MEASURE = new Comparator<MeasureEvent>() {
+        @Override
+        public int compare(MeasureEvent a, MeasureEvent b) {
+            return a.getMeasure() < b.getMeasure() ? -1 : (a.getMeasure() == b.getMeasure() ? 0 : 1);
+        }
+    };
+
+    /**
+     * The strategy used to generate the ID of pieces created from now on.
+     */
+    private static volatile IdStrategy defaultIdStrategy = IdStrategy.FAST;
+
+    /**
+     * The unique ID of this piece, or null until it is first requested.
+     */
+    private volatile UUID id;
+
+    /**
+     * The strategy used to generate the ID of this piece.
+     */
+    private final IdStrategy idStrategy;
 
     /**
      * The name of this piece.
@@ -67,12 +93,12 @@ public class VectorMusicHeader {
      * @param name The name of this piece.
      */
     public VectorMusicHeader(String name) {
-        this.id = UUID.randomUUID();
+        this.idStrategy = defaultIdStrategy;
         this.name = name;
 
-        this.timeSignatures = new LinkedList<TimeSignature>();
-        this.keySignatures = new LinkedList<KeySignatureInstance>();
-        this.metronomeMarkings = new LinkedList<MetronomeMarking>();
+        this.timeSignatures = new ArrayList<TimeSignature>();
+        this.keySignatures = new ArrayList<KeySignatureInstance>();
+        this.metronomeMarkings = new ArrayList<MetronomeMarking>();
     }
 
     /**
@@ -89,15 +115,15 @@ public class VectorMusicHeader {
     public VectorMusicHeader(Fraction tickValue, int numberOfParts, int numberOfVoices, String name,
                              List<TimeSignature> timeSignatures, List<KeySignatureInstance> keySignatures,
                              List<MetronomeMarking> metronomeMarkings) {
-        this.id = UUID.randomUUID();
+        this.idStrategy = defaultIdStrategy;
         this.name = name;
 
         this.tickValue = tickValue;
         this.numberOfParts = numberOfParts;
         this.numberOfVoices = numberOfVoices;
-        this.timeSignatures = timeSignatures;
-        this.keySignatures = keySignatures;
-        this.metronomeMarkings = metronomeMarkings;
+        this.timeSignatures = sorted(timeSignatures);
+        this.keySignatures = sorted(keySignatures);
+        this.metronomeMarkings = sorted(metronomeMarkings);
     }
 
     /**
@@ -117,12 +143,56 @@ public class VectorMusicHeader {
     }
 
     /**
-     * Gets the ID of this piece.
+     * Gets the strategy used to generate the ID of pieces created from now on.
+     *
+     * @return The default ID strategy.
+     */
+    public static IdStrategy getDefaultIdStrategy() {
+        return defaultIdStrategy;
+    }
+
+    /**
+     * Sets the strategy used to generate the ID of pieces created from now on. The default is
+     * {@link IdStrategy#FAST}.
+     *
+     * @param idStrategy The default ID strategy.
+     */
+    public static void setDefaultIdStrategy(IdStrategy idStrategy) {
+        if (idStrategy == null) {
+            throw new IllegalArgumentException("An ID strategy is required.");
+        }
+
+        defaultIdStrategy = idStrategy;
+    }
+
+    /**
+     * Gets the ID of this piece, generating it on first request.
      *
      * @return The ID of this piece.
      */
     public UUID getId() {
-        return id;
+        UUID result = this.id;
+
+        if (result == null) {
+            synchronized (this) {
+                result = this.id;
+
+                if (result == null) {
+                    this.id = result = this.idStrategy.generate(this);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Sets the ID of this piece, such as when restoring a previously saved piece.
+     *
+     * @param id The ID of this piece, or null to generate one on the next request.
+     */
+    public void setId(UUID id) {
+        this.id = id;
     }
 
     /**
@@ -199,11 +269,14 @@ public class VectorMusicHeader {
 
     /**
      * Gets the time signatures in this piece.
+     * <p/>
+     * The view cannot be modified; use {@link #addTimeSignature(TimeSignature)}
+     * or {@link #setTimeSignatures(List)} instead.
      *
-     * @return The time signatures in this piece.
+     * @return A read-only view of the time signatures in this piece, sorted by measure.
      */
     public List<TimeSignature> getTimeSignatures() {
-        return timeSignatures;
+        return this.timeSignatures == null ? null : Collections.unmodifiableList(this.timeSignatures);
     }
 
     /**
@@ -212,7 +285,7 @@ public class VectorMusicHeader {
      * @param timeSignatures The time signatures in this piece.
      */
     public void setTimeSignatures(List<TimeSignature> timeSignatures) {
-        this.timeSignatures = timeSignatures;
+        this.timeSignatures = sorted(timeSignatures);
     }
 
     /**
@@ -221,16 +294,19 @@ public class VectorMusicHeader {
      * @param timeSignature The time signature to add to this piece.
      */
     public void addTimeSignature(TimeSignature timeSignature) {
-        this.timeSignatures.add(timeSignature);
+        insert(this.timeSignatures, timeSignature);
     }
 
     /**
      * Gets the key signatures in this piece.
+     * <p/>
+     * The view cannot be modified; use {@link #addKeySignature(KeySignatureInstance)}
+     * or {@link #setKeySignatures(List)} instead.
      *
-     * @return The key signatures in this piece.
+     * @return A read-only view of the key signatures in this piece, sorted by measure.
      */
     public List<KeySignatureInstance> getKeySignatures() {
-        return keySignatures;
+        return this.keySignatures == null ? null : Collections.unmodifiableList(this.keySignatures);
     }
 
     /**
@@ -239,7 +315,7 @@ public class VectorMusicHeader {
      * @param keySignatures The key signatures in this piece.
      */
     public void setKeySignatures(List<KeySignatureInstance> keySignatures) {
-        this.keySignatures = keySignatures;
+        this.keySignatures = sorted(keySignatures);
     }
 
 
@@ -249,16 +325,19 @@ public class VectorMusicHeader {
      * @param keySignatureInstance The key signature to add to this piece.
      */
     public void addKeySignature(KeySignatureInstance keySignatureInstance) {
-        this.keySignatures.add(keySignatureInstance);
+        insert(this.keySignatures, keySignatureInstance);
     }
 
     /**
      * Gets the metronome markings in this piece.
+     * <p/>
+     * The view cannot be modified; use {@link #addMetronomeMarking(MetronomeMarking)}
+     * or {@link #setMetronomeMarkings(List)} instead.
      *
-     * @return The metronome markings in this piece.
+     * @return A read-only view of the metronome markings in this piece, sorted by measure.
      */
     public List<MetronomeMarking> getMetronomeMarkings() {
-        return metronomeMarkings;
+        return this.metronomeMarkings == null ? null : Collections.unmodifiableList(this.metronomeMarkings);
     }
 
     /**
@@ -267,7 +346,7 @@ public class VectorMusicHeader {
      * @param metronomeMarkings The metronome markings in this piece.
      */
     public void setMetronomeMarkings(List<MetronomeMarking> metronomeMarkings) {
-        this.metronomeMarkings = metronomeMarkings;
+        this.metronomeMarkings = sorted(metronomeMarkings);
     }
 
     /**
@@ -276,7 +355,140 @@ public class VectorMusicHeader {
      * @param tempo The metronome marking to add.
      */
     public void addMetronomeMarking(MetronomeMarking tempo) {
-        this.metronomeMarkings.add(tempo);
+        insert(this.metronomeMarkings, tempo);
+    }
+
+    /**
+     * Computes a 64 bit fingerprint of the fields compared by {@link #equals(Object)}, so equal headers always
+     * have the same fingerprint. The name and ID are not included.
+     *
+     * @return The fingerprint of this header.
+     */
+    public long getFingerprint() {
+        long state = Fingerprint.SEED;
+
+        state = Fingerprint.fold(state, this.tickValue == null ? 0
+                : (long) this.tickValue.getNumerator() << 32 | (this.tickValue.getDenominator() & 0xFFFFFFFFL));
+        state = Fingerprint.fold(state, (long) this.numberOfParts << 32 | (this.numberOfVoices & 0xFFFFFFFFL));
+        state = Fingerprint.fold(state, this.timeSignatures);
+        state = Fingerprint.fold(state, this.keySignatures);
+        state = Fingerprint.fold(state, this.metronomeMarkings);
+
+        return Fingerprint.finish(state);
+    }
+
+    /**
+     * Gets the time signature in effect at a measure.
+     * <p/>
+     * As in {@link MeasureIndex}, the first time signature also governs any measures before its own.
+     *
+     * @param measure The measure.
+     * @return The last time signature placed at or before the measure, else the first, or null if there are none.
+     */
+    public TimeSignature timeSignatureAt(int measure) {
+        return at(this.timeSignatures, measure);
+    }
+
+    /**
+     * Gets the key signature in effect at a measure.
+     * <p/>
+     * The first key signature also governs any measures before its own.
+     *
+     * @param measure The measure.
+     * @return The last key signature placed at or before the measure, else the first, or null if there are none.
+     */
+    public KeySignatureInstance keySignatureAt(int measure) {
+        return at(this.keySignatures, measure);
+    }
+
+    /**
+     * Gets the metronome marking in effect at a measure.
+     * <p/>
+     * As in {@link TempoMap}, the first marking also governs any measures before its own. Where this returns null,
+     * a tempo map plays the piece at {@link TempoMap#DEFAULT_TEMPO}.
+     *
+     * @param measure The measure.
+     * @return The last marking placed at or before the measure, else the first, or null if there are none.
+     */
+    public MetronomeMarking tempoAt(int measure) {
+        return at(this.metronomeMarkings, measure);
+    }
+
+    /**
+     * Copies events into a list sorted by measure.
+     *
+     * @param events The events, in any order.
+     * @param <T>    The type of event.
+     * @return The sorted copy, or null if there are no events.
+     */
+    private static <T extends MeasureEvent> List<T> sorted(List<T> events) {
+        if (events == null) {
+            return null;
+        }
+
+        List<T> copy = new ArrayList<T>(events);
+        Collections.sort(copy, BY_MEASURE);
+
+        return copy;
+    }
+
+    /**
+     * Inserts an event after every event placed at or before its measure.
+     * <p/>
+     * Events added in order of measure, as the parsers add them, are appended without searching.
+     *
+     * @param events The sorted events.
+     * @param event  The event to insert.
+     * @param <T>    The type of event.
+     */
+    private static <T extends MeasureEvent> void insert(List<T> events, T event) {
+        int size = events.size();
+
+        if (size == 0 || events.get(size - 1).getMeasure() <= event.getMeasure()) {
+            events.add(event);
+        } else {
+            events.add(upperBound(events, event.getMeasure()), event);
+        }
+    }
+
+    /**
+     * Finds the event in effect at a measure, which is the last placed at or before it or else the first.
+     *
+     * @param events  The sorted events.
+     * @param measure The measure.
+     * @param <T>     The type of event.
+     * @return The event, or null if there are no events.
+     */
+    private static <T extends MeasureEvent> T at(List<T> events, int measure) {
+        if (events == null || events.isEmpty()) {
+            return null;
+        }
+
+        return events.get(Math.max(0, upperBound(events, measure) - 1));
+    }
+
+    /**
+     * Finds the index of the first event placed after a measure.
+     *
+     * @param events  The sorted events.
+     * @param measure The measure.
+     * @return The index of the first event placed after the measure, or the size of the list if there is none.
+     */
+    private static int upperBound(List<? extends MeasureEvent> events, int measure) {
+        int low = 0;
+        int high = events.size();
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (events.get(mid).getMeasure() <= measure) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
     }
 
     @Override
@@ -0,0 +1,78 @@
+package com.drkharma.vmf.corpus;
+
+import com.drkharma.vmf.VectorMusic;
+
+import java.nio.file.Path;
+
+/**
+ * The outcome of parsing a single file of a corpus.
+ */
+public class CorpusEntry {
+
+    /**
+     * The file which was parsed.
+     */
+    private final Path path;
+
+    /**
+     * The music parsed from the file, or null if parsing failed.
+     */
+    private final VectorMusic music;
+
+    /**
+     * The reason parsing failed, or null if it succeeded.
+     */
+    private final Throwable error;
+
+    /**
+     * Constructor
+     *
+     * @param path  The file which was parsed.
+     * @param music The music parsed from the file, or null if parsing failed.
+     * @param error The reason parsing failed, or null if it succeeded.
+     */
+    public CorpusEntry(Path path, VectorMusic music, Throwable error) {
+        this.path = path;
+        this.music = music;
+        this.error = error;
+    }
+
+    /**
+     * Gets the file which was parsed.
+     *
+     * @return The file which was parsed.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the music parsed from the file.
+     *
+     * @return The music parsed from the file, or null if parsing failed.
+     */
+    public VectorMusic getMusic() {
+        return music;
+    }
+
+    /**
+     * Gets the reason parsing failed.
+     * <p/>
+     * This is typically an {@link java.io.IOException} or a
+     * {@link com.drkharma.vmf.parser.exception.TimeSignatureMissingException}.
+     *
+     * @return The reason parsing failed, or null if it succeeded.
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * Checks whether the file was parsed successfully.
+     *
+     * @return True if the file was parsed successfully.
+     */
+    public boolean isSuccessful() {
+        return error == null;
+    }
+}
@@ -0,0 +1,279 @@
+package com.drkharma.vmf.corpus;
+
+import com.drkharma.vmf.VectorMusic;
+import com.drkharma.vmf.parser.VMFParser;
+import com.drkharma.vmf.parser.VMFStreamParser;
+import com.drkharma.vmf.parser.exception.BodyBeforeHeaderException;
+import com.drkharma.vmf.parser.exception.TimeSignatureMissingException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A parser for mapping many VMF files onto the object model concurrently.
+ * <p/>
+ * Files are parsed with a {@link VMFStreamParser} on an executor. At most {@code maxInFlight} files are being
+ * parsed or waiting to be delivered at any time, which bounds the memory held by results not yet consumed.
+ * A file which cannot be parsed does not interrupt the corpus; its error is delivered in place of its music.
+ */
+public class VMFCorpusParser implements Closeable {
+
+    /**
+     * The extension of VMF files.
+     */
+    private static final String VMF_EXTENSION = ".vmf";
+
+    /**
+     * The executor on which files are parsed.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Whether the executor was created by, and must be shut down by, this parser.
+     */
+    private final boolean ownsExecutor;
+
+    /**
+     * The maximum number of files parsed or awaiting delivery at once.
+     */
+    private final int maxInFlight;
+
+    /**
+     * Receives the outcome of each file of a corpus.
+     * <p/>
+     * Methods are called from the threads of the executor and may be called concurrently.
+     */
+    public interface Callback {
+
+        /**
+         * Called when a file has been parsed.
+         *
+         * @param path  The file which was parsed.
+         * @param music The music parsed from the file.
+         */
+        void onParsed(Path path, VectorMusic music);
+
+        /**
+         * Called when a file could not be parsed.
+         *
+         * @param path  The file which could not be parsed.
+         * @param error The reason parsing failed.
+         */
+        void onError(Path path, Throwable error);
+    }
+
+    /**
+     * Creates a parser using a work-stealing pool with one thread per processor.
+     */
+    public VMFCorpusParser() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a parser using a work-stealing pool.
+     *
+     * @param parallelism The number of threads in the pool.
+     */
+    public VMFCorpusParser(int parallelism) {
+        this(new ForkJoinPool(parallelism), 2 * parallelism, true);
+    }
+
+    /**
+     * Creates a parser using the provided executor, which is not shut down by {@link #close()}.
+     *
+     * @param executor    The executor on which files are parsed.
+     * @param maxInFlight The maximum number of files parsed or awaiting delivery at once.
+     */
+    public VMFCorpusParser(ExecutorService executor, int maxInFlight) {
+        this(executor, maxInFlight, false);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param executor     The executor on which files are parsed.
+     * @param maxInFlight  The maximum number of files parsed or awaiting delivery at once.
+     * @param ownsExecutor Whether the executor must be shut down by this parser.
+     */
+    private VMFCorpusParser(ExecutorService executor, int maxInFlight, boolean ownsExecutor) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("At least one file must be allowed in flight.");
+        }
+
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Lists the VMF files within a directory and its subdirectories.
+     *
+     * @param directory The directory to search.
+     * @return The paths of the VMF files found, sorted.
+     * @throws IOException If the directory cannot be read.
+     */
+    public static List<Path> listFiles(Path directory) throws IOException {
+        final List<Path> files = new ArrayList<Path>();
+
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && file.getFileName().toString().endsWith(VMF_EXTENSION)) {
+                    files.add(file);
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        Collections.sort(files);
+
+        return files;
+    }
+
+    /**
+     * Parses every file, delivering each outcome to a callback as soon as it is available.
+     * <p/>
+     * This method returns once every file has been delivered.
+     *
+     * @param files    The files to parse.
+     * @param callback Receives the outcome of each file.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    public void parse(Iterable<Path> files, final Callback callback) throws InterruptedException {
+        final Semaphore permits = new Semaphore(this.maxInFlight);
+
+        for (final Path file : files) {
+            permits.acquire();
+
+            try {
+                this.executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            CorpusEntry entry = parseFile(file);
+
+                            if (entry.isSuccessful()) {
+                                callback.onParsed(file, entry.getMusic());
+                            } else {
+                                callback.onError(file, entry.getError());
+                            }
+                        } finally {
+                            permits.release();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        // Wait for the files still in flight.
+        permits.acquire(this.maxInFlight);
+        permits.release(this.maxInFlight);
+    }
+
+    /**
+     * Parses the files lazily, delivering their outcomes in the order of the files.
+     * <p/>
+     * Files ahead of the one being consumed are parsed concurrently, up to the in flight limit.
+     *
+     * @param files The files to parse.
+     * @return An iterator over the outcome of each file.
+     */
+    public Iterator<CorpusEntry> iterator(Iterable<Path> files) {
+        final Iterator<Path> paths = files.iterator();
+        final Deque<Future<CorpusEntry>> pending = new ArrayDeque<Future<CorpusEntry>>();
+
+        return new Iterator<CorpusEntry>() {
+            @Override
+            public boolean hasNext() {
+                this.fill();
+
+                return !pending.isEmpty();
+            }
+
+            @Override
+            public CorpusEntry next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                Future<CorpusEntry> head = pending.poll();
+                this.fill();
+
+                try {
+                    return head.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for a file to be parsed.", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            /**
+             * Submits files until the in flight limit is reached.
+             */
+            private void fill() {
+                while (pending.size() < maxInFlight && paths.hasNext()) {
+                    final Path file = paths.next();
+
+                    pending.add(executor.submit(new Callable<CorpusEntry>() {
+                        @Override
+                        public CorpusEntry call() {
+                            return parseFile(file);
+                        }
+                    }));
+                }
+            }
+        };
+    }
+
+    /**
+     * Shuts down the executor if it was created by this parser.
+     */
+    @Override
+    public void close() {
+        if (this.ownsExecutor) {
+            this.executor.shutdown();
+        }
+    }
+
+    /**
+     * Parses a single file, capturing any failure.
+     * <p/>
+     * Files are parsed as a stream, falling back to {@link VMFParser} for a file whose body precedes its header.
+     *
+     * @param file The file to parse.
+     * @return The outcome of parsing the file.
+     */
+    private static CorpusEntry parseFile(Path file) {
+        try {
+            VectorMusic music;
+
+            try {
+                music = new VMFStreamParser(file.toFile()).parse();
+            } catch (BodyBeforeHeaderException e) {
+                music = new VMFParser(file.toFile()).parse();
+            }
+
+            return new CorpusEntry(file, music, null);
+        } catch (IOException | TimeSignatureMissingException | RuntimeException e) {
+            return new CorpusEntry(file, null, e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.drkharma.vmf.corpus;
+
+import com.drkharma.vmf.VectorMusic;
+
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Finds the pieces of a corpus which duplicate an earlier piece.
+ * <p/>
+ * Pieces are grouped by {@link VectorMusic#getFingerprint()}, so each new piece is only compared with the pieces
+ * sharing its fingerprint. When verifying, the music of the first piece of each group is kept and compared in full
+ * with {@link VectorMusic#equals(Object)}. Otherwise only fingerprints are kept, which uses far less memory and
+ * treats the rare colliding pieces as duplicates.
+ * <p/>
+ * Pieces may be added concurrently, such as from a {@link VMFCorpusParser.Callback}.
+ */
+public class VMFDeduplicator {
+
+    /**
+     * Whether pieces sharing a fingerprint are compared in full.
+     */
+    private final boolean verify;
+
+    /**
+     * The first pieces seen with each fingerprint.
+     */
+    private final Map<Long, List<Original>> originals;
+
+    /**
+     * The duplicates of each original piece, in the order they were added.
+     */
+    private final Map<Path, List<Path>> duplicates;
+
+    /**
+     * The number of unique pieces added.
+     */
+    private int uniqueCount;
+
+    /**
+     * Creates a deduplicator which compares pieces sharing a fingerprint in full.
+     */
+    public VMFDeduplicator() {
+        this(true);
+    }
+
+    /**
+     * Creates a deduplicator.
+     *
+     * @param verify True to compare pieces sharing a fingerprint in full, false to trust the fingerprint alone.
+     */
+    public VMFDeduplicator(boolean verify) {
+        this.verify = verify;
+        this.originals = new HashMap<Long, List<Original>>();
+        this.duplicates = new LinkedHashMap<Path, List<Path>>();
+    }
+
+    /**
+     * Adds a piece.
+     *
+     * @param path  The file of the piece.
+     * @param music The music of the piece.
+     * @return The file of the earlier piece this duplicates, or null if the piece is unique so far.
+     */
+    public synchronized Path add(Path path, VectorMusic music) {
+        Long fingerprint = music.getFingerprint();
+        List<Original> candidates = this.originals.get(fingerprint);
+
+        if (candidates == null) {
+            candidates = new ArrayList<Original>(1);
+            this.originals.put(fingerprint, candidates);
+        }
+
+        for (Original candidate : candidates) {
+            if (candidate.music == null || candidate.music.equals(music)) {
+                List<Path> paths = this.duplicates.get(candidate.path);
+
+                if (paths == null) {
+                    paths = new ArrayList<Path>();
+                    this.duplicates.put(candidate.path, paths);
+                }
+
+                paths.add(path);
+                return candidate.path;
+            }
+        }
+
+        candidates.add(new Original(path, this.verify ? music : null));
+        this.uniqueCount++;
+
+        return null;
+    }
+
+    /**
+     * Gets the number of unique pieces added.
+     *
+     * @return The number of unique pieces.
+     */
+    public synchronized int getUniqueCount() {
+        return this.uniqueCount;
+    }
+
+    /**
+     * Gets the duplicates found so far.
+     *
+     * @return A copy of the duplicates of each original piece which has any, in the order they were added.
+     */
+    public synchronized Map<Path, List<Path>> getDuplicates() {
+        Map<Path, List<Path>> copy = new LinkedHashMap<Path, List<Path>>();
+
+        for (Map.Entry<Path, List<Path>> entry : this.duplicates.entrySet()) {
+            copy.put(entry.getKey(), new ArrayList<Path>(entry.getValue()));
+        }
+
+        return copy;
+    }
+
+    /**
+     * The first piece seen with a fingerprint.
+     */
+    private static final class Original {
+
+        /**
+         * The file of the piece.
+         */
+        private final Path path;
+
+        /**
+         * The music of the piece, or null when not verifying.
+         */
+        private final VectorMusic music;
+
+        /**
+         * Constructor
+         *
+         * @param path  The file of the piece.
+         * @param music The music of the piece, or null when not verifying.
+         */
+        Original(Path path, VectorMusic music) {
+            this.path = path;
+            this.music = music;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.drkharma.vmf.corpus;
+
+import com.drkharma.vmf.VectorMusic;
+import com.drkharma.vmf.io.VMFSnapshotReader;
+import com.drkharma.vmf.io.VMFSnapshotWriter;
+import com.drkharma.vmf.parser.VMFParser;
+import com.drkharma.vmf.parser.VMFStreamParser;
+import com.drkharma.vmf.parser.exception.BodyBeforeHeaderException;
+import com.drkharma.vmf.parser.exception.TimeSignatureMissingException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of parsed VMF files keyed by a hash of their content.
+ * <p/>
+ * Files with identical bytes share one entry whatever their path or modification time, so popular pieces are
+ * only parsed once. Entries are evicted in least recently used order once either the number of entries or their
+ * estimated weight in bytes exceeds its limit. An optional directory of binary snapshots acts as a second tier
+ * which survives restarts and is consulted before parsing. The disk tier is best effort: a snapshot which cannot be
+ * read or written is skipped rather than failing the lookup.
+ * <p/>
+ * The same {@link VectorMusic} instance is returned to every caller and must therefore not be modified. Its name
+ * is the name under which the content was first parsed. This class is thread-safe; concurrent misses on the same
+ * content may parse it more than once.
+ */
+public class VMFParseCache {
+
+    /**
+     * The estimated weight of a piece excluding its notes, in bytes.
+     */
+    static final long BASE_WEIGHT = 512;
+
+    /**
+     * The estimated weight of a single note, in bytes.
+     */
+    static final long NOTE_WEIGHT = 16;
+
+    /**
+     * The extension of snapshot files in the disk tier.
+     */
+    private static final String SNAPSHOT_EXTENSION = ".vmfs";
+
+    /**
+     * The cached pieces, in least recently used order.
+     */
+    private final LinkedHashMap<String, VectorMusic> entries;
+
+    /**
+     * The maximum number of cached pieces.
+     */
+    private final int maxEntries;
+
+    /**
+     * The maximum total estimated weight of the cached pieces, in bytes.
+     */
+    private final long maxWeight;
+
+    /**
+     * The directory holding the disk tier, or null if there is none.
+     */
+    private final Path directory;
+
+    /**
+     * The total estimated weight of the cached pieces, in bytes.
+     */
+    private long weight;
+
+    /**
+     * The number of lookups served from memory.
+     */
+    private long hitCount;
+
+    /**
+     * The number of lookups served from the disk tier.
+     */
+    private long diskHitCount;
+
+    /**
+     * The number of lookups which required parsing.
+     */
+    private long missCount;
+
+    /**
+     * The number of pieces evicted from memory.
+     */
+    private long evictionCount;
+
+    /**
+     * Creates a cache held in memory only.
+     *
+     * @param maxEntries The maximum number of cached pieces.
+     * @param maxWeight  The maximum total estimated weight of the cached pieces, in bytes.
+     */
+    public VMFParseCache(int maxEntries, long maxWeight) {
+        this(maxEntries, maxWeight, null);
+    }
+
+    /**
+     * Creates a cache backed by a directory of snapshots.
+     *
+     * @param maxEntries The maximum number of pieces cached in memory.
+     * @param maxWeight  The maximum total estimated weight of the pieces cached in memory, in bytes.
+     * @param directory  The directory holding the disk tier, or null for none. It is created if required.
+     */
+    public VMFParseCache(int maxEntries, long maxWeight, Path directory) {
+        if (maxEntries < 1 || maxWeight < 1) {
+            throw new IllegalArgumentException("The cache limits should be positive.");
+        }
+
+        this.entries = new LinkedHashMap<String, VectorMusic>(16, 0.75f, true);
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.directory = directory;
+    }
+
+    /**
+     * Estimates the memory retained by a parsed piece.
+     *
+     * @param music The piece.
+     * @return The estimated weight of the piece, in bytes.
+     */
+    public static long weigh(VectorMusic music) {
+        return BASE_WEIGHT + NOTE_WEIGHT * music.getNotes().size();
+    }
+
+    /**
+     * Gets the piece contained in a file, parsing it only if its content is not cached.
+     *
+     * @param file The VMF file.
+     * @return The piece contained in the file.
+     * @throws IOException If the file cannot be read or parsed.
+     * @throws TimeSignatureMissingException When the file contains no time signatures.
+     */
+    public VectorMusic parse(Path file) throws IOException, TimeSignatureMissingException {
+        return this.parse(Files.readAllBytes(file), file.getFileName().toString());
+    }
+
+    /**
+     * Gets the piece contained in VMF content, parsing it only if the content is not cached.
+     * <p/>
+     * Content is parsed as a stream, falling back to {@link VMFParser} when its body precedes its header, so the
+     * cache accepts the same content as {@link VMFParser}.
+     *
+     * @param contents The VMF content encoded as UTF-8.
+     * @param name     The name given to the piece if it has to be parsed.
+     * @return The piece contained in the content.
+     * @throws IOException If the content cannot be parsed.
+     * @throws TimeSignatureMissingException When the content contains no time signatures.
+     */
+    public VectorMusic parse(byte[] contents, String name) throws IOException, TimeSignatureMissingException {
+        String key = hash(contents);
+        VectorMusic music;
+
+        synchronized (this) {
+            music = this.entries.get(key);
+
+            if (music != null) {
+                this.hitCount++;
+                return music;
+            }
+        }
+
+        music = this.readSnapshot(key);
+
+        if (music != null) {
+            synchronized (this) {
+                this.diskHitCount++;
+            }
+        } else {
+            try {
+                music = new VMFStreamParser(contents, name).parse();
+            } catch (BodyBeforeHeaderException e) {
+                music = new VMFParser(contents, name).parse();
+            }
+
+            synchronized (this) {
+                this.missCount++;
+            }
+
+            this.writeSnapshot(key, music);
+        }
+
+        this.put(key, music);
+
+        return music;
+    }
+
+    /**
+     * Removes every piece cached in memory. The disk tier is left untouched.
+     */
+    public synchronized void invalidateAll() {
+        this.entries.clear();
+        this.weight = 0;
+    }
+
+    /**
+     * Gets the number of pieces cached in memory.
+     *
+     * @return The number of pieces cached in memory.
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Gets the total estimated weight of the pieces cached in memory.
+     *
+     * @return The total estimated weight, in bytes.
+     */
+    public synchronized long getWeight() {
+        return this.weight;
+    }
+
+    /**
+     * Gets the number of lookups served from memory.
+     *
+     * @return The number of lookups served from memory.
+     */
+    public synchronized long getHitCount() {
+        return this.hitCount;
+    }
+
+    /**
+     * Gets the number of lookups served from the disk tier.
+     *
+     * @return The number of lookups served from the disk tier.
+     */
+    public synchronized long getDiskHitCount() {
+        return this.diskHitCount;
+    }
+
+    /**
+     * Gets the number of lookups which required parsing.
+     *
+     * @return The number of lookups which required parsing.
+     */
+    public synchronized long getMissCount() {
+        return this.missCount;
+    }
+
+    /**
+     * Gets the number of pieces evicted from memory.
+     *
+     * @return The number of pieces evicted from memory.
+     */
+    public synchronized long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    /**
+     * Adds a piece to memory, evicting the least recently used pieces beyond the limits.
+     *
+     * @param key   The content hash of the piece.
+     * @param music The piece.
+     */
+    private synchronized void put(String key, VectorMusic music) {
+        VectorMusic previous = this.entries.put(key, music);
+
+        if (previous != null) {
+            this.weight -= weigh(previous);
+        }
+
+        this.weight += weigh(music);
+
+        Iterator<Map.Entry<String, VectorMusic>> it = this.entries.entrySet().iterator();
+
+        // Always keep the piece just added, even if it alone exceeds the weight limit.
+        while (this.entries.size() > 1 && (this.entries.size() > this.maxEntries || this.weight > this.maxWeight)) {
+            this.weight -= weigh(it.next().getValue());
+            it.remove();
+            this.evictionCount++;
+        }
+    }
+
+    /**
+     * Loads a piece from the disk tier.
+     * <p/>
+     * A snapshot which cannot be read, because it is truncated, corrupt or of another version, is deleted and
+     * treated as missing, so that the content is parsed again and its snapshot rewritten.
+     *
+     * @param key The content hash of the piece.
+     * @return The piece, or null if the disk tier does not hold a readable snapshot of it.
+     */
+    private VectorMusic readSnapshot(String key) {
+        if (this.directory == null) {
+            return null;
+        }
+
+        Path snapshot = this.directory.resolve(key + SNAPSHOT_EXTENSION);
+
+        if (!Files.exists(snapshot)) {
+            return null;
+        }
+
+        try (InputStream in = Files.newInputStream(snapshot)) {
+            return new VMFSnapshotReader(in).read();
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(snapshot);
+            } catch (IOException ignored) {
+                // The snapshot is replaced when the content has been parsed again.
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * Saves a piece to the disk tier.
+     * <p/>
+     * The disk tier is only a cache, so a snapshot which cannot be written is skipped and the piece is parsed again
+     * the next time it is missed in memory.
+     *
+     * @param key   The content hash of the piece.
+     * @param music The piece.
+     */
+    private void writeSnapshot(String key, VectorMusic music) {
+        if (this.directory == null) {
+            return;
+        }
+
+        Path temporary = null;
+
+        try {
+            Files.createDirectories(this.directory);
+            temporary = Files.createTempFile(this.directory, key, ".tmp");
+
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                new VMFSnapshotWriter(out).write(music);
+            }
+
+            Files.move(temporary, this.directory.resolve(key + SNAPSHOT_EXTENSION),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The snapshot is skipped; the piece is still cached in memory.
+        } finally {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                    // A temporary file left behind is never read as a snapshot.
+                }
+            }
+        }
+    }
+
+    /**
+     * Hashes content with SHA-256.
+     *
+     * @param contents The content.
+     * @return The hash as lowercase hexadecimal.
+     */
+    private static String hash(byte[] contents) {
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+
+        byte[] bytes = digest.digest(contents);
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return sb.toString();
+    }
+}
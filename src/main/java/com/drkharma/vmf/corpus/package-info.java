@@ -0,0 +1,4 @@
+/**
+ * Utilities for working with collections of VMF files.
+ */
+package com.drkharma.vmf.corpus;
@@ -0,0 +1,280 @@
+package com.drkharma.vmf.index;
+
+import com.drkharma.vmf.Note;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable segment file of a melodic index, read through a memory mapping.
+ * <p/>
+ * A segment begins with a header of {@value #HEADER_SIZE} bytes: the magic bytes {@code VMFI}, the version, the
+ * n-gram length, the rhythm flag, a reserved byte, the number of pieces, the number of terms and the offset of the
+ * dictionary. The posting lists of every term follow, in the format of {@link Postings}, each followed by its skips,
+ * and then the dictionary, which holds for each term in increasing order the term, the offset of its posting list,
+ * the ID of the last piece in it and the number of skips. The dictionary entries have a fixed size, so a term is
+ * found by binary search in the mapping without reading the dictionary onto the heap.
+ * <p/>
+ * A segment must be smaller than 2GB, the largest region which can be mapped at once.
+ */
+final class IndexSegment {
+
+    /**
+     * The bytes which begin every segment.
+     */
+    static final byte[] MAGIC = {'V', 'M', 'F', 'I'};
+
+    /**
+     * The version of the segment format.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * The size of the header in bytes.
+     */
+    static final int HEADER_SIZE = 24;
+
+    /**
+     * The size of a dictionary entry in bytes.
+     */
+    static final int ENTRY_SIZE = 24;
+
+    /**
+     * The file of the segment.
+     */
+    private final Path file;
+
+    /**
+     * The mapping of the file.
+     */
+    private final ByteBuffer mapping;
+
+    /**
+     * The number of notes in each n-gram.
+     */
+    private final int n;
+
+    /**
+     * Whether terms include duration ratios.
+     */
+    private final boolean rhythm;
+
+    /**
+     * The number of pieces in the segment.
+     */
+    private final int documentCount;
+
+    /**
+     * The number of terms in the segment.
+     */
+    private final int termCount;
+
+    /**
+     * The offset of the dictionary.
+     */
+    private final int dictionaryOffset;
+
+    /**
+     * Opens a segment file.
+     *
+     * @param file The segment file.
+     * @throws IOException If the file cannot be mapped or is not a segment.
+     */
+    IndexSegment(Path file) throws IOException {
+        MappedByteBuffer mapping;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The segment " + file + " is too large to map.");
+            }
+
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        byte[] magic = new byte[MAGIC.length];
+
+        if (mapping.limit() < HEADER_SIZE) {
+            throw new IOException("The file " + file + " is not an index segment.");
+        }
+
+        mapping.get(magic);
+        if (!Arrays.equals(MAGIC, magic)) {
+            throw new IOException("The file " + file + " is not an index segment.");
+        }
+
+        int version = mapping.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported index segment version " + version + ".");
+        }
+
+        this.file = file;
+        this.mapping = mapping;
+        this.n = mapping.get();
+        this.rhythm = mapping.get() != 0;
+        mapping.get();
+        this.documentCount = mapping.getInt();
+        this.termCount = mapping.getInt();
+
+        long dictionaryOffset = mapping.getLong();
+        long dictionaryEnd = dictionaryOffset + (long) this.termCount * ENTRY_SIZE;
+
+        if (dictionaryOffset < HEADER_SIZE || dictionaryEnd != mapping.limit()) {
+            throw new IOException("The index segment " + file + " is truncated.");
+        }
+
+        this.dictionaryOffset = (int) dictionaryOffset;
+    }
+
+    /**
+     * Gets the file of the segment.
+     *
+     * @return The file of the segment.
+     */
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the size of the segment file.
+     *
+     * @return The size in bytes.
+     */
+    int getSize() {
+        return this.mapping.limit();
+    }
+
+    /**
+     * Gets the number of notes in each n-gram.
+     *
+     * @return The number of notes in each n-gram.
+     */
+    int getN() {
+        return n;
+    }
+
+    /**
+     * Gets whether terms include duration ratios.
+     *
+     * @return True if terms include duration ratios.
+     */
+    boolean isRhythm() {
+        return rhythm;
+    }
+
+    /**
+     * Gets the number of pieces in the segment.
+     *
+     * @return The number of pieces.
+     */
+    int getDocumentCount() {
+        return documentCount;
+    }
+
+    /**
+     * Gets the number of terms in the segment.
+     *
+     * @return The number of terms.
+     */
+    int getTermCount() {
+        return termCount;
+    }
+
+    /**
+     * Gets the term of a dictionary entry.
+     *
+     * @param index The index of the entry.
+     * @return The term.
+     */
+    long term(int index) {
+        return this.mapping.getLong(this.dictionaryOffset + index * ENTRY_SIZE);
+    }
+
+    /**
+     * Gets the ID of the last piece in the posting list of a dictionary entry.
+     *
+     * @param index The index of the entry.
+     * @return The ID of the last piece.
+     */
+    int lastDocument(int index) {
+        return this.mapping.getInt(this.dictionaryOffset + index * ENTRY_SIZE + 16);
+    }
+
+    /**
+     * Gets the encoded posting list of a dictionary entry.
+     *
+     * @param index The index of the entry.
+     * @return A view of the posting list and its skips in the mapping.
+     */
+    Postings.Encoded postings(int index) {
+        int entry = this.dictionaryOffset + index * ENTRY_SIZE;
+        int start = (int) this.mapping.getLong(entry + 8);
+        int end = index + 1 < this.termCount
+                ? (int) this.mapping.getLong(entry + ENTRY_SIZE + 8) : this.dictionaryOffset;
+        int skips = end - this.mapping.getInt(entry + 20) * Postings.SKIP_SIZE;
+
+        return new Postings.Encoded(this.view(start, skips), this.view(skips, end));
+    }
+
+    /**
+     * Gets a view of part of the mapping.
+     *
+     * @param start The offset of the first byte.
+     * @param end   The offset after the last byte.
+     * @return The bytes, from index zero to the limit.
+     */
+    private ByteBuffer view(int start, int end) {
+        ByteBuffer view = this.mapping.duplicate();
+        view.limit(end).position(start);
+
+        return view.slice();
+    }
+
+    /**
+     * Finds the dictionary entry of a term.
+     *
+     * @param term The term.
+     * @return The index of the entry, or -1 if the term does not occur.
+     */
+    int find(long term) {
+        int low = 0;
+        int high = this.termCount - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = this.term(mid);
+
+            if (value < term) {
+                low = mid + 1;
+            } else if (value > term) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Finds every occurrence of a melodic fragment in the segment.
+     *
+     * @param fragment The notes of the fragment.
+     * @return The postings at which the fragment begins, with IDs local to the segment.
+     */
+    long[] find(List<Note> fragment) {
+        return Postings.find(fragment, this.n, this.rhythm, new Postings.Lookup() {
+            @Override
+            public Postings.Encoded get(long term) {
+                int index = IndexSegment.this.find(term);
+
+                return index < 0 ? null : IndexSegment.this.postings(index);
+            }
+        });
+    }
+}
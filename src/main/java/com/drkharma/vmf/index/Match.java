@@ -0,0 +1,79 @@
+package com.drkharma.vmf.index;
+
+/**
+ * An occurrence of a melodic fragment in an indexed piece.
+ */
+public class Match implements Comparable<Match> {
+
+    /**
+     * The ID of the piece, as assigned when it was indexed.
+     */
+    private final int document;
+
+    /**
+     * The index of the note of the piece at which the fragment begins.
+     */
+    private final int position;
+
+    /**
+     * Constructor
+     *
+     * @param document The ID of the piece.
+     * @param position The index of the note at which the fragment begins.
+     */
+    public Match(int document, int position) {
+        this.document = document;
+        this.position = position;
+    }
+
+    /**
+     * Gets the ID of the piece, as assigned when it was indexed.
+     *
+     * @return The ID of the piece.
+     */
+    public int getDocument() {
+        return document;
+    }
+
+    /**
+     * Gets the index of the note of the piece at which the fragment begins.
+     *
+     * @return The index of the first note of the occurrence.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public int compareTo(Match o) {
+        if (document != o.document) {
+            return document < o.document ? -1 : 1;
+        }
+
+        return position < o.position ? -1 : (position == o.position ? 0 : 1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        Match match = (Match) o;
+
+        if (document != match.document) return false;
+        return position == match.position;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = document;
+        result = 31 * result + position;
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return document + "@" + position;
+    }
+}
@@ -0,0 +1,297 @@
+package com.drkharma.vmf.index;
+
+import com.drkharma.vmf.Note;
+import com.drkharma.vmf.VectorMusic;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * An inverted index of the melodic n-grams of a collection of pieces.
+ * <p/>
+ * Each piece is given an ID in the order it is added. For every n-gram term, the index keeps a compressed posting
+ * list of the pieces and note positions at which it occurs. A fragment of at least n notes is found by looking up
+ * the posting list of each of its n-grams and intersecting them, so the cost depends on how often its n-grams occur
+ * rather than on the size of the collection.
+ * <p/>
+ * Terms are formed from intervals, so a fragment is found in any transposition. With rhythm, the ratios of
+ * consecutive durations must also match, so a fragment is found at any tempo or note value but not in a different
+ * rhythm.
+ * <p/>
+ * Intervals and duration ratios are clamped to fit a term, and the postings are all the index keeps, so matches
+ * cannot be checked against the notes. A match is therefore exact only within those limits: where the fragment or
+ * the piece has an interval of 127 semitones or more, or a reduced duration ratio with a term of 15 or more, a
+ * piece whose steps agree with the fragment only once clamped is reported as a match too.
+ * <p/>
+ * An index is not safe for concurrent use.
+ */
+public class MelodicIndex {
+
+    /**
+     * The number of notes in each n-gram.
+     */
+    private final int n;
+
+    /**
+     * Whether terms include duration ratios.
+     */
+    private final boolean rhythm;
+
+    /**
+     * The posting list of each term.
+     */
+    private final Map<Long, PostingList> postings;
+
+    /**
+     * The number of pieces added.
+     */
+    private int documentCount;
+
+    /**
+     * Creates an index of n-grams of pitch intervals only.
+     *
+     * @param n The number of notes in each n-gram, from 2 to 9.
+     */
+    public MelodicIndex(int n) {
+        this(n, false);
+    }
+
+    /**
+     * Creates an index.
+     *
+     * @param n      The number of notes in each n-gram, from 2 to 9, or to 5 with rhythm.
+     * @param rhythm Whether terms include the ratios of consecutive durations.
+     */
+    public MelodicIndex(int n, boolean rhythm) {
+        this.n = NGrams.checkN(n, rhythm);
+        this.rhythm = rhythm;
+        this.postings = new HashMap<Long, PostingList>();
+    }
+
+    /**
+     * Gets the number of notes in each n-gram.
+     *
+     * @return The number of notes in each n-gram.
+     */
+    public int getN() {
+        return n;
+    }
+
+    /**
+     * Gets whether terms include the ratios of consecutive durations.
+     *
+     * @return True if terms include duration ratios.
+     */
+    public boolean isRhythm() {
+        return rhythm;
+    }
+
+    /**
+     * Gets the number of pieces added.
+     *
+     * @return The number of pieces.
+     */
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    /**
+     * Gets the number of distinct terms.
+     *
+     * @return The number of terms.
+     */
+    public int getTermCount() {
+        return this.postings.size();
+    }
+
+    /**
+     * Adds a piece to the index.
+     *
+     * @param music The piece, a single voice.
+     * @return The ID of the piece.
+     */
+    public int add(VectorMusic music) {
+        int document = this.documentCount++;
+        long[] terms = NGrams.terms(music.getNotes(), this.n, this.rhythm);
+
+        // The first element of each list holds the number of positions which follow it.
+        Map<Long, int[]> positions = new HashMap<Long, int[]>();
+
+        for (int position = 0; position < terms.length; ++position) {
+            int[] list = positions.get(terms[position]);
+
+            if (list == null) {
+                list = new int[]{0, 0, 0, 0, 0};
+                positions.put(terms[position], list);
+            } else if (list[0] + 1 == list.length) {
+                list = Arrays.copyOf(list, list.length * 2);
+                positions.put(terms[position], list);
+            }
+
+            list[++list[0]] = position;
+        }
+
+        for (Map.Entry<Long, int[]> entry : positions.entrySet()) {
+            PostingList postingList = this.postings.get(entry.getKey());
+
+            if (postingList == null) {
+                postingList = new PostingList();
+                this.postings.put(entry.getKey(), postingList);
+            }
+
+            postingList.add(document, entry.getValue());
+        }
+
+        return document;
+    }
+
+    /**
+     * Finds every occurrence of a melodic fragment.
+     *
+     * @param fragment The notes of the fragment, at least n.
+     * @return The occurrences, in order of piece and position, including those which agree with the fragment only
+     * within the limits of the terms.
+     * @throws IllegalArgumentException If the fragment has fewer than n notes.
+     */
+    public List<Match> search(List<Note> fragment) {
+        return Postings.toMatches(this.find(fragment));
+    }
+
+    /**
+     * Finds the pieces containing a melodic fragment.
+     *
+     * @param fragment The notes of the fragment, at least n.
+     * @return The IDs of the pieces, in increasing order, including those which contain the fragment only within the
+     * limits of the terms.
+     * @throws IllegalArgumentException If the fragment has fewer than n notes.
+     */
+    public int[] searchDocuments(List<Note> fragment) {
+        return Postings.toDocuments(this.find(fragment));
+    }
+
+    /**
+     * Finds every occurrence of a melodic fragment.
+     *
+     * @param fragment The notes of the fragment.
+     * @return The postings at which the fragment begins, in increasing order.
+     */
+    long[] find(List<Note> fragment) {
+        return Postings.find(fragment, this.n, this.rhythm, new Postings.Lookup() {
+            @Override
+            public Postings.Encoded get(long term) {
+                return MelodicIndex.this.encodedPostings(term);
+            }
+        });
+    }
+
+    /**
+     * Gets the terms of the index in increasing order.
+     *
+     * @return The terms.
+     */
+    long[] sortedTerms() {
+        long[] terms = new long[this.postings.size()];
+        int i = 0;
+
+        for (Long term : this.postings.keySet()) {
+            terms[i++] = term;
+        }
+
+        Arrays.sort(terms);
+
+        return terms;
+    }
+
+    /**
+     * Gets a read-only view of the encoded posting list of a term, without copying it. The view is valid until the
+     * next piece is added.
+     *
+     * @param term The term.
+     * @return The encoded posting list, or null if the term does not occur.
+     */
+    Postings.Encoded encodedPostings(long term) {
+        PostingList postingList = this.postings.get(term);
+
+        return postingList == null ? null
+                : new Postings.Encoded(postingList.bytes.view(), postingList.skips.view());
+    }
+
+    /**
+     * Gets the ID of the last piece in the posting list of a term.
+     *
+     * @param term The term, which must occur.
+     * @return The ID of the last piece containing the term.
+     */
+    int lastDocument(long term) {
+        return this.postings.get(term).lastDocument;
+    }
+
+    /**
+     * The posting list of a term being built.
+     */
+    private static final class PostingList {
+
+        /**
+         * The encoded postings.
+         */
+        private final Bytes bytes = new Bytes(16);
+
+        /**
+         * The skips over the postings.
+         */
+        private final Bytes skips = new Bytes(0);
+
+        /**
+         * The ID of the last piece added, or zero if none has been.
+         */
+        private int lastDocument;
+
+        /**
+         * The number of pieces added.
+         */
+        private int documentCount;
+
+        /**
+         * Appends the positions of the term in a piece.
+         *
+         * @param document  The ID of the piece, greater than that of any piece already added.
+         * @param positions The number of positions followed by the positions in increasing order.
+         */
+        void add(int document, int[] positions) {
+            int[] list = Arrays.copyOfRange(positions, 1, positions[0] + 1);
+
+            if (this.documentCount > 0 && this.documentCount % Postings.SKIP_INTERVAL == 0) {
+                Postings.appendSkip(this.skips, this.lastDocument, this.bytes.size());
+            }
+
+            Postings.append(this.bytes, document - this.lastDocument, list, list.length);
+            this.lastDocument = document;
+            this.documentCount++;
+        }
+    }
+
+    /**
+     * A growing array of bytes whose contents can be viewed without copying.
+     */
+    private static final class Bytes extends ByteArrayOutputStream {
+
+        /**
+         * Constructor
+         *
+         * @param size The initial capacity.
+         */
+        Bytes(int size) {
+            super(size);
+        }
+
+        /**
+         * Gets a read-only view of the bytes written so far.
+         *
+         * @return The bytes, from index zero to the limit.
+         */
+        ByteBuffer view() {
+            return ByteBuffer.wrap(this.buf, 0, this.count).slice().asReadOnlyBuffer();
+        }
+    }
+}
@@ -0,0 +1,586 @@
+package com.drkharma.vmf.index;
+
+import com.drkharma.vmf.Note;
+import com.drkharma.vmf.VectorMusic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * A melodic index persisted in a directory as immutable, memory mapped segment files.
+ * <p/>
+ * Pieces are added to an in-memory {@link MelodicIndex}, which {@link #flush()} writes out as a new segment.
+ * Opening a store only maps its segments, so it is ready at once whatever the size of the index, and the postings
+ * are paged in by the operating system rather than held on the heap. {@link #merge()} combines runs of adjacent
+ * segments, streaming the posting lists without decoding them, so that searches consult fewer files. A merged
+ * segment is kept below a maximum size, no larger than the 2GB which can be mapped at once.
+ * <p/>
+ * The IDs of pieces number every piece of the store in the order added, across segments and the pieces not yet
+ * flushed. Segment files are named {@code segment-000001.vmfi} onwards and are written to a temporary file first,
+ * so a failure never leaves a partial segment. The segments of the store, in order, are listed by the manifest file
+ * {@value #MANIFEST}, which is replaced atomically once new segments are in place and before old ones are deleted.
+ * Opening a store trusts only the manifest, and deletes any segment it does not list, which an interrupted flush or
+ * merge may have left behind. A store is not safe for concurrent use, nor for use by more than one process.
+ */
+public class MelodicIndexStore implements Closeable {
+
+    /**
+     * The prefix of segment file names.
+     */
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    /**
+     * The extension of segment files.
+     */
+    private static final String SEGMENT_EXTENSION = ".vmfi";
+
+    /**
+     * The extension of temporary files.
+     */
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    /**
+     * The name of the file listing the segments of the store.
+     */
+    static final String MANIFEST = "segments.manifest";
+
+    /**
+     * The first line of the manifest, which identifies its format.
+     */
+    private static final String MANIFEST_HEADER = "VMFI-SEGMENTS 1";
+
+    /**
+     * The default maximum size of a merged segment, which leaves room below the 2GB mapping limit.
+     */
+    public static final long DEFAULT_MAX_SEGMENT_SIZE = 1L << 30;
+
+    /**
+     * The directory of the store.
+     */
+    private final Path directory;
+
+    /**
+     * The number of notes in each n-gram.
+     */
+    private final int n;
+
+    /**
+     * Whether terms include duration ratios.
+     */
+    private final boolean rhythm;
+
+    /**
+     * The largest size of a merged segment in bytes.
+     */
+    private final long maxSegmentSize;
+
+    /**
+     * The segments of the store, in order.
+     */
+    private final List<IndexSegment> segments;
+
+    /**
+     * The pieces added since the last flush.
+     */
+    private MelodicIndex buffer;
+
+    /**
+     * The number of pieces in the segments.
+     */
+    private int segmentDocumentCount;
+
+    /**
+     * The sequence number of the last segment written.
+     */
+    private int lastSequence;
+
+    /**
+     * Opens a store, creating its directory if necessary, which merges segments up to
+     * {@link #DEFAULT_MAX_SEGMENT_SIZE}.
+     *
+     * @param directory The directory of the store.
+     * @param n         The number of notes in each n-gram, which must match any existing segments.
+     * @param rhythm    Whether terms include duration ratios, which must match any existing segments.
+     * @throws IOException If a segment cannot be opened or was built with other settings.
+     */
+    public MelodicIndexStore(Path directory, int n, boolean rhythm) throws IOException {
+        this(directory, n, rhythm, DEFAULT_MAX_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens a store, creating its directory if necessary.
+     * <p/>
+     * Segments which the manifest does not list are deleted, along with temporary files left by an interrupted
+     * flush or merge. A directory without a manifest holds an empty store.
+     *
+     * @param directory      The directory of the store.
+     * @param n              The number of notes in each n-gram, which must match any existing segments.
+     * @param rhythm         Whether terms include duration ratios, which must match any existing segments.
+     * @param maxSegmentSize The largest size of a merged segment in bytes, at most {@link Integer#MAX_VALUE}.
+     * @throws IOException              If a segment cannot be opened or was built with other settings.
+     * @throws IllegalArgumentException If the maximum segment size is not positive or cannot be mapped.
+     */
+    public MelodicIndexStore(Path directory, int n, boolean rhythm, long maxSegmentSize) throws IOException {
+        if (maxSegmentSize <= 0 || maxSegmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The maximum segment size must be between 1 and "
+                    + Integer.MAX_VALUE + " bytes.");
+        }
+
+        this.directory = directory;
+        this.n = NGrams.checkN(n, rhythm);
+        this.rhythm = rhythm;
+        this.maxSegmentSize = maxSegmentSize;
+        this.segments = new ArrayList<IndexSegment>();
+        this.buffer = new MelodicIndex(n, rhythm);
+
+        Files.createDirectories(directory);
+
+        List<String> listed = readManifest(directory);
+
+        for (String name : listed) {
+            Path file = directory.resolve(name);
+            IndexSegment segment = new IndexSegment(file);
+
+            if (segment.getN() != n || segment.isRhythm() != rhythm) {
+                throw new IOException("The segment " + file + " was built with different n-gram settings.");
+            }
+
+            this.segments.add(segment);
+            this.segmentDocumentCount += segment.getDocumentCount();
+        }
+
+        // Remove what an interrupted flush or merge left behind, never reusing the number of a segment seen.
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*")) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+
+                if (name.endsWith(SEGMENT_EXTENSION)) {
+                    this.lastSequence = Math.max(this.lastSequence, sequence(file));
+
+                    if (!listed.contains(name)) {
+                        Files.delete(file);
+                    }
+                } else if (name.endsWith(TEMP_EXTENSION)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of pieces in the store, including those not yet flushed.
+     *
+     * @return The number of pieces.
+     */
+    public int getDocumentCount() {
+        return this.segmentDocumentCount + this.buffer.getDocumentCount();
+    }
+
+    /**
+     * Gets the number of segment files.
+     *
+     * @return The number of segments.
+     */
+    public int getSegmentCount() {
+        return this.segments.size();
+    }
+
+    /**
+     * Adds a piece to the store. It is searchable at once, and persisted by the next flush.
+     *
+     * @param music The piece, a single voice.
+     * @return The ID of the piece.
+     */
+    public int add(VectorMusic music) {
+        return this.segmentDocumentCount + this.buffer.add(music);
+    }
+
+    /**
+     * Writes the pieces added since the last flush as a new segment.
+     *
+     * @throws IOException If the segment cannot be written.
+     */
+    public void flush() throws IOException {
+        if (this.buffer.getDocumentCount() == 0) {
+            return;
+        }
+
+        Path temp = this.createTemp();
+
+        try (SegmentWriter writer = new SegmentWriter(temp, this.n, this.rhythm, this.buffer.getDocumentCount())) {
+            for (long term : this.buffer.sortedTerms()) {
+                writer.write(term, this.buffer.encodedPostings(term), this.buffer.lastDocument(term));
+            }
+
+            writer.finish();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        List<IndexSegment> segments = new ArrayList<IndexSegment>(this.segments);
+        IndexSegment segment = this.install(temp);
+
+        segments.add(segment);
+        this.commit(segments, Collections.singletonList(segment));
+
+        this.segments.add(segment);
+        this.segmentDocumentCount += this.buffer.getDocumentCount();
+        this.buffer = new MelodicIndex(this.n, this.rhythm);
+    }
+
+    /**
+     * Flushes the pieces not yet written and merges each run of adjacent segments whose merged size fits the maximum
+     * segment size. A segment which cannot be merged with a neighbour within the maximum is left as it is.
+     * <p/>
+     * The merged segments replace the old ones in the manifest before the old files are deleted, so a failure leaves
+     * the store as it was before the merge or after it, never both.
+     *
+     * @throws IOException If a merged segment cannot be written or an old segment cannot be deleted.
+     */
+    public void merge() throws IOException {
+        this.flush();
+
+        List<IndexSegment> segments = new ArrayList<IndexSegment>();
+        List<IndexSegment> installed = new ArrayList<IndexSegment>();
+        List<IndexSegment> replaced = new ArrayList<IndexSegment>();
+        int start = 0;
+
+        try {
+            while (start < this.segments.size()) {
+                // Extend the run while the bound on its merged size stays within the maximum.
+                long size = bound(this.segments.get(start));
+                int end = start + 1;
+
+                while (end < this.segments.size() && size + bound(this.segments.get(end)) <= this.maxSegmentSize) {
+                    size += bound(this.segments.get(end++));
+                }
+
+                List<IndexSegment> run = this.segments.subList(start, end);
+
+                if (run.size() < 2) {
+                    segments.add(run.get(0));
+                } else {
+                    IndexSegment merged = this.install(this.mergeRun(run));
+
+                    installed.add(merged);
+                    segments.add(merged);
+                    replaced.addAll(run);
+                }
+
+                start = end;
+            }
+
+            if (installed.isEmpty()) {
+                return;
+            }
+
+            this.commit(segments, installed);
+        } catch (IOException | RuntimeException e) {
+            for (IndexSegment segment : installed) {
+                Files.deleteIfExists(segment.getFile());
+            }
+
+            throw e;
+        }
+
+        this.segments.clear();
+        this.segments.addAll(segments);
+
+        for (IndexSegment segment : replaced) {
+            Files.delete(segment.getFile());
+        }
+    }
+
+    /**
+     * Finds every occurrence of a melodic fragment.
+     *
+     * @param fragment The notes of the fragment, at least n.
+     * @return The occurrences, in order of piece and position, including those which agree with the fragment only
+     * within the limits of the terms, as described for {@link MelodicIndex}.
+     * @throws IllegalArgumentException If the fragment has fewer than n notes.
+     */
+    public List<Match> search(List<Note> fragment) {
+        return Postings.toMatches(this.find(fragment));
+    }
+
+    /**
+     * Finds the pieces containing a melodic fragment.
+     *
+     * @param fragment The notes of the fragment, at least n.
+     * @return The IDs of the pieces, in increasing order, including those which contain the fragment only within the
+     * limits of the terms, as described for {@link MelodicIndex}.
+     * @throws IllegalArgumentException If the fragment has fewer than n notes.
+     */
+    public int[] searchDocuments(List<Note> fragment) {
+        return Postings.toDocuments(this.find(fragment));
+    }
+
+    /**
+     * Flushes the pieces not yet written.
+     *
+     * @throws IOException If the segment cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        this.flush();
+    }
+
+    /**
+     * Finds every occurrence of a melodic fragment in every segment and in the pieces not yet flushed.
+     *
+     * @param fragment The notes of the fragment.
+     * @return The postings at which the fragment begins, with IDs of the store, in increasing order.
+     */
+    private long[] find(List<Note> fragment) {
+        long[][] parts = new long[this.segments.size() + 1][];
+        int base = 0, size = 0;
+
+        for (int i = 0; i <= this.segments.size(); ++i) {
+            boolean buffered = i == this.segments.size();
+            long[] part = buffered ? this.buffer.find(fragment) : this.segments.get(i).find(fragment);
+
+            for (int j = 0; j < part.length; ++j) {
+                part[j] += (long) base << 32;
+            }
+
+            parts[i] = part;
+            size += part.length;
+            base += buffered ? 0 : this.segments.get(i).getDocumentCount();
+        }
+
+        long[] postings = new long[size];
+        int offset = 0;
+
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, postings, offset, part.length);
+            offset += part.length;
+        }
+
+        return postings;
+    }
+
+    /**
+     * Merges a run of adjacent segments into a temporary file.
+     *
+     * @param run The segments, in order.
+     * @return The completed segment.
+     * @throws IOException If the merged segment cannot be written.
+     */
+    private Path mergeRun(List<IndexSegment> run) throws IOException {
+        int documentCount = 0;
+
+        for (IndexSegment segment : run) {
+            documentCount += segment.getDocumentCount();
+        }
+
+        Path temp = this.createTemp();
+
+        try (SegmentWriter writer = new SegmentWriter(temp, this.n, this.rhythm, documentCount)) {
+            mergeSegments(run, writer);
+            writer.finish();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        return temp;
+    }
+
+    /**
+     * Chooses the name of a temporary file in the directory of the store, which does not yet exist.
+     *
+     * @return The temporary file.
+     * @throws IOException If the directory cannot be written.
+     */
+    private Path createTemp() throws IOException {
+        Path temp = Files.createTempFile(this.directory, SEGMENT_PREFIX, TEMP_EXTENSION);
+        Files.delete(temp);
+
+        return temp;
+    }
+
+    /**
+     * Moves a completed segment into place under the next sequence number and opens it. The segment is not part of
+     * the store until a manifest lists it.
+     *
+     * @param temp The completed segment.
+     * @return The opened segment.
+     * @throws IOException If the segment cannot be moved or opened.
+     */
+    private IndexSegment install(Path temp) throws IOException {
+        Path file = this.directory.resolve(
+                String.format(Locale.ROOT, "%s%06d%s", SEGMENT_PREFIX, ++this.lastSequence, SEGMENT_EXTENSION));
+
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        try {
+            return new IndexSegment(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Replaces the manifest with one listing the given segments, which is the point at which a flush or merge takes
+     * effect. The new manifest is written to a temporary file, forced to disk and moved over the old one.
+     *
+     * @param segments  The segments of the store, in order.
+     * @param installed The segments installed for this change, deleted if the manifest cannot be replaced.
+     * @throws IOException If the manifest cannot be written.
+     */
+    private void commit(List<IndexSegment> segments, List<IndexSegment> installed) throws IOException {
+        StringBuilder manifest = new StringBuilder(MANIFEST_HEADER).append('\n');
+
+        for (IndexSegment segment : segments) {
+            manifest.append(segment.getFile().getFileName()).append('\n');
+        }
+
+        Path temp = this.createTemp();
+
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                ByteBuffer bytes = StandardCharsets.UTF_8.encode(manifest.toString());
+
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+
+                channel.force(true);
+            }
+
+            Files.move(temp, this.directory.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+
+            for (IndexSegment segment : installed) {
+                Files.deleteIfExists(segment.getFile());
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Gets an upper bound on the size a segment adds to a merged segment: its own size, and for each term the four
+     * bytes by which the first ID of its posting list may grow when it is renumbered and the skip added where the
+     * list joins the one before.
+     *
+     * @param segment The segment.
+     * @return The bound in bytes.
+     */
+    private static long bound(IndexSegment segment) {
+        return segment.getSize() + (4L + Postings.SKIP_SIZE) * segment.getTermCount();
+    }
+
+    /**
+     * Writes the union of the posting lists of several segments, renumbering the pieces of each after those of the
+     * segments before it.
+     *
+     * @param segments The segments, in order.
+     * @param writer   The writer of the merged segment.
+     * @throws IOException If the merged segment cannot be written.
+     */
+    private static void mergeSegments(List<IndexSegment> segments, SegmentWriter writer) throws IOException {
+        int count = segments.size();
+        int[] bases = new int[count];
+        int[] cursors = new int[count];
+
+        for (int i = 1; i < count; ++i) {
+            bases[i] = bases[i - 1] + segments.get(i - 1).getDocumentCount();
+        }
+
+        while (true) {
+            // Find the smallest term not yet written, then append its postings from each segment in order.
+            boolean any = false;
+            long term = 0;
+
+            for (int i = 0; i < count; ++i) {
+                if (cursors[i] < segments.get(i).getTermCount()) {
+                    long candidate = segments.get(i).term(cursors[i]);
+
+                    if (!any || candidate < term) {
+                        term = candidate;
+                        any = true;
+                    }
+                }
+            }
+
+            if (!any) {
+                return;
+            }
+
+            int last = 0;
+            writer.startTerm(term);
+
+            for (int i = 0; i < count; ++i) {
+                IndexSegment segment = segments.get(i);
+
+                if (cursors[i] < segment.getTermCount() && segment.term(cursors[i]) == term) {
+                    writer.append(segment.postings(cursors[i]), bases[i], last);
+                    last = bases[i] + segment.lastDocument(cursors[i]);
+                    cursors[i]++;
+                }
+            }
+
+            writer.endTerm(last);
+        }
+    }
+
+    /**
+     * Reads the names of the segment files listed by the manifest of a directory.
+     *
+     * @param directory The directory.
+     * @return The names of the segment files, in order, or none if there is no manifest.
+     * @throws IOException If the manifest cannot be read or is not a manifest.
+     */
+    private static List<String> readManifest(Path directory) throws IOException {
+        Path manifest = directory.resolve(MANIFEST);
+
+        if (!Files.exists(manifest)) {
+            return Collections.emptyList();
+        }
+
+        List<String> lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+
+        if (lines.isEmpty() || !MANIFEST_HEADER.equals(lines.get(0))) {
+            throw new IOException("The file " + manifest + " is not a segment manifest.");
+        }
+
+        List<String> names = new ArrayList<String>(lines.subList(1, lines.size()));
+
+        for (String name : names) {
+            if (!name.matches(SEGMENT_PREFIX + "\\d+" + Pattern.quote(SEGMENT_EXTENSION))) {
+                throw new IOException("The manifest " + manifest + " lists an invalid segment " + name + ".");
+            }
+        }
+
+        return names;
+    }
+
+    /**
+     * Gets the sequence number of a segment file.
+     *
+     * @param file The segment file.
+     * @return The sequence number.
+     */
+    private static int sequence(Path file) {
+        String name = file.getFileName().toString();
+
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_EXTENSION.length()));
+    }
+}
@@ -0,0 +1,136 @@
+package com.drkharma.vmf.index;
+
+import com.drkharma.vmf.Note;
+
+import java.util.List;
+
+/**
+ * Computes the melodic n-gram terms of a sequence of notes.
+ * <p/>
+ * The term of the n notes beginning at a position is formed from the n - 1 intervals between them in semitones,
+ * which makes it invariant under transposition. Each interval is clamped to {@value #MAX_INTERVAL} semitones
+ * either way. With rhythm, each step also holds the ratio of the durations of its two notes, reduced and with
+ * numerator and denominator clamped to {@value #MAX_RATIO_TERM}. Steps which differ only beyond those limits have
+ * the same term, so an interval of {@value #MAX_INTERVAL} semitones is not told apart from a wider one, nor a ratio
+ * of 15:1 from 16:1 or 32:1. The steps are packed into a single {@code long}, so without rhythm n may be at most 9,
+ * and with rhythm at most 5.
+ */
+final class NGrams {
+
+    /**
+     * The largest n without rhythm.
+     */
+    static final int MAX_N = 9;
+
+    /**
+     * The largest n with rhythm.
+     */
+    static final int MAX_N_WITH_RHYTHM = 5;
+
+    /**
+     * The widest interval kept exactly, in semitones. Wider intervals are clamped to it.
+     */
+    static final int MAX_INTERVAL = 127;
+
+    /**
+     * The largest numerator or denominator of a reduced duration ratio kept exactly. Larger ones are clamped to it.
+     */
+    static final int MAX_RATIO_TERM = 15;
+
+    /**
+     * Utility class, not instantiable.
+     */
+    private NGrams() {
+    }
+
+    /**
+     * Validates the length of the n-grams.
+     *
+     * @param n      The number of notes in each n-gram.
+     * @param rhythm Whether terms include duration ratios.
+     * @return The number of notes in each n-gram.
+     */
+    static int checkN(int n, boolean rhythm) {
+        int max = rhythm ? MAX_N_WITH_RHYTHM : MAX_N;
+
+        if (n < 2 || n > max) {
+            throw new IllegalArgumentException("The n-gram length must be between 2 and " + max + ".");
+        }
+
+        return n;
+    }
+
+    /**
+     * Computes the term of every n-gram of a sequence of notes.
+     *
+     * @param notes  The notes.
+     * @param n      The number of notes in each n-gram.
+     * @param rhythm Whether terms include duration ratios.
+     * @return The term of the n-gram beginning at each position, empty if there are fewer than n notes.
+     */
+    static long[] terms(List<Note> notes, int n, boolean rhythm) {
+        int size = notes.size();
+
+        if (size < n) {
+            return new long[0];
+        }
+
+        // Each step lies between two consecutive notes.
+        long[] steps = new long[size - 1];
+        int previousPitch = 0, previousDuration = 0, i = 0;
+
+        for (Note note : notes) {
+            int pitch = note.getOctave() * 12 + note.getPitchClass().getPitchClassCode();
+            int duration = note.getDuration();
+
+            if (i > 0) {
+                long step = Math.max(-MAX_INTERVAL, Math.min(MAX_INTERVAL, pitch - previousPitch)) & 0xFF;
+
+                if (rhythm) {
+                    step = step << 8 | ratio(duration, previousDuration);
+                }
+
+                steps[i - 1] = step;
+            }
+
+            previousPitch = pitch;
+            previousDuration = duration;
+            i++;
+        }
+
+        int bits = rhythm ? 16 : 8;
+        long[] terms = new long[size - n + 1];
+
+        for (int position = 0; position < terms.length; ++position) {
+            long term = 0;
+
+            for (int k = 0; k < n - 1; ++k) {
+                term = term << bits | steps[position + k];
+            }
+
+            terms[position] = term;
+        }
+
+        return terms;
+    }
+
+    /**
+     * Encodes the ratio of two durations.
+     *
+     * @param duration         The duration of the later note.
+     * @param previousDuration The duration of the earlier note.
+     * @return The reduced ratio, numerator in the high four bits and denominator in the low four bits.
+     */
+    private static int ratio(int duration, int previousDuration) {
+        int a = Math.max(duration, 1), b = Math.max(previousDuration, 1);
+        int x = a, y = b;
+
+        while (y != 0) {
+            int t = x % y;
+            x = y;
+            y = t;
+        }
+
+        return Math.min(a / x, MAX_RATIO_TERM) << 4 | Math.min(b / x, MAX_RATIO_TERM);
+    }
+}
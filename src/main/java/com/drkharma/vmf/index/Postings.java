@@ -0,0 +1,410 @@
+package com.drkharma.vmf.index;
+
+import com.drkharma.vmf.Note;
+import com.drkharma.vmf.io.VarInt;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Encodes, decodes and searches the compressed posting list of a term.
+ * <p/>
+ * For each piece containing the term, in increasing order of ID, a posting list holds the difference from the
+ * previous ID, the number of positions and the positions themselves, each as the difference from the previous
+ * position. Every number is variable length encoded. A decoded posting list is an array of {@code long}s holding
+ * the ID in the high 32 bits and the position in the low 32 bits, which sorts in order of ID then position.
+ * <p/>
+ * Each posting list has a table of skips, so that a search can jump over pieces without decoding them. A skip is
+ * two ints, the ID of a piece and the offset in the list of the piece which follows it, and skips are in increasing
+ * order. A skip is made every {@value #SKIP_INTERVAL} pieces, and merging adds one where each list joined begins.
+ */
+final class Postings {
+
+    /**
+     * The number of pieces between the skips made as a posting list is built.
+     */
+    static final int SKIP_INTERVAL = 32;
+
+    /**
+     * The size of a skip in bytes.
+     */
+    static final int SKIP_SIZE = 8;
+
+    /**
+     * Looks up the encoded posting list of a term.
+     */
+    interface Lookup {
+
+        /**
+         * Gets the encoded posting list of a term.
+         *
+         * @param term The term.
+         * @return A read-only view of the encoded posting list, or null if the term does not occur.
+         */
+        Encoded get(long term);
+    }
+
+    /**
+     * A view of an encoded posting list and its skips.
+     */
+    static final class Encoded {
+
+        /**
+         * The encoded postings, from index zero to the limit.
+         */
+        final ByteBuffer data;
+
+        /**
+         * The skips, from index zero to the limit.
+         */
+        final ByteBuffer skips;
+
+        /**
+         * Constructor
+         *
+         * @param data  The encoded postings, from index zero to the limit.
+         * @param skips The skips, from index zero to the limit.
+         */
+        Encoded(ByteBuffer data, ByteBuffer skips) {
+            this.data = data;
+            this.skips = skips;
+        }
+    }
+
+    /**
+     * Utility class, not instantiable.
+     */
+    private Postings() {
+    }
+
+    /**
+     * Finds every occurrence of a melodic fragment.
+     * <p/>
+     * Only the shortest posting list of the terms of the fragment is decoded. Each posting in it is then looked for
+     * in the other lists, moving forward through each, jumping over pieces by binary search of its skips and
+     * decoding only the pieces it stops at, so the cost follows the length of the shortest list rather than the
+     * total length of the lists.
+     *
+     * @param fragment The notes of the fragment.
+     * @param n        The number of notes in each n-gram.
+     * @param rhythm   Whether terms include duration ratios.
+     * @param lookup   The posting lists of the terms.
+     * @return The postings at which the fragment begins, in increasing order.
+     * @throws IllegalArgumentException If the fragment has fewer than n notes.
+     */
+    static long[] find(List<Note> fragment, int n, boolean rhythm, Lookup lookup) {
+        if (fragment.size() < n) {
+            throw new IllegalArgumentException("A fragment must have at least " + n + " notes.");
+        }
+
+        long[] terms = NGrams.terms(fragment, n, rhythm);
+        Encoded[] encoded = new Encoded[terms.length];
+        int driver = 0;
+
+        for (int k = 0; k < terms.length; ++k) {
+            encoded[k] = lookup.get(terms[k]);
+
+            if (encoded[k] == null) {
+                return new long[0];
+            }
+
+            if (encoded[k].data.remaining() < encoded[driver].data.remaining()) {
+                driver = k;
+            }
+        }
+
+        // Drive the search from the shortest list, checking the others with a cursor each.
+        long[] postings = decode(encoded[driver].data.duplicate());
+        Cursor[] cursors = new Cursor[terms.length];
+
+        for (int k = 0; k < terms.length; ++k) {
+            cursors[k] = k == driver ? null : new Cursor(encoded[k]);
+        }
+
+        long[] matches = new long[postings.length];
+        int size = 0;
+
+        for (long posting : postings) {
+            if ((int) posting < driver) {
+                // The sequence would begin before the first note of the piece.
+                continue;
+            }
+
+            long start = posting - driver;
+            boolean found = true;
+
+            for (int k = 0; k < terms.length && found; ++k) {
+                found = k == driver || cursors[k].contains(start + k);
+            }
+
+            if (found) {
+                matches[size++] = start;
+            }
+        }
+
+        return Arrays.copyOf(matches, size);
+    }
+
+    /**
+     * Converts postings into matches.
+     *
+     * @param postings The postings, in increasing order.
+     * @return The matches, in the same order.
+     */
+    static List<Match> toMatches(long[] postings) {
+        List<Match> matches = new ArrayList<Match>(postings.length);
+
+        for (long posting : postings) {
+            matches.add(new Match((int) (posting >>> 32), (int) posting));
+        }
+
+        return matches;
+    }
+
+    /**
+     * Gets the distinct IDs of postings.
+     *
+     * @param postings The postings, in increasing order.
+     * @return The IDs, in increasing order.
+     */
+    static int[] toDocuments(long[] postings) {
+        int[] documents = new int[postings.length];
+        int size = 0;
+
+        for (long posting : postings) {
+            int document = (int) (posting >>> 32);
+
+            if (size == 0 || documents[size - 1] != document) {
+                documents[size++] = document;
+            }
+        }
+
+        return Arrays.copyOf(documents, size);
+    }
+
+    /**
+     * Appends the positions of a term in a piece.
+     *
+     * @param out         The posting list so far.
+     * @param documentGap The ID of the piece less the ID of the previous piece in the list, or the ID itself.
+     * @param positions   The positions, in increasing order.
+     * @param count       The number of positions.
+     */
+    static void append(ByteArrayOutputStream out, int documentGap, int[] positions, int count) {
+        int previous = 0;
+
+        VarInt.write(out, documentGap);
+        VarInt.write(out, count);
+
+        for (int i = 0; i < count; ++i) {
+            VarInt.write(out, positions[i] - previous);
+            previous = positions[i];
+        }
+    }
+
+    /**
+     * Appends a skip.
+     *
+     * @param out      The skips so far.
+     * @param document The ID of the piece before the skip.
+     * @param offset   The offset in the posting list of the piece which follows it.
+     */
+    static void appendSkip(ByteArrayOutputStream out, int document, int offset) {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            out.write(document >>> shift);
+        }
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            out.write(offset >>> shift);
+        }
+    }
+
+    /**
+     * Decodes a posting list.
+     *
+     * @param in The encoded list, read from its position to its limit.
+     * @return The postings, as ID and position pairs in increasing order.
+     */
+    static long[] decode(ByteBuffer in) {
+        long[] postings = new long[Math.max(4, in.remaining())];
+        int size = 0;
+        int document = 0;
+
+        while (in.hasRemaining()) {
+            document += VarInt.readInt(in);
+
+            int count = VarInt.readInt(in);
+            int position = 0;
+
+            for (int i = 0; i < count; ++i) {
+                position += VarInt.readInt(in);
+
+                if (size == postings.length) {
+                    postings = Arrays.copyOf(postings, size * 2);
+                }
+
+                postings[size++] = pack(document, position);
+            }
+        }
+
+        return Arrays.copyOf(postings, size);
+    }
+
+    /**
+     * Packs an ID and position into a posting.
+     *
+     * @param document The ID of the piece.
+     * @param position The position within the piece.
+     * @return The posting.
+     */
+    static long pack(int document, int position) {
+        return (long) document << 32 | (position & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Looks for postings in increasing order in an encoded posting list, moving forward through it.
+     */
+    private static final class Cursor {
+
+        /**
+         * The encoded postings, positioned after the last piece read.
+         */
+        private final ByteBuffer data;
+
+        /**
+         * The skips.
+         */
+        private final ByteBuffer skips;
+
+        /**
+         * The number of skips.
+         */
+        private final int skipCount;
+
+        /**
+         * The ID of the last piece read, or zero before the first.
+         */
+        private int document;
+
+        /**
+         * Whether the positions of the last piece read are held, rather than the piece having been passed over.
+         */
+        private boolean loaded;
+
+        /**
+         * The positions of the last piece read, when loaded.
+         */
+        private int[] positions = new int[16];
+
+        /**
+         * The number of positions of the last piece read.
+         */
+        private int count;
+
+        /**
+         * Constructor
+         *
+         * @param encoded The posting list.
+         */
+        Cursor(Encoded encoded) {
+            this.data = encoded.data.duplicate();
+            this.skips = encoded.skips;
+            this.skipCount = encoded.skips.limit() / SKIP_SIZE;
+        }
+
+        /**
+         * Gets whether the list holds a posting, which must not precede any posting looked for before.
+         *
+         * @param posting The posting.
+         * @return True if the list holds the posting.
+         */
+        boolean contains(long posting) {
+            int target = (int) (posting >>> 32);
+
+            if (!this.loaded || this.document < target) {
+                this.skipTo(target);
+
+                if (!this.advanceTo(target)) {
+                    return false;
+                }
+            }
+
+            return this.document == target && Arrays.binarySearch(this.positions, 0, this.count, (int) posting) >= 0;
+        }
+
+        /**
+         * Jumps to the last skip which precedes a piece, if it lies ahead.
+         *
+         * @param target The ID of the piece.
+         */
+        private void skipTo(int target) {
+            int low = 0;
+            int high = this.skipCount - 1;
+
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+
+                if (this.skips.getInt(mid * SKIP_SIZE) < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+
+            if (high >= 0) {
+                int offset = this.skips.getInt(high * SKIP_SIZE + 4);
+
+                if (offset > this.data.position()) {
+                    this.data.position(offset);
+                    this.document = this.skips.getInt(high * SKIP_SIZE);
+                    this.loaded = false;
+                }
+            }
+        }
+
+        /**
+         * Reads forward to the first piece at or after a piece, loading its positions.
+         *
+         * @param target The ID of the piece.
+         * @return False if the list ends before the piece.
+         */
+        private boolean advanceTo(int target) {
+            while (this.data.hasRemaining()) {
+                this.document += VarInt.readInt(this.data);
+
+                int count = VarInt.readInt(this.data);
+
+                if (this.document < target) {
+                    for (int i = 0; i < count; ++i) {
+                        VarInt.readInt(this.data);
+                    }
+
+                    this.loaded = false;
+                    continue;
+                }
+
+                if (count > this.positions.length) {
+                    this.positions = new int[Math.max(count, this.positions.length * 2)];
+                }
+
+                int position = 0;
+
+                for (int i = 0; i < count; ++i) {
+                    position += VarInt.readInt(this.data);
+                    this.positions[i] = position;
+                }
+
+                this.count = count;
+                this.loaded = true;
+
+                return true;
+            }
+
+            this.document = Integer.MAX_VALUE;
+            this.loaded = true;
+            this.count = 0;
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.drkharma.vmf.index;
+
+import com.drkharma.vmf.io.VarInt;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes an immutable segment file of a melodic index.
+ * <p/>
+ * Terms are written in increasing order, and their posting lists are streamed to the file as they are written, each
+ * followed by its skips. Only the dictionary, {@value IndexSegment#ENTRY_SIZE} bytes a term, and the skips of the
+ * current term are held until the segment is finished.
+ *
+ * @see IndexSegment
+ */
+final class SegmentWriter implements Closeable {
+
+    /**
+     * The size of the buffer through which postings are written.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The file being written.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The buffer through which postings are written.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The number of notes in each n-gram.
+     */
+    private final int n;
+
+    /**
+     * Whether terms include duration ratios.
+     */
+    private final boolean rhythm;
+
+    /**
+     * The number of pieces in the segment.
+     */
+    private final int documentCount;
+
+    /**
+     * The terms written so far.
+     */
+    private long[] terms;
+
+    /**
+     * The offset of the posting list of each term written so far.
+     */
+    private long[] offsets;
+
+    /**
+     * The ID of the last piece in the posting list of each term written so far.
+     */
+    private int[] lastDocuments;
+
+    /**
+     * The number of skips of each term written so far.
+     */
+    private int[] skipCounts;
+
+    /**
+     * The ID of the piece before each skip of the current term.
+     */
+    private int[] skipDocuments;
+
+    /**
+     * The offset of the piece after each skip of the current term, from the start of its posting list.
+     */
+    private int[] skipOffsets;
+
+    /**
+     * The number of skips of the current term.
+     */
+    private int skipCount;
+
+    /**
+     * The number of terms written so far.
+     */
+    private int termCount;
+
+    /**
+     * The offset in the file at which the buffer begins.
+     */
+    private long flushed;
+
+    /**
+     * Creates a segment file.
+     *
+     * @param file          The file to create.
+     * @param n             The number of notes in each n-gram.
+     * @param rhythm        Whether terms include duration ratios.
+     * @param documentCount The number of pieces in the segment.
+     * @throws IOException If the file cannot be created.
+     */
+    SegmentWriter(Path file, int n, boolean rhythm, int documentCount) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.n = n;
+        this.rhythm = rhythm;
+        this.documentCount = documentCount;
+        this.terms = new long[256];
+        this.offsets = new long[256];
+        this.lastDocuments = new int[256];
+        this.skipCounts = new int[256];
+        this.skipDocuments = new int[16];
+        this.skipOffsets = new int[16];
+        this.flushed = IndexSegment.HEADER_SIZE;
+    }
+
+    /**
+     * Writes the posting list of a term and its skips from a single source.
+     *
+     * @param term         The term, greater than any term already written.
+     * @param postings     The encoded posting list.
+     * @param lastDocument The ID of the last piece in the posting list.
+     * @throws IOException If the file cannot be written.
+     */
+    void write(long term, Postings.Encoded postings, int lastDocument) throws IOException {
+        this.startTerm(term);
+        this.put(postings.data.duplicate());
+
+        for (int i = 0; i < postings.skips.limit(); i += Postings.SKIP_SIZE) {
+            this.addSkip(postings.skips.getInt(i), postings.skips.getInt(i + 4));
+        }
+
+        this.endTerm(lastDocument);
+    }
+
+    /**
+     * Begins the posting list of a term which is concatenated from several sources.
+     *
+     * @param term The term, greater than any term already written.
+     */
+    void startTerm(long term) {
+        if (this.termCount > 0 && term <= this.terms[this.termCount - 1]) {
+            throw new IllegalArgumentException("Terms must be written in increasing order.");
+        }
+
+        if (this.termCount == this.terms.length) {
+            int capacity = this.termCount * 2;
+
+            this.terms = Arrays.copyOf(this.terms, capacity);
+            this.offsets = Arrays.copyOf(this.offsets, capacity);
+            this.lastDocuments = Arrays.copyOf(this.lastDocuments, capacity);
+            this.skipCounts = Arrays.copyOf(this.skipCounts, capacity);
+        }
+
+        this.terms[this.termCount] = term;
+        this.offsets[this.termCount] = this.position();
+        this.skipCount = 0;
+    }
+
+    /**
+     * Appends part of the posting list of the current term, moving its IDs from one numbering to another.
+     * <p/>
+     * Since IDs are encoded as differences, only the first ID of the part needs to be rewritten. The skips of the
+     * part are moved along with it, and a skip is added where the part begins.
+     *
+     * @param postings     The encoded posting list of the part.
+     * @param base         The amount added to each ID of the part.
+     * @param previousLast The ID of the last piece of the list so far, in the new numbering, or zero if none.
+     * @throws IOException If the file cannot be written.
+     */
+    void append(Postings.Encoded postings, int base, int previousLast) throws IOException {
+        ByteBuffer data = postings.data.duplicate();
+        int start = (int) (this.position() - this.offsets[this.termCount]);
+        int first = base + VarInt.readInt(data);
+
+        if (start > 0) {
+            this.addSkip(previousLast, start);
+        }
+
+        this.ensure(10);
+
+        int gapStart = this.buffer.position();
+        VarInt.write(this.buffer, first - previousLast);
+
+        // Later pieces of the part move by the difference in length of the rewritten first ID.
+        int shift = start + (this.buffer.position() - gapStart) - data.position();
+
+        for (int i = 0; i < postings.skips.limit(); i += Postings.SKIP_SIZE) {
+            this.addSkip(base + postings.skips.getInt(i), shift + postings.skips.getInt(i + 4));
+        }
+
+        this.put(data);
+    }
+
+    /**
+     * Completes the posting list of the current term, writing its skips.
+     *
+     * @param lastDocument The ID of the last piece in the posting list.
+     * @throws IOException If the file cannot be written.
+     */
+    void endTerm(int lastDocument) throws IOException {
+        for (int i = 0; i < this.skipCount; ++i) {
+            this.ensure(Postings.SKIP_SIZE);
+            this.buffer.putInt(this.skipDocuments[i]).putInt(this.skipOffsets[i]);
+        }
+
+        this.skipCounts[this.termCount] = this.skipCount;
+        this.lastDocuments[this.termCount++] = lastDocument;
+    }
+
+    /**
+     * Writes the dictionary and the header, completing the segment.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    void finish() throws IOException {
+        long dictionaryOffset = this.position();
+
+        for (int i = 0; i < this.termCount; ++i) {
+            this.ensure(IndexSegment.ENTRY_SIZE);
+            this.buffer.putLong(this.terms[i]).putLong(this.offsets[i]).putInt(this.lastDocuments[i])
+                    .putInt(this.skipCounts[i]);
+        }
+
+        this.flush();
+
+        ByteBuffer header = ByteBuffer.allocate(IndexSegment.HEADER_SIZE);
+        header.put(IndexSegment.MAGIC)
+                .put((byte) IndexSegment.VERSION)
+                .put((byte) this.n)
+                .put((byte) (this.rhythm ? 1 : 0))
+                .put((byte) 0)
+                .putInt(this.documentCount)
+                .putInt(this.termCount)
+                .putLong(dictionaryOffset);
+        header.flip();
+
+        while (header.hasRemaining()) {
+            this.channel.write(header, header.position());
+        }
+
+        this.channel.force(true);
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Adds a skip to the current term.
+     *
+     * @param document The ID of the piece before the skip.
+     * @param offset   The offset of the piece after it, from the start of the posting list.
+     */
+    private void addSkip(int document, int offset) {
+        if (this.skipCount == this.skipDocuments.length) {
+            this.skipDocuments = Arrays.copyOf(this.skipDocuments, this.skipCount * 2);
+            this.skipOffsets = Arrays.copyOf(this.skipOffsets, this.skipCount * 2);
+        }
+
+        this.skipDocuments[this.skipCount] = document;
+        this.skipOffsets[this.skipCount++] = offset;
+    }
+
+    /**
+     * Writes bytes of postings.
+     *
+     * @param postings The bytes, from their position to their limit.
+     * @throws IOException If the file cannot be written.
+     */
+    private void put(ByteBuffer postings) throws IOException {
+        while (postings.hasRemaining()) {
+            if (!this.buffer.hasRemaining()) {
+                this.flush();
+            }
+
+            int length = Math.min(postings.remaining(), this.buffer.remaining());
+            ByteBuffer part = postings.duplicate();
+            part.limit(part.position() + length);
+
+            this.buffer.put(part);
+            postings.position(postings.position() + length);
+        }
+    }
+
+    /**
+     * Gets the offset in the file at which the next byte is written.
+     *
+     * @return The offset of the next byte.
+     */
+    private long position() {
+        return this.flushed + this.buffer.position();
+    }
+
+    /**
+     * Makes room in the buffer.
+     *
+     * @param bytes The number of bytes needed.
+     * @throws IOException If the file cannot be written.
+     */
+    private void ensure(int bytes) throws IOException {
+        if (this.buffer.remaining() < bytes) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Writes the buffer to the file, after the bytes already written.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    private void flush() throws IOException {
+        this.buffer.flip();
+
+        while (this.buffer.hasRemaining()) {
+            this.flushed += this.channel.write(this.buffer, this.flushed);
+        }
+
+        this.buffer.clear();
+    }
+}
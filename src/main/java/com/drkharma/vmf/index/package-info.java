@@ -0,0 +1,4 @@
+/**
+ * Indexes for finding melodic fragments in collections of pieces.
+ */
+package com.drkharma.vmf.index;
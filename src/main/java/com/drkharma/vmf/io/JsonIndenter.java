@@ -0,0 +1,177 @@
+package com.drkharma.vmf.io;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Writes JSON either compactly or indented by two spaces per level, as Python's {@code json.dumps} does.
+ * <p/>
+ * The indented form is the canonical form of VMF, which {@link VMFGenerator} and {@link VMFWriter} both write.
+ */
+final class JsonIndenter {
+
+    /**
+     * The writer to write to.
+     */
+    private final Writer writer;
+
+    /**
+     * Whether to indent the output.
+     */
+    private final boolean pretty;
+
+    /**
+     * The current nesting depth.
+     */
+    private int depth;
+
+    /**
+     * Constructor
+     *
+     * @param writer The writer to write to.
+     * @param pretty Whether to indent the output.
+     */
+    JsonIndenter(Writer writer, boolean pretty) {
+        this.writer = writer;
+        this.pretty = pretty;
+    }
+
+    /**
+     * Opens an object or array and starts its first member.
+     *
+     * @param c The opening bracket.
+     * @throws IOException If the writer cannot be written.
+     */
+    void open(char c) throws IOException {
+        this.writer.write(c);
+        this.depth++;
+        this.newline();
+    }
+
+    /**
+     * Closes an object or array.
+     *
+     * @param c The closing bracket.
+     * @throws IOException If the writer cannot be written.
+     */
+    void close(char c) throws IOException {
+        this.depth--;
+        this.newline();
+        this.writer.write(c);
+    }
+
+    /**
+     * Writes an empty object or array.
+     *
+     * @param open  The opening bracket.
+     * @param close The closing bracket.
+     * @throws IOException If the writer cannot be written.
+     */
+    void empty(char open, char close) throws IOException {
+        this.writer.write(open);
+        this.writer.write(close);
+    }
+
+    /**
+     * Separates two members and starts the next.
+     *
+     * @throws IOException If the writer cannot be written.
+     */
+    void comma() throws IOException {
+        this.writer.write(',');
+        this.newline();
+    }
+
+    /**
+     * Writes the key of an object member.
+     *
+     * @param key The key.
+     * @throws IOException If the writer cannot be written.
+     */
+    void key(String key) throws IOException {
+        this.writer.write('"');
+        this.writer.write(key);
+        this.writer.write(this.pretty ? "\": " : "\":");
+    }
+
+    /**
+     * Writes a value which is already formatted.
+     *
+     * @param value The value.
+     * @throws IOException If the writer cannot be written.
+     */
+    void value(String value) throws IOException {
+        this.writer.write(value);
+    }
+
+    /**
+     * Writes a header object keyed by measure.
+     *
+     * @param members The formatted value at each measure, in order of measure.
+     * @throws IOException If the writer cannot be written.
+     */
+    void entries(Map<Integer, String> members) throws IOException {
+        boolean first = true;
+
+        if (members.isEmpty()) {
+            this.empty('{', '}');
+            return;
+        }
+
+        this.open('{');
+
+        for (Map.Entry<Integer, String> member : members.entrySet()) {
+            if (!first) {
+                this.comma();
+            }
+
+            this.key(member.getKey() + ".0");
+            this.value(member.getValue());
+            first = false;
+        }
+
+        this.close('}');
+    }
+
+    /**
+     * Writes a voice vector.
+     *
+     * @param state        The state of the voice.
+     * @param dynamic      The dynamic code.
+     * @param articulation The articulation code.
+     * @param pitchClass   The pitch class code.
+     * @param octave       The octave.
+     * @throws IOException If the writer cannot be written.
+     */
+    void vector(int state, int dynamic, int articulation, int pitchClass, int octave) throws IOException {
+        this.open('[');
+        this.value(Integer.toString(state));
+        this.comma();
+        this.value(Integer.toString(dynamic));
+        this.comma();
+        this.value(Integer.toString(articulation));
+        this.comma();
+        this.value(Integer.toString(pitchClass));
+        this.comma();
+        this.value(Integer.toString(octave));
+        this.comma();
+        this.value("0");
+        this.close(']');
+    }
+
+    /**
+     * Starts a new indented line when indenting.
+     *
+     * @throws IOException If the writer cannot be written.
+     */
+    private void newline() throws IOException {
+        if (this.pretty) {
+            this.writer.write('\n');
+
+            for (int i = 0; i < this.depth; ++i) {
+                this.writer.write("  ");
+            }
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package com.drkharma.vmf.io;
+
+import com.drkharma.vmf.*;
+import org.apache.commons.lang3.math.Fraction;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes music as a Standard MIDI File.
+ * <p/>
+ * A file is written in format 1: a conductor track holding the name, time signatures, key signatures and tempi of
+ * the piece, followed by a track for each voice. Events are encoded straight from the notes and the header as they
+ * are visited, through a fixed size buffer, so no list of events is built and memory does not grow with the length
+ * of the piece. Since a track is preceded by its length, each track is visited twice, first to count its bytes and
+ * then to write them.
+ * <p/>
+ * The key of a note is {@code (octave + 1) * 12} plus its pitch class, so that middle C, C4, is key 60. Voices are
+ * assigned channels in order, skipping channel 10, which General MIDI reserves for percussion, and wrap after
+ * fifteen voices. Articulations are not written.
+ */
+public class MidiWriter implements Closeable {
+
+    /**
+     * The default number of MIDI ticks per quarter note.
+     */
+    public static final int DEFAULT_DIVISION = 480;
+
+    /**
+     * The velocity of each dynamic, indexed by ordinal from PPPP to FFFF.
+     */
+    private static final int[] VELOCITIES = {16, 24, 33, 45, 56, 68, 80, 96, 112, 127};
+
+    /**
+     * The size of the buffer through which tracks are written.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The stream to write to.
+     */
+    private final OutputStream out;
+
+    /**
+     * The number of MIDI ticks per quarter note.
+     */
+    private final int division;
+
+    /**
+     * The buffer through which tracks are written.
+     */
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    /**
+     * Constructor using {@link #DEFAULT_DIVISION} ticks per quarter note.
+     *
+     * @param out The stream to write MIDI files to.
+     */
+    public MidiWriter(OutputStream out) {
+        this(out, DEFAULT_DIVISION);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param out      The stream to write MIDI files to.
+     * @param division The number of MIDI ticks per quarter note. Onsets which do not fall on a whole MIDI tick are
+     *                 rounded down.
+     * @throws IllegalArgumentException If the division is not between 1 and 32767.
+     */
+    public MidiWriter(OutputStream out, int division) {
+        if (division < 1 || division > 0x7FFF) {
+            throw new IllegalArgumentException("The division should be between 1 and 32767.");
+        }
+
+        this.out = out;
+        this.division = division;
+    }
+
+    /**
+     * Writes a single voice as a MIDI file.
+     *
+     * @param music The voice to write.
+     * @throws IOException              If the stream cannot be written.
+     * @throws IllegalArgumentException If the music cannot be represented in MIDI.
+     * @see #write(List)
+     */
+    public void write(VectorMusic music) throws IOException {
+        this.write(Collections.singletonList(music));
+    }
+
+    /**
+     * Writes the voices of a piece as a MIDI file, one track for each voice.
+     *
+     * @param voices The voices to write, which share the header of the first.
+     * @throws IOException              If the stream cannot be written.
+     * @throws IllegalArgumentException If there are no voices or too many, the header has no tick value or no time
+     *                                  signatures, a time signature has a lower number which is not a power of two,
+     *                                  a tempo is out of range or a note is outside the range of MIDI keys.
+     */
+    public void write(List<VectorMusic> voices) throws IOException {
+        if (voices.isEmpty() || voices.size() >= 0xFFFF) {
+            throw new IllegalArgumentException("Between 1 and 65534 voices can be written.");
+        }
+
+        VectorMusicHeader header = voices.get(0).getHeader();
+        MeasureIndex measures = new MeasureIndex(header);
+        Fraction tickValue = header.getTickValue();
+
+        Track track = new Track(this.out, this.buffer);
+        track.writeBytes('M', 'T', 'h', 'd');
+        track.writeInt(6);
+        track.writeShort(1);
+        track.writeShort(voices.size() + 1);
+        track.writeShort(this.division);
+
+        Track counter = new Track(null, null);
+        this.writeConductor(counter, header, measures, tickValue);
+        track.startChunk(counter.length);
+        this.writeConductor(track, header, measures, tickValue);
+
+        for (int i = 0; i < voices.size(); ++i) {
+            int channel = i % 15 < 9 ? i % 15 : i % 15 + 1;
+            List<Note> notes = voices.get(i).getNotes();
+
+            counter = new Track(null, null);
+            this.writeVoice(counter, notes, channel, tickValue);
+            track.startChunk(counter.length);
+            this.writeVoice(track, notes, channel, tickValue);
+        }
+
+        track.flush();
+        this.out.flush();
+    }
+
+    /**
+     * Closes the underlying stream.
+     *
+     * @throws IOException If the stream cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.out.close();
+    }
+
+    /**
+     * Encodes the conductor track, merging the time signatures, key signatures and tempi in order of measure.
+     *
+     * @param track     The track to encode to.
+     * @param header    The header of the piece.
+     * @param measures  The measure index of the piece.
+     * @param tickValue The value of a tick as a fraction of a quarter note.
+     * @throws IOException If the track cannot be written.
+     */
+    private void writeConductor(Track track, VectorMusicHeader header, MeasureIndex measures, Fraction tickValue)
+            throws IOException {
+        List<TimeSignature> timeSignatures = header.getTimeSignatures();
+        List<KeySignatureInstance> keySignatures = header.getKeySignatures();
+        List<MetronomeMarking> metronomeMarkings = header.getMetronomeMarkings();
+        int t = 0, k = 0, m = 0;
+
+        if (header.getName() != null && !header.getName().isEmpty()) {
+            byte[] name = header.getName().getBytes(StandardCharsets.UTF_8);
+
+            track.meta(0, 0x03, name.length);
+            track.writeBytes(name);
+        }
+
+        while (t < timeSignatures.size() || k < keySignatures.size() || m < metronomeMarkings.size()) {
+            // At the same measure, a time signature precedes a key signature, which precedes a tempo.
+            int measure = Integer.MAX_VALUE;
+            if (t < timeSignatures.size()) {
+                measure = timeSignatures.get(t).getMeasure();
+            }
+            if (k < keySignatures.size()) {
+                measure = Math.min(measure, keySignatures.get(k).getMeasure());
+            }
+            if (m < metronomeMarkings.size()) {
+                measure = Math.min(measure, metronomeMarkings.get(m).getMeasure());
+            }
+
+            long tick = this.midiTick(measures.tickOfMeasure(Math.max(measure, 0)), tickValue);
+
+            if (t < timeSignatures.size() && timeSignatures.get(t).getMeasure() == measure) {
+                TimeSignature timeSignature = timeSignatures.get(t++);
+                int lower = timeSignature.getLower();
+
+                if (lower <= 0 || Integer.bitCount(lower) != 1 || timeSignature.getUpper() > 0xFF) {
+                    throw new IllegalArgumentException("The time signature " + timeSignature.getUpper() + "/"
+                            + lower + " cannot be written to MIDI.");
+                }
+
+                track.meta(tick, 0x58, 4);
+                track.writeBytes(timeSignature.getUpper(), Integer.numberOfTrailingZeros(lower), 24, 8);
+            } else if (k < keySignatures.size() && keySignatures.get(k).getMeasure() == measure) {
+                track.meta(tick, 0x59, 2);
+                track.writeBytes(keySignatures.get(k++).getKeySignature().getKeySignatureCode(), 0);
+            } else {
+                int bpm = metronomeMarkings.get(m++).getQuarterBPM();
+
+                if (bpm < 4 || bpm > 60000000) {
+                    throw new IllegalArgumentException("The tempo " + bpm + " cannot be written to MIDI.");
+                }
+
+                int microseconds = 60000000 / bpm;
+
+                track.meta(tick, 0x51, 3);
+                track.writeBytes(microseconds >>> 16, microseconds >>> 8, microseconds);
+            }
+        }
+
+        track.meta(track.tick, 0x2F, 0);
+    }
+
+    /**
+     * Encodes the track of a voice.
+     *
+     * @param track     The track to encode to.
+     * @param notes     The notes of the voice, which do not overlap.
+     * @param channel   The channel of the voice, counted from zero.
+     * @param tickValue The value of a tick as a fraction of a quarter note.
+     * @throws IOException If the track cannot be written.
+     */
+    private void writeVoice(Track track, List<Note> notes, int channel, Fraction tickValue) throws IOException {
+        long onset = 0, end = 0;
+        int sounding = -1;
+
+        for (Note note : notes) {
+            onset += note.getOffset();
+
+            int key = (note.getOctave() + 1) * 12 + note.getPitchClass().getPitchClassCode();
+            if (key < 0 || key > 127) {
+                throw new IllegalArgumentException("The note at tick " + onset
+                        + " is outside the range of MIDI keys.");
+            }
+
+            // A note is released no later than the next begins, so a repeated key is not cut short.
+            if (sounding >= 0) {
+                track.event(this.midiTick(Math.min(end, onset), tickValue), 0x80 | channel, sounding, 0);
+            }
+
+            track.event(this.midiTick(onset, tickValue), 0x90 | channel, key,
+                    VELOCITIES[note.getDynamic().ordinal()]);
+            sounding = key;
+            end = onset + note.getDuration();
+        }
+
+        if (sounding >= 0) {
+            track.event(this.midiTick(end, tickValue), 0x80 | channel, sounding, 0);
+        }
+
+        track.meta(track.tick, 0x2F, 0);
+    }
+
+    /**
+     * Converts a VMF tick to a MIDI tick, rounding down.
+     *
+     * @param tick      The VMF tick.
+     * @param tickValue The value of a VMF tick as a fraction of a quarter note.
+     * @return The MIDI tick.
+     */
+    private long midiTick(long tick, Fraction tickValue) {
+        return tick * tickValue.getNumerator() * this.division / tickValue.getDenominator();
+    }
+
+    /**
+     * Encodes the bytes of a track into a fixed size buffer, or only counts them when there is no stream.
+     */
+    private static final class Track {
+
+        /**
+         * The stream to write to, or null to only count the bytes.
+         */
+        private final OutputStream out;
+
+        /**
+         * The buffer of bytes not yet written.
+         */
+        private final byte[] buffer;
+
+        /**
+         * The number of bytes in the buffer.
+         */
+        private int size;
+
+        /**
+         * The number of bytes encoded.
+         */
+        private int length;
+
+        /**
+         * The MIDI tick of the last event.
+         */
+        private long tick;
+
+        /**
+         * The status of the last channel event, or zero when running status cannot be used.
+         */
+        private int status;
+
+        /**
+         * Constructor
+         *
+         * @param out    The stream to write to, or null to only count the bytes.
+         * @param buffer The buffer to write through.
+         */
+        Track(OutputStream out, byte[] buffer) {
+            this.out = out;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Encodes the start of a track chunk, after which ticks are counted from the beginning of the track.
+         *
+         * @param length The number of bytes in the track.
+         * @throws IOException If the stream cannot be written.
+         */
+        void startChunk(int length) throws IOException {
+            this.writeBytes('M', 'T', 'r', 'k');
+            this.writeInt(length);
+            this.tick = 0;
+            this.status = 0;
+        }
+
+        /**
+         * Encodes a channel event, omitting its status when it repeats that of the last event.
+         *
+         * @param tick   The MIDI tick of the event.
+         * @param status The status of the event.
+         * @param data1  The first data byte.
+         * @param data2  The second data byte.
+         * @throws IOException If the stream cannot be written.
+         */
+        void event(long tick, int status, int data1, int data2) throws IOException {
+            this.delta(tick);
+
+            if (status != this.status) {
+                this.writeByte(status);
+                this.status = status;
+            }
+
+            this.writeByte(data1);
+            this.writeByte(data2);
+        }
+
+        /**
+         * Encodes the start of a meta event, whose data follows.
+         *
+         * @param tick   The MIDI tick of the event.
+         * @param type   The type of the meta event.
+         * @param length The length of its data.
+         * @throws IOException If the stream cannot be written.
+         */
+        void meta(long tick, int type, int length) throws IOException {
+            this.delta(tick);
+            this.writeBytes(0xFF, type);
+            this.writeVariableLength(length);
+            this.status = 0;
+        }
+
+        /**
+         * Encodes the time elapsed since the last event.
+         *
+         * @param tick The MIDI tick of the next event, no earlier than the last.
+         * @throws IOException If the stream cannot be written.
+         */
+        private void delta(long tick) throws IOException {
+            this.writeVariableLength(tick - this.tick);
+            this.tick = tick;
+        }
+
+        /**
+         * Encodes a MIDI variable length quantity, seven bits to a byte with the most significant first.
+         *
+         * @param value The value, less than 2<sup>28</sup>.
+         * @throws IOException If the stream cannot be written.
+         */
+        private void writeVariableLength(long value) throws IOException {
+            if (value < 0 || value >= 1 << 28) {
+                throw new IllegalArgumentException("The piece is too long to be written to MIDI.");
+            }
+
+            for (int shift = 21; shift > 0; shift -= 7) {
+                if (value >= 1L << shift) {
+                    this.writeByte((int) (value >>> shift) | 0x80);
+                }
+            }
+
+            this.writeByte((int) value & 0x7F);
+        }
+
+        /**
+         * Encodes a 32 bit integer, most significant byte first.
+         *
+         * @param value The value.
+         * @throws IOException If the stream cannot be written.
+         */
+        void writeInt(int value) throws IOException {
+            this.writeBytes(value >>> 24, value >>> 16, value >>> 8, value);
+        }
+
+        /**
+         * Encodes a 16 bit integer, most significant byte first.
+         *
+         * @param value The value.
+         * @throws IOException If the stream cannot be written.
+         */
+        void writeShort(int value) throws IOException {
+            this.writeBytes(value >>> 8, value);
+        }
+
+        /**
+         * Encodes bytes given as the low eight bits of integers.
+         *
+         * @param values The bytes.
+         * @throws IOException If the stream cannot be written.
+         */
+        void writeBytes(int... values) throws IOException {
+            for (int value : values) {
+                this.writeByte(value);
+            }
+        }
+
+        /**
+         * Encodes a byte given as the low eight bits of an integer.
+         *
+         * @param value The byte.
+         * @throws IOException If the stream cannot be written.
+         */
+        void writeByte(int value) throws IOException {
+            if (this.out != null) {
+                if (this.size == this.buffer.length) {
+                    this.flush();
+                }
+
+                this.buffer[this.size++] = (byte) value;
+            }
+
+            this.length++;
+        }
+
+        /**
+         * Encodes bytes.
+         *
+         * @param values The bytes.
+         * @throws IOException If the stream cannot be written.
+         */
+        void writeBytes(byte[] values) throws IOException {
+            for (byte value : values) {
+                this.writeByte(value);
+            }
+        }
+
+        /**
+         * Writes the buffered bytes to the stream.
+         *
+         * @throws IOException If the stream cannot be written.
+         */
+        void flush() throws IOException {
+            if (this.out != null) {
+                this.out.write(this.buffer, 0, this.size);
+            }
+
+            this.size = 0;
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package com.drkharma.vmf.io;
+
+import org.apache.commons.lang3.math.Fraction;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Generates synthetic VMF files of arbitrary size for load and scale testing.
+ * <p/>
+ * Generation is deterministic: the same settings and seed always produce the same bytes. The body is written tick
+ * by tick as it is generated, so only the header, whose size depends on the number of measures, is held in memory.
+ * <p/>
+ * Each tick of each voice attacks a new note, sustains the current note or rests, chosen at random according to
+ * the configured weights. A voice which is not sounding cannot sustain, and attacks instead.
+ */
+public class VMFGenerator {
+
+    /**
+     * The time signatures chosen from when the meter changes.
+     */
+    private static final String[] TIME_SIGNATURES = {"2/4", "3/4", "4/4", "3/8", "6/8", "12/8"};
+
+    /**
+     * The lowest octave of generated notes.
+     */
+    private static final int MIN_OCTAVE = 2;
+
+    /**
+     * The number of octaves generated notes span.
+     */
+    private static final int OCTAVE_RANGE = 4;
+
+    /**
+     * The number of ticks in the body of each voice.
+     */
+    private int ticks = 1000;
+
+    /**
+     * The number of parts.
+     */
+    private int parts = 1;
+
+    /**
+     * The number of voices in each part.
+     */
+    private int voicesPerPart = 1;
+
+    /**
+     * The value of a tick as a fraction of a quarter note.
+     */
+    private Fraction tickValue = Fraction.getFraction(1, 4);
+
+    /**
+     * The probability that the time signature changes at the start of a measure.
+     */
+    private double timeSignatureChangeRate = 0;
+
+    /**
+     * The probability that the key signature changes at the start of a measure.
+     */
+    private double keySignatureChangeRate = 0;
+
+    /**
+     * The probability that the tempo changes at the start of a measure.
+     */
+    private double tempoChangeRate = 0;
+
+    /**
+     * The relative weight of attacking a new note.
+     */
+    private int attackWeight = 3;
+
+    /**
+     * The relative weight of sustaining the current note.
+     */
+    private int sustainWeight = 2;
+
+    /**
+     * The relative weight of resting.
+     */
+    private int restWeight = 1;
+
+    /**
+     * Whether to indent the output in the same way as the fixtures, rather than writing it compactly.
+     */
+    private boolean pretty = false;
+
+    /**
+     * Sets the number of ticks in the body of each voice.
+     *
+     * @param ticks The number of ticks.
+     * @return This generator.
+     */
+    public VMFGenerator setTicks(int ticks) {
+        if (ticks < 0) {
+            throw new IllegalArgumentException("The number of ticks cannot be negative.");
+        }
+
+        this.ticks = ticks;
+        return this;
+    }
+
+    /**
+     * Sets the number of parts and the number of voices in each part.
+     *
+     * @param parts         The number of parts.
+     * @param voicesPerPart The number of voices in each part.
+     * @return This generator.
+     */
+    public VMFGenerator setVoices(int parts, int voicesPerPart) {
+        if (parts < 1 || voicesPerPart < 1) {
+            throw new IllegalArgumentException("At least one part and one voice per part are required.");
+        }
+
+        this.parts = parts;
+        this.voicesPerPart = voicesPerPart;
+        return this;
+    }
+
+    /**
+     * Sets the value of a tick as a fraction of a quarter note.
+     *
+     * @param tickValue The value of a tick.
+     * @return This generator.
+     */
+    public VMFGenerator setTickValue(Fraction tickValue) {
+        if (tickValue.compareTo(Fraction.ZERO) <= 0) {
+            throw new IllegalArgumentException("The tick value must be positive.");
+        }
+
+        this.tickValue = tickValue.reduce();
+        return this;
+    }
+
+    /**
+     * Sets the probabilities that the time signature, key signature and tempo change at the start of a measure.
+     *
+     * @param timeSignature The probability of a time signature change.
+     * @param keySignature  The probability of a key signature change.
+     * @param tempo         The probability of a tempo change.
+     * @return This generator.
+     */
+    public VMFGenerator setChangeRates(double timeSignature, double keySignature, double tempo) {
+        this.timeSignatureChangeRate = checkProbability(timeSignature);
+        this.keySignatureChangeRate = checkProbability(keySignature);
+        this.tempoChangeRate = checkProbability(tempo);
+        return this;
+    }
+
+    /**
+     * Sets the relative weights of attacking, sustaining and resting in each tick.
+     *
+     * @param attack  The weight of attacking a new note.
+     * @param sustain The weight of sustaining the current note.
+     * @param rest    The weight of resting.
+     * @return This generator.
+     */
+    public VMFGenerator setWeights(int attack, int sustain, int rest) {
+        if (attack < 0 || sustain < 0 || rest < 0 || attack + sustain + rest == 0) {
+            throw new IllegalArgumentException("The weights must be non-negative and not all zero.");
+        }
+
+        this.attackWeight = attack;
+        this.sustainWeight = sustain;
+        this.restWeight = rest;
+        return this;
+    }
+
+    /**
+     * Sets whether to indent the output in the same way as the fixtures.
+     *
+     * @param pretty True to indent the output, false to write it compactly.
+     * @return This generator.
+     */
+    public VMFGenerator setPretty(boolean pretty) {
+        this.pretty = pretty;
+        return this;
+    }
+
+    /**
+     * Generates a piece and writes it to a stream.
+     *
+     * @param out  The stream to write to. It is flushed but not closed.
+     * @param seed The seed of the piece.
+     * @throws IOException If the stream cannot be written.
+     */
+    public void write(OutputStream out, long seed) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+
+        this.write(writer, seed);
+        writer.flush();
+    }
+
+    /**
+     * Generates a piece and writes it to a file.
+     *
+     * @param file The file to write.
+     * @param seed The seed of the piece.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(Path file, long seed) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            this.write(out, seed);
+        }
+    }
+
+    /**
+     * Generates a piece in memory.
+     *
+     * @param seed The seed of the piece.
+     * @return The piece encoded as UTF-8.
+     */
+    public byte[] toByteArray(long seed) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try {
+            this.write(out, seed);
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to memory cannot fail.", e);
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Generates a corpus of pieces in a directory.
+     * <p/>
+     * The files are named {@code piece-00000.vmf} onwards, and the seed of each piece is the seed of the corpus
+     * plus its index, so that any single piece can be regenerated on its own.
+     *
+     * @param directory The directory to write to, created if necessary.
+     * @param count     The number of pieces to generate.
+     * @param seed      The seed of the corpus.
+     * @return The paths of the generated files, in order.
+     * @throws IOException If a file cannot be written.
+     */
+    public List<Path> writeCorpus(Path directory, int count, long seed) throws IOException {
+        List<Path> files = new ArrayList<Path>(count);
+
+        Files.createDirectories(directory);
+
+        for (int i = 0; i < count; ++i) {
+            Path file = directory.resolve(String.format(Locale.ROOT, "piece-%05d.vmf", i));
+
+            this.write(file, seed + i);
+            files.add(file);
+        }
+
+        return files;
+    }
+
+    /**
+     * Generates a piece and writes it.
+     *
+     * @param writer The writer to write to.
+     * @param seed   The seed of the piece.
+     * @throws IOException If the writer cannot be written.
+     */
+    private void write(Writer writer, long seed) throws IOException {
+        Random random = new Random(seed);
+        JsonIndenter out = new JsonIndenter(writer, this.pretty);
+
+        out.open('{');
+        out.key("header");
+        this.writeHeader(out, random);
+        out.comma();
+        out.key("body");
+        this.writeBody(out, random);
+        out.close('}');
+    }
+
+    /**
+     * Generates and writes the header, drawing the changes of each measure covered by the body.
+     *
+     * @param out    The output.
+     * @param random The random sequence of the piece.
+     * @throws IOException If the output cannot be written.
+     */
+    private void writeHeader(JsonIndenter out, Random random) throws IOException {
+        Map<Integer, String> timeSignatures = new LinkedHashMap<Integer, String>();
+        Map<Integer, String> keySignatures = new LinkedHashMap<Integer, String>();
+        Map<Integer, String> tempi = new LinkedHashMap<Integer, String>();
+
+        String timeSignature = TIME_SIGNATURES[2];
+        Fraction covered = Fraction.ZERO;
+        Fraction length = this.tickValue.multiplyBy(Fraction.getFraction(this.ticks, 1));
+
+        int measures = 0;
+        int tempo = 100;
+
+        do {
+            boolean first = measures == 0;
+
+            if (first || random.nextDouble() < this.timeSignatureChangeRate) {
+                timeSignature = TIME_SIGNATURES[random.nextInt(TIME_SIGNATURES.length)];
+                timeSignatures.put(measures, '"' + timeSignature + '"');
+            }
+
+            if (first || random.nextDouble() < this.keySignatureChangeRate) {
+                keySignatures.put(measures, Integer.toString(random.nextInt(15) - 7));
+            }
+
+            if (first || random.nextDouble() < this.tempoChangeRate) {
+                tempo = 40 + random.nextInt(161);
+                tempi.put(measures, Integer.toString(tempo));
+            }
+
+            covered = covered.add(measureLength(timeSignature));
+            measures++;
+        } while (covered.compareTo(length) < 0);
+
+        out.open('{');
+        out.key("tick_value");
+        out.value('"' + (this.tickValue.getDenominator() == 1
+                ? Integer.toString(this.tickValue.getNumerator()) : this.tickValue.toString()) + '"');
+        out.comma();
+        out.key("number_of_parts");
+        out.value(Integer.toString(this.parts));
+        out.comma();
+        out.key("number_of_voices");
+        out.value(Integer.toString(this.parts * this.voicesPerPart));
+        out.comma();
+        out.key("time_signature");
+        out.entries(timeSignatures);
+        out.comma();
+        out.key("key_signature");
+        out.entries(keySignatures);
+        out.comma();
+        out.key("tempo");
+        out.entries(tempi);
+        out.close('}');
+    }
+
+    /**
+     * Generates and writes the body one tick at a time.
+     *
+     * @param out    The output.
+     * @param random The random sequence of the piece.
+     * @throws IOException If the output cannot be written.
+     */
+    private void writeBody(JsonIndenter out, Random random) throws IOException {
+        int voices = this.parts * this.voicesPerPart;
+        int[] dynamics = new int[voices];
+        int[] pitchClasses = new int[voices];
+        int[] octaves = new int[voices];
+        boolean[] sounding = new boolean[voices];
+        int totalWeight = this.attackWeight + this.sustainWeight + this.restWeight;
+
+        if (this.ticks == 0) {
+            out.empty('[', ']');
+            return;
+        }
+
+        out.open('[');
+
+        for (int i = 0; i < this.ticks; ++i) {
+            if (i > 0) {
+                out.comma();
+            }
+
+            out.open('[');
+
+            for (int v = 0; v < voices; ++v) {
+                int roll = random.nextInt(totalWeight);
+
+                if (v > 0) {
+                    out.comma();
+                }
+
+                if (roll < this.attackWeight || (roll < this.attackWeight + this.sustainWeight && !sounding[v])) {
+                    dynamics[v] = random.nextInt(10) - 5;
+                    if (dynamics[v] >= 0) {
+                        dynamics[v]++;
+                    }
+                    pitchClasses[v] = random.nextInt(12);
+                    octaves[v] = MIN_OCTAVE + random.nextInt(OCTAVE_RANGE);
+                    sounding[v] = true;
+
+                    out.vector(1, dynamics[v], 0, pitchClasses[v], octaves[v]);
+                } else if (roll < this.attackWeight + this.sustainWeight) {
+                    out.vector(2, dynamics[v], 0, pitchClasses[v], octaves[v]);
+                } else {
+                    sounding[v] = false;
+
+                    out.vector(0, 0, 0, 0, 0);
+                }
+            }
+
+            out.close(']');
+        }
+
+        out.close(']');
+    }
+
+    /**
+     * Calculates the length of a measure in quarter notes.
+     *
+     * @param timeSignature The time signature of the measure, such as {@code "6/8"}.
+     * @return The length of the measure.
+     */
+    private static Fraction measureLength(String timeSignature) {
+        String[] parts = timeSignature.split("/");
+
+        return Fraction.getFraction(Integer.parseInt(parts[0]) * 4, Integer.parseInt(parts[1]));
+    }
+
+    /**
+     * Validates a probability.
+     *
+     * @param probability The probability.
+     * @return The probability.
+     */
+    private static double checkProbability(double probability) {
+        if (probability < 0 || probability > 1) {
+            throw new IllegalArgumentException("A probability must be between 0 and 1.");
+        }
+
+        return probability;
+    }
+}
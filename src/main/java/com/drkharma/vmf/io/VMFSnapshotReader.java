@@ -0,0 +1,226 @@
+package com.drkharma.vmf.io;
+
+import com.drkharma.vmf.*;
+import org.apache.commons.lang3.math.Fraction;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads snapshots written by a {@link VMFSnapshotWriter}.
+ * <p/>
+ * Each snapshot is loaded with a single read of its payload, which is then decoded from memory.
+ */
+public class VMFSnapshotReader implements Closeable {
+
+    /**
+     * The stream to read from.
+     */
+    private final DataInputStream in;
+
+    /**
+     * Constructor
+     *
+     * @param in The stream to read snapshots from.
+     */
+    public VMFSnapshotReader(InputStream in) {
+        this.in = new DataInputStream(in);
+    }
+
+    /**
+     * Reads the next snapshot.
+     *
+     * @return The music held in the snapshot.
+     * @throws EOFException If the stream ends before the snapshot is complete.
+     * @throws IOException  If the stream does not hold a snapshot or it is malformed.
+     */
+    public VectorMusic read() throws IOException {
+        byte[] magic = new byte[VMFSnapshotWriter.MAGIC.length];
+
+        this.in.readFully(magic);
+
+        if (!Arrays.equals(magic, VMFSnapshotWriter.MAGIC)) {
+            throw new IOException("The stream does not contain a VMF snapshot.");
+        }
+
+        int version = this.in.readUnsignedByte();
+
+        if (version != VMFSnapshotWriter.VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ".");
+        }
+
+        int length = this.in.readInt();
+
+        if (length < 0) {
+            throw new IOException("Malformed snapshot length.");
+        }
+
+        byte[] payload = new byte[length];
+        this.in.readFully(payload);
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(payload);
+            VectorMusicHeader header = readHeader(buffer);
+
+            return new VectorMusic(header, readNotes(buffer));
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Malformed snapshot.", e);
+        }
+    }
+
+    /**
+     * Closes the underlying stream.
+     *
+     * @throws IOException If the stream cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+
+    /**
+     * Decodes the header of a piece.
+     *
+     * @param buffer The payload.
+     * @return The header.
+     */
+    private static VectorMusicHeader readHeader(ByteBuffer buffer) {
+        VectorMusicHeader header = new VectorMusicHeader();
+
+        if (buffer.get() != 0) {
+            header.setId(new UUID(buffer.getLong(), buffer.getLong()));
+        } else {
+            header.setId(null);
+        }
+
+        header.setName(readString(buffer));
+
+        if (buffer.get() != 0) {
+            header.setTickValue(Fraction.getFraction(VarInt.readSignedInt(buffer), VarInt.readSignedInt(buffer)));
+        }
+
+        header.setNumberOfParts(VarInt.readSignedInt(buffer));
+        header.setNumberOfVoices(VarInt.readSignedInt(buffer));
+
+        int size = readSize(buffer);
+        if (size < 0) {
+            header.setTimeSignatures(null);
+        } else {
+            List<TimeSignature> timeSignatures = new ArrayList<TimeSignature>(size);
+
+            for (int i = 0; i < size; ++i) {
+                int measure = VarInt.readSignedInt(buffer);
+                int upper = VarInt.readSignedInt(buffer);
+                int lower = VarInt.readSignedInt(buffer);
+
+                timeSignatures.add(new TimeSignature(measure, upper + "/" + lower));
+            }
+
+            header.setTimeSignatures(timeSignatures);
+        }
+
+        size = readSize(buffer);
+        if (size < 0) {
+            header.setKeySignatures(null);
+        } else {
+            List<KeySignatureInstance> keySignatures = new ArrayList<KeySignatureInstance>(size);
+
+            for (int i = 0; i < size; ++i) {
+                int measure = VarInt.readSignedInt(buffer);
+                KeySignature keySignature = KeySignature.getKeySignature(buffer.get());
+
+                keySignatures.add(new KeySignatureInstance(measure, keySignature));
+            }
+
+            header.setKeySignatures(keySignatures);
+        }
+
+        size = readSize(buffer);
+        if (size < 0) {
+            header.setMetronomeMarkings(null);
+        } else {
+            List<MetronomeMarking> metronomeMarkings = new ArrayList<MetronomeMarking>(size);
+
+            for (int i = 0; i < size; ++i) {
+                int measure = VarInt.readSignedInt(buffer);
+
+                metronomeMarkings.add(new MetronomeMarking(measure, VarInt.readSignedInt(buffer)));
+            }
+
+            header.setMetronomeMarkings(metronomeMarkings);
+        }
+
+        return header;
+    }
+
+    /**
+     * Decodes the notes of a piece.
+     *
+     * @param buffer The payload.
+     * @return The notes, or null if a null list was written.
+     */
+    private static List<Note> readNotes(ByteBuffer buffer) {
+        int size = readSize(buffer);
+
+        if (size < 0) {
+            return null;
+        }
+
+        PackedNoteList notes = new PackedNoteList(size);
+
+        for (int i = 0; i < size; ++i) {
+            byte dynamic = buffer.get();
+            byte articulation = buffer.get();
+            byte pitchClass = buffer.get();
+            int octave = VarInt.readSignedInt(buffer);
+            int duration = VarInt.readSignedInt(buffer);
+            int offset = VarInt.readSignedInt(buffer);
+
+            notes.add(dynamic, articulation, pitchClass, octave, offset, duration);
+        }
+
+        return notes;
+    }
+
+    /**
+     * Decodes the size of a list.
+     *
+     * @param buffer The payload.
+     * @return The size of the list, or -1 for a null list.
+     */
+    private static int readSize(ByteBuffer buffer) {
+        int size = VarInt.readInt(buffer) - 1;
+
+        // Guard against sizes which could not possibly fit in the remaining payload.
+        if (size > buffer.remaining()) {
+            throw new IllegalArgumentException("List size exceeds the snapshot.");
+        }
+
+        return size;
+    }
+
+    /**
+     * Decodes a string.
+     *
+     * @param buffer The payload.
+     * @return The string, or null if a null string was written.
+     */
+    private static String readString(ByteBuffer buffer) {
+        int length = readSize(buffer);
+
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,194 @@
+package com.drkharma.vmf.io;
+
+import com.drkharma.vmf.*;
+import org.apache.commons.lang3.math.Fraction;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Writes a {@link VectorMusic} in a compact binary snapshot format which can be loaded far faster than VMF.
+ * <p/>
+ * A snapshot consists of the magic bytes {@code VMFS}, a version byte and the length of the payload as a 32 bit
+ * integer, followed by the payload. Within the payload, integers are variable length encoded, VMF codes are
+ * single bytes and every list is preceded by its size plus one, with zero standing for a null list.
+ *
+ * @see VMFSnapshotReader
+ */
+public class VMFSnapshotWriter implements Closeable {
+
+    /**
+     * The bytes which begin every snapshot.
+     */
+    static final byte[] MAGIC = {'V', 'M', 'F', 'S'};
+
+    /**
+     * The version of the snapshot format written.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The stream to write to.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * Constructor
+     *
+     * @param out The stream to write snapshots to.
+     */
+    public VMFSnapshotWriter(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+    }
+
+    /**
+     * Writes a snapshot of a piece of music.
+     *
+     * @param music The music to write.
+     * @throws IOException If the stream cannot be written.
+     */
+    public void write(VectorMusic music) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+
+        writeHeader(payload, music.getHeader());
+        writeNotes(payload, music.getNotes());
+
+        this.out.write(MAGIC);
+        this.out.writeByte(VERSION);
+        this.out.writeInt(payload.size());
+        payload.writeTo(this.out);
+        this.out.flush();
+    }
+
+    /**
+     * Flushes and closes the underlying stream.
+     *
+     * @throws IOException If the stream cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.out.close();
+    }
+
+    /**
+     * Encodes the header of a piece.
+     *
+     * @param payload The payload being built.
+     * @param header  The header to encode.
+     */
+    private static void writeHeader(ByteArrayOutputStream payload, VectorMusicHeader header) {
+        UUID id = header.getId();
+        Fraction tickValue = header.getTickValue();
+
+        if (id == null) {
+            payload.write(0);
+        } else {
+            payload.write(1);
+            writeLong(payload, id.getMostSignificantBits());
+            writeLong(payload, id.getLeastSignificantBits());
+        }
+
+        writeString(payload, header.getName());
+
+        if (tickValue == null) {
+            payload.write(0);
+        } else {
+            payload.write(1);
+            VarInt.writeSigned(payload, tickValue.getNumerator());
+            VarInt.writeSigned(payload, tickValue.getDenominator());
+        }
+
+        VarInt.writeSigned(payload, header.getNumberOfParts());
+        VarInt.writeSigned(payload, header.getNumberOfVoices());
+
+        writeSize(payload, header.getTimeSignatures());
+        if (header.getTimeSignatures() != null) {
+            for (TimeSignature timeSignature : header.getTimeSignatures()) {
+                VarInt.writeSigned(payload, timeSignature.getMeasure());
+                VarInt.writeSigned(payload, timeSignature.getUpper());
+                VarInt.writeSigned(payload, timeSignature.getLower());
+            }
+        }
+
+        writeSize(payload, header.getKeySignatures());
+        if (header.getKeySignatures() != null) {
+            for (KeySignatureInstance keySignature : header.getKeySignatures()) {
+                VarInt.writeSigned(payload, keySignature.getMeasure());
+                payload.write(keySignature.getKeySignature().getKeySignatureCode());
+            }
+        }
+
+        writeSize(payload, header.getMetronomeMarkings());
+        if (header.getMetronomeMarkings() != null) {
+            for (MetronomeMarking tempo : header.getMetronomeMarkings()) {
+                VarInt.writeSigned(payload, tempo.getMeasure());
+                VarInt.writeSigned(payload, tempo.getQuarterBPM());
+            }
+        }
+    }
+
+    /**
+     * Encodes the notes of a piece.
+     *
+     * @param payload The payload being built.
+     * @param notes   The notes to encode.
+     */
+    private static void writeNotes(ByteArrayOutputStream payload, Collection<Note> notes) {
+        writeSize(payload, notes);
+
+        if (notes == null) {
+            return;
+        }
+
+        for (Note note : notes) {
+            payload.write(note.getDynamic().getDynamicCode());
+            payload.write(note.getArticulation().getArticulationCode());
+            payload.write(note.getPitchClass().getPitchClassCode());
+            VarInt.writeSigned(payload, note.getOctave());
+            VarInt.writeSigned(payload, note.getDuration());
+            VarInt.writeSigned(payload, note.getOffset());
+        }
+    }
+
+    /**
+     * Encodes the size of a list, or zero for a null list.
+     *
+     * @param payload The payload being built.
+     * @param list    The list.
+     */
+    private static void writeSize(ByteArrayOutputStream payload, Collection<?> list) {
+        VarInt.write(payload, list == null ? 0 : list.size() + 1L);
+    }
+
+    /**
+     * Encodes a string as UTF-8, preceded by its length plus one, with zero standing for a null string.
+     *
+     * @param payload The payload being built.
+     * @param value   The string.
+     */
+    private static void writeString(ByteArrayOutputStream payload, String value) {
+        if (value == null) {
+            VarInt.write(payload, 0);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        VarInt.write(payload, bytes.length + 1L);
+        payload.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Encodes a long as eight big endian bytes.
+     *
+     * @param payload The payload being built.
+     * @param value   The value.
+     */
+    private static void writeLong(ByteArrayOutputStream payload, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            payload.write((int) (value >>> shift));
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.drkharma.vmf.io;
+
+import com.drkharma.vmf.*;
+import org.apache.commons.lang3.math.Fraction;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Writes music back to VMF.
+ * <p/>
+ * The body is expanded from the notes one tick at a time as it is written, keeping only the position of each voice,
+ * so memory does not grow with the length of the piece. By default the output is indented as the fixtures are, by
+ * two spaces per level.
+ * <p/>
+ * A piece parsed with {@link com.drkharma.vmf.parser.VMFParser#parseVoices()} is written back byte for byte if its
+ * header is complete. The parser fills in a missing key signature with C major and a missing tempo with 100 at
+ * measure 0, and those defaults are written out explicitly, so an empty {@code "key_signature"} or {@code "tempo"}
+ * section is written back with that single entry.
+ * <p/>
+ * The notes do not record rests after the last note of a voice, so the body ends with the last tick at which a
+ * voice sounds.
+ */
+public class VMFWriter implements Closeable {
+
+    /**
+     * The size of the buffer used when writing to a stream or channel.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The writer to write to.
+     */
+    private final Writer writer;
+
+    /**
+     * Whether to indent the output.
+     */
+    private final boolean pretty;
+
+    /**
+     * Constructor writing indented output.
+     *
+     * @param writer The writer to write VMF to.
+     */
+    public VMFWriter(Writer writer) {
+        this(writer, true);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param writer The writer to write VMF to.
+     * @param pretty True to indent the output, false to write it compactly.
+     */
+    public VMFWriter(Writer writer, boolean pretty) {
+        this.writer = writer;
+        this.pretty = pretty;
+    }
+
+    /**
+     * Constructor writing indented output encoded as UTF-8.
+     *
+     * @param out The stream to write VMF to.
+     */
+    public VMFWriter(OutputStream out) {
+        this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE));
+    }
+
+    /**
+     * Constructor writing indented output encoded as UTF-8.
+     *
+     * @param channel The channel to write VMF to.
+     */
+    public VMFWriter(WritableByteChannel channel) {
+        this(new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1), BUFFER_SIZE));
+    }
+
+    /**
+     * Writes a single voice as a VMF file.
+     *
+     * @param music The voice to write.
+     * @throws IOException If the writer cannot be written.
+     * @see #write(List)
+     */
+    public void write(VectorMusic music) throws IOException {
+        this.write(Collections.singletonList(music));
+    }
+
+    /**
+     * Writes the voices of a piece as a VMF file, one vector for each voice in every tick.
+     *
+     * @param voices The voices to write, which share the header of the first.
+     * @throws IOException              If the writer cannot be written.
+     * @throws IllegalArgumentException If there are no voices, or the notes of a voice overlap.
+     */
+    public void write(List<VectorMusic> voices) throws IOException {
+        if (voices.isEmpty()) {
+            throw new IllegalArgumentException("At least one voice is required.");
+        }
+
+        JsonIndenter out = new JsonIndenter(this.writer, this.pretty);
+
+        out.open('{');
+        out.key("header");
+        writeHeader(out, voices.get(0).getHeader());
+        out.comma();
+        out.key("body");
+        writeBody(out, voices);
+        out.close('}');
+
+        this.writer.flush();
+    }
+
+    /**
+     * Closes the underlying writer.
+     *
+     * @throws IOException If the writer cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+
+    /**
+     * Writes the header.
+     *
+     * @param out    The output.
+     * @param header The header of the piece.
+     * @throws IOException If the output cannot be written.
+     */
+    private static void writeHeader(JsonIndenter out, VectorMusicHeader header) throws IOException {
+        Map<Integer, String> timeSignatures = new LinkedHashMap<Integer, String>();
+        Map<Integer, String> keySignatures = new LinkedHashMap<Integer, String>();
+        Map<Integer, String> tempi = new LinkedHashMap<Integer, String>();
+        Fraction tickValue = header.getTickValue();
+
+        for (TimeSignature timeSignature : header.getTimeSignatures()) {
+            timeSignatures.put(timeSignature.getMeasure(),
+                    "\"" + timeSignature.getUpper() + "/" + timeSignature.getLower() + "\"");
+        }
+        for (KeySignatureInstance keySignature : header.getKeySignatures()) {
+            keySignatures.put(keySignature.getMeasure(),
+                    Integer.toString(keySignature.getKeySignature().getKeySignatureCode()));
+        }
+        for (MetronomeMarking metronomeMarking : header.getMetronomeMarkings()) {
+            tempi.put(metronomeMarking.getMeasure(), Integer.toString(metronomeMarking.getQuarterBPM()));
+        }
+
+        out.open('{');
+        out.key("tick_value");
+        out.value('"' + (tickValue.getDenominator() == 1
+                ? Integer.toString(tickValue.getNumerator()) : tickValue.toString()) + '"');
+        out.comma();
+        out.key("number_of_parts");
+        out.value(Integer.toString(header.getNumberOfParts()));
+        out.comma();
+        out.key("number_of_voices");
+        out.value(Integer.toString(header.getNumberOfVoices()));
+        out.comma();
+        out.key("time_signature");
+        out.entries(timeSignatures);
+        out.comma();
+        out.key("key_signature");
+        out.entries(keySignatures);
+        out.comma();
+        out.key("tempo");
+        out.entries(tempi);
+        out.close('}');
+    }
+
+    /**
+     * Writes the body one tick at a time, attacking, sustaining or resting each voice in turn.
+     *
+     * @param out    The output.
+     * @param voices The voices of the piece.
+     * @throws IOException If the output cannot be written.
+     */
+    private static void writeBody(JsonIndenter out, List<VectorMusic> voices) throws IOException {
+        int count = voices.size();
+        List<List<Note>> notes = new ArrayList<List<Note>>(count);
+        int[] next = new int[count];
+        int[] onsets = new int[count];
+        int[] ends = new int[count];
+        int ticks = 0;
+
+        // Find the onset of the first note of each voice, and the tick at which the last voice falls silent.
+        for (int v = 0; v < count; ++v) {
+            List<Note> voice = voices.get(v).getNotes();
+            int onset = 0;
+
+            for (Note note : voice) {
+                onset += note.getOffset();
+            }
+
+            notes.add(voice);
+            onsets[v] = voice.isEmpty() ? Integer.MAX_VALUE : voice.get(0).getOffset();
+
+            if (!voice.isEmpty()) {
+                ticks = Math.max(ticks, onset + voice.get(voice.size() - 1).getDuration());
+            }
+        }
+
+        if (ticks == 0) {
+            out.empty('[', ']');
+            return;
+        }
+
+        out.open('[');
+
+        for (int tick = 0; tick < ticks; ++tick) {
+            if (tick > 0) {
+                out.comma();
+            }
+
+            out.open('[');
+
+            for (int v = 0; v < count; ++v) {
+                if (v > 0) {
+                    out.comma();
+                }
+
+                if (tick == onsets[v]) {
+                    List<Note> voice = notes.get(v);
+                    Note note = voice.get(next[v]++);
+
+                    ends[v] = tick + note.getDuration();
+                    onsets[v] = next[v] < voice.size() ? tick + voice.get(next[v]).getOffset() : Integer.MAX_VALUE;
+
+                    if (onsets[v] < Math.max(ends[v], tick + 1)) {
+                        throw new IllegalArgumentException("The notes of voice " + v + " overlap at tick " + tick
+                                + ".");
+                    }
+
+                    vector(out, 1, note);
+                } else if (tick < ends[v]) {
+                    vector(out, 2, notes.get(v).get(next[v] - 1));
+                } else {
+                    out.vector(0, 0, 0, 0, 0);
+                }
+            }
+
+            out.close(']');
+        }
+
+        out.close(']');
+    }
+
+    /**
+     * Writes the vector of a voice which is sounding.
+     *
+     * @param out   The output.
+     * @param state The state of the voice, attacking or sustaining.
+     * @param note  The note sounding.
+     * @throws IOException If the output cannot be written.
+     */
+    private static void vector(JsonIndenter out, int state, Note note) throws IOException {
+        out.vector(state, note.getDynamic().getDynamicCode(), note.getArticulation().getArticulationCode(),
+                note.getPitchClass().getPitchClassCode(), note.getOctave());
+    }
+}
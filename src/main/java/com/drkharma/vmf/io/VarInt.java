@@ -0,0 +1,128 @@
+package com.drkharma.vmf.io;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Variable length encoding of integers, seven bits per byte with the high bit marking continuation.
+ * <p/>
+ * Signed values are zigzag encoded first so that numbers close to zero are short whatever their sign.
+ */
+public final class VarInt {
+
+    /**
+     * Utility class, not instantiable.
+     */
+    private VarInt() {
+    }
+
+    /**
+     * Writes an unsigned value.
+     *
+     * @param out   The stream to write to.
+     * @param value The value, treated as unsigned.
+     */
+    public static void write(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        out.write((int) value);
+    }
+
+    /**
+     * Writes a signed value.
+     *
+     * @param out   The stream to write to.
+     * @param value The value.
+     */
+    public static void writeSigned(ByteArrayOutputStream out, long value) {
+        write(out, (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Writes an unsigned value into a buffer.
+     *
+     * @param out   The buffer to write to.
+     * @param value The value, treated as unsigned.
+     */
+    public static void write(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        out.put((byte) value);
+    }
+
+    /**
+     * Reads an unsigned value.
+     *
+     * @param in The buffer to read from.
+     * @return The value.
+     * @throws BufferUnderflowException If the buffer ends within the value.
+     * @throws IllegalArgumentException If the value is longer than 64 bits.
+     */
+    public static long read(ByteBuffer in) {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+
+            if (b >= 0) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException("Malformed variable length integer.");
+    }
+
+    /**
+     * Reads a signed value.
+     *
+     * @param in The buffer to read from.
+     * @return The value.
+     */
+    public static long readSigned(ByteBuffer in) {
+        long value = read(in);
+
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads an unsigned value which must fit in an int.
+     *
+     * @param in The buffer to read from.
+     * @return The value.
+     * @throws IllegalArgumentException If the value does not fit in an int.
+     */
+    public static int readInt(ByteBuffer in) {
+        long value = read(in);
+
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Variable length integer out of range.");
+        }
+
+        return (int) value;
+    }
+
+    /**
+     * Reads a signed value which must fit in an int.
+     *
+     * @param in The buffer to read from.
+     * @return The value.
+     * @throws IllegalArgumentException If the value does not fit in an int.
+     */
+    public static int readSignedInt(ByteBuffer in) {
+        long value = readSigned(in);
+
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Variable length integer out of range.");
+        }
+
+        return (int) value;
+    }
+}
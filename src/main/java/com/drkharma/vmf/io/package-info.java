@@ -0,0 +1,4 @@
+/**
+ * Readers and writers for serialized forms of the Java object model.
+ */
+package com.drkharma.vmf.io;
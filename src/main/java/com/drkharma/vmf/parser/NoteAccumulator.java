@@ -0,0 +1,114 @@
+package com.drkharma.vmf.parser;
+
+import com.drkharma.vmf.Note;
+
+import java.io.IOException;
+
+/**
+ * Forms the notes of a single voice from its sequence of tick vectors.
+ * <p/>
+ * A note is only handed out once it is complete, that is, when the next note is attacked or the body ends.
+ * This allows notes to be emitted as ticks are consumed without revisiting them afterwards.
+ */
+final class NoteAccumulator {
+
+    /**
+     * The tick state for a rest.
+     */
+    static final int REST = 0;
+
+    /**
+     * The tick state for the attack of a new note.
+     */
+    static final int ATTACK = 1;
+
+    /**
+     * The tick state for the continuation of the current note.
+     */
+    static final int SUSTAIN = 2;
+
+    /**
+     * The note currently sounding, which may still be extended by sustained ticks.
+     */
+    private Note currentNote;
+
+    /**
+     * The number of ticks since the beginning of the current note.
+     */
+    private int currentOffset;
+
+    /**
+     * Creates an accumulator for a voice starting at the beginning of the music.
+     */
+    NoteAccumulator() {
+        this(0);
+    }
+
+    /**
+     * Creates an accumulator for a voice which has been resting for a number of ticks.
+     *
+     * @param offset The number of ticks elapsed since the beginning of the music.
+     */
+    NoteAccumulator(int offset) {
+        this.currentOffset = offset;
+    }
+
+    /**
+     * Gets the number of ticks since the beginning of the current note, which is the offset the next note will have.
+     *
+     * @return The number of ticks.
+     */
+    int getOffset() {
+        return this.currentOffset;
+    }
+
+    /**
+     * Consumes a single tick.
+     *
+     * @param tick The tick vector: state, dynamic, articulation, pitch class and octave.
+     * @return The previous note if this tick attacks a new note, otherwise null.
+     * @throws IOException If the tick sustains a note when no note has been attacked.
+     */
+    Note accept(int[] tick) throws IOException {
+        Note completed = null;
+
+        // Check the first dimension, if it is 1, a new note is attacked.
+        if (tick[0] == ATTACK) {
+            completed = this.currentNote;
+            this.currentNote = new Note(tick[1], tick[2], tick[3], tick[4], this.currentOffset);
+
+            // Reset the offset for the next note.
+            this.currentOffset = 1;
+        } else if (tick[0] == SUSTAIN) {
+            if (this.currentNote == null) {
+                throw new IOException("A sustained tick must follow an attacked note.");
+            }
+
+            this.currentNote.incrementDuration();
+            this.currentOffset++;
+        } else if (tick[0] == REST) {
+            this.rest();
+        }
+
+        return completed;
+    }
+
+    /**
+     * Consumes a tick in which the voice is resting.
+     */
+    void rest() {
+        this.currentOffset++;
+    }
+
+    /**
+     * Completes the voice at the end of the body.
+     *
+     * @return The note which was still sounding, or null if no note was attacked.
+     */
+    Note finish() {
+        Note completed = this.currentNote;
+        this.currentNote = null;
+
+        return completed;
+    }
+}
@@ -0,0 +1,329 @@
+package com.drkharma.vmf.parser;
+
+import com.drkharma.vmf.Note;
+import com.drkharma.vmf.VectorMusicHeader;
+import com.drkharma.vmf.parser.exception.TimeSignatureMissingException;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the header and then the notes of a VMF file as they are decoded, as fast as a subscriber asks for them.
+ * <p/>
+ * This follows the protocol of reactive streams: the subscriber is handed a {@link Subscription} and requests notes
+ * through it, and no more notes are decoded than it has requested. The header is delivered once, before the first
+ * note and without being counted against the demand. The stream ends with exactly one call to
+ * {@link Subscriber#onComplete()} or {@link Subscriber#onError(Throwable)}, unless it is cancelled first, and the
+ * parser is closed when it ends.
+ * <p/>
+ * Notes are decoded and delivered on the executor, or on the thread which requests them when none is given. Either
+ * way, the calls to a subscriber never overlap, and a subscriber which requests more notes from within
+ * {@link Subscriber#onNext(Note)} does not recurse. A file can be published to only one subscriber.
+ */
+public class NotePublisher {
+
+    /**
+     * The parser of the file.
+     */
+    private final VMFStreamParser parser;
+
+    /**
+     * The executor on which notes are decoded and delivered.
+     */
+    private final Executor executor;
+
+    /**
+     * Whether the file has been published to a subscriber.
+     */
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    /**
+     * Receives the header and notes of a file.
+     */
+    public interface Subscriber {
+
+        /**
+         * Called first, before any other method, with the subscription through which notes are requested.
+         *
+         * @param subscription The subscription.
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Called once, when notes are first requested, before the first note.
+         *
+         * @param header The header of the file.
+         */
+        void onHeader(VectorMusicHeader header);
+
+        /**
+         * Called with each note, in order, no more often than notes have been requested.
+         *
+         * @param note The note.
+         */
+        void onNext(Note note);
+
+        /**
+         * Called when the file cannot be parsed. No other method is called afterwards.
+         *
+         * @param error The reason parsing failed.
+         */
+        void onError(Throwable error);
+
+        /**
+         * Called after the last note. No other method is called afterwards.
+         */
+        void onComplete();
+    }
+
+    /**
+     * Links a subscriber to the notes of a file.
+     */
+    public interface Subscription {
+
+        /**
+         * Requests more notes. Requests add up, and a total of {@link Long#MAX_VALUE} or more is unbounded.
+         *
+         * @param n The number of notes, which must be positive, or the stream ends with an error.
+         */
+        void request(long n);
+
+        /**
+         * Stops the delivery of notes and closes the parser. Notes already being delivered may still arrive.
+         */
+        void cancel();
+    }
+
+    /**
+     * Creates a publisher which decodes notes on the thread that requests them.
+     *
+     * @param parser The parser of the file, whose header and notes have not been read.
+     */
+    public NotePublisher(VMFStreamParser parser) {
+        this(parser, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+    }
+
+    /**
+     * Creates a publisher which decodes notes on an executor.
+     *
+     * @param parser   The parser of the file, whose header and notes have not been read.
+     * @param executor The executor on which notes are decoded and delivered.
+     */
+    public NotePublisher(VMFStreamParser parser, Executor executor) {
+        this.parser = parser;
+        this.executor = executor;
+    }
+
+    /**
+     * Publishes the file to a subscriber. Nothing is decoded until it requests notes.
+     *
+     * @param subscriber The subscriber.
+     */
+    public void subscribe(Subscriber subscriber) {
+        if (!this.subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("A file can be published to only one subscriber."));
+
+            return;
+        }
+
+        Emitter emitter = new Emitter(subscriber);
+        subscriber.onSubscribe(emitter);
+    }
+
+    /**
+     * Delivers the notes of the file to its subscriber as they are requested.
+     * <p/>
+     * Every request and cancellation counts as work, and whichever thread finds no work in progress delivers until
+     * there is none left, so only one thread calls the subscriber at a time.
+     */
+    private final class Emitter implements Subscription, Runnable {
+
+        /**
+         * The subscriber.
+         */
+        private final Subscriber subscriber;
+
+        /**
+         * The number of notes requested but not yet delivered.
+         */
+        private final AtomicLong demand = new AtomicLong();
+
+        /**
+         * The amount of work scheduled and not yet done.
+         */
+        private final AtomicInteger work = new AtomicInteger();
+
+        /**
+         * Whether the stream has been cancelled.
+         */
+        private volatile boolean cancelled;
+
+        /**
+         * An invalid request, reported by the delivering thread.
+         */
+        private volatile Throwable invalid;
+
+        /**
+         * Whether the header has been delivered.
+         */
+        private boolean headerDelivered;
+
+        /**
+         * Whether the stream has ended and the parser has been closed.
+         */
+        private boolean done;
+
+        /**
+         * Constructor
+         *
+         * @param subscriber The subscriber.
+         */
+        Emitter(Subscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                this.invalid = new IllegalArgumentException("The number of notes requested must be positive.");
+            } else {
+                long current, next;
+
+                do {
+                    current = this.demand.get();
+                    next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                } while (!this.demand.compareAndSet(current, next));
+            }
+
+            this.schedule();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            this.schedule();
+        }
+
+        /**
+         * Delivers until no work is left.
+         */
+        @Override
+        public void run() {
+            int missed = 1;
+
+            do {
+                this.deliver();
+                missed = this.work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Starts delivering unless another thread already is.
+         */
+        private void schedule() {
+            if (this.work.getAndIncrement() == 0) {
+                NotePublisher.this.executor.execute(this);
+            }
+        }
+
+        /**
+         * Delivers the header and as many notes as have been requested, ending the stream when the file is finished,
+         * cancelled or cannot be parsed.
+         */
+        private void deliver() {
+            if (this.done) {
+                return;
+            }
+
+            if (this.cancelled) {
+                this.end();
+                return;
+            }
+
+            if (this.invalid != null) {
+                this.fail(this.invalid);
+                return;
+            }
+
+            VMFStreamParser parser = NotePublisher.this.parser;
+
+            while (this.demand.get() > 0 && !this.cancelled && this.invalid == null) {
+                if (!this.headerDelivered) {
+                    VectorMusicHeader header;
+
+                    try {
+                        header = parser.readHeader();
+                    } catch (IOException | TimeSignatureMissingException | RuntimeException e) {
+                        this.fail(e);
+                        return;
+                    }
+
+                    this.headerDelivered = true;
+                    this.subscriber.onHeader(header);
+                    continue;
+                }
+
+                Note note;
+
+                try {
+                    note = parser.nextNote();
+                } catch (IOException | RuntimeException e) {
+                    this.fail(e);
+                    return;
+                }
+
+                if (note == null) {
+                    this.end();
+                    this.subscriber.onComplete();
+                    return;
+                }
+
+                if (this.demand.get() != Long.MAX_VALUE) {
+                    this.demand.decrementAndGet();
+                }
+
+                this.subscriber.onNext(note);
+            }
+        }
+
+        /**
+         * Ends the stream with an error.
+         *
+         * @param error The reason the stream ended.
+         */
+        private void fail(Throwable error) {
+            this.end();
+            this.subscriber.onError(error);
+        }
+
+        /**
+         * Ends the stream and closes the parser.
+         */
+        private void end() {
+            this.done = true;
+
+            try {
+                NotePublisher.this.parser.close();
+            } catch (IOException e) {
+                // The stream has already ended, so there is nothing to report the failure to.
+            }
+        }
+    }
+}
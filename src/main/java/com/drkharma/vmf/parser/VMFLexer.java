@@ -0,0 +1,433 @@
+package com.drkharma.vmf.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A minimal pull tokenizer for the JSON subset used by VMF files.
+ * <p/>
+ * Bytes are consumed directly from a {@link ByteBuffer} which is either refilled from a channel or holds the
+ * complete document. No tree is built; callers walk the document structure with {@link #expect(char)},
+ * {@link #readString()}, {@link #readInt()} and {@link #skipValue()}.
+ */
+final class VMFLexer {
+
+    /**
+     * The size of the read buffer used when consuming a channel.
+     */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The buffer from which bytes are consumed.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The channel used to refill the buffer, or null if the buffer holds the whole document.
+     */
+    private final ReadableByteChannel channel;
+
+    /**
+     * Scratch space for building strings.
+     */
+    private final StringBuilder scratch;
+
+    /**
+     * The number of bytes of input before the start of the buffer, less the initial position of the buffer.
+     */
+    private long discarded;
+
+    /**
+     * Creates a lexer which reads from a channel through a bounded buffer.
+     *
+     * @param channel The channel to read from.
+     */
+    VMFLexer(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.buffer.flip();
+        this.scratch = new StringBuilder();
+    }
+
+    /**
+     * Creates a lexer which reads the remaining bytes of a buffer.
+     *
+     * @param buffer The buffer holding the document.
+     */
+    VMFLexer(ByteBuffer buffer) {
+        this.channel = null;
+        this.buffer = buffer;
+        this.scratch = new StringBuilder();
+        this.discarded = -buffer.position();
+    }
+
+    /**
+     * Skips whitespace and returns the next significant character without consuming it.
+     *
+     * @return The next character, or -1 at the end of input.
+     * @throws IOException If the underlying channel cannot be read.
+     */
+    int peek() throws IOException {
+        while (true) {
+            if (!this.buffer.hasRemaining() && !this.fill()) {
+                return -1;
+            }
+
+            byte b = this.buffer.get(this.buffer.position());
+
+            if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                this.buffer.position(this.buffer.position() + 1);
+            } else {
+                return b;
+            }
+        }
+    }
+
+    /**
+     * Consumes the next significant character, which must be {@code c}.
+     *
+     * @param c The expected character.
+     * @throws IOException If a different character or the end of input is found.
+     */
+    void expect(char c) throws IOException {
+        int actual = this.peek();
+
+        if (actual != c) {
+            throw this.error("Expected '" + c + "'", actual);
+        }
+
+        this.buffer.position(this.buffer.position() + 1);
+    }
+
+    /**
+     * Consumes the next significant character if it is {@code c}.
+     *
+     * @param c The character to consume.
+     * @return True if the character was consumed.
+     * @throws IOException If the underlying channel cannot be read.
+     */
+    boolean consume(char c) throws IOException {
+        if (this.peek() == c) {
+            this.buffer.position(this.buffer.position() + 1);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Consumes a separating comma, or reports that the enclosing container ends with {@code close}.
+     *
+     * @param close The closing character of the enclosing container.
+     * @return True if another element follows, false if the container was closed.
+     * @throws IOException If neither a comma nor {@code close} is found.
+     */
+    boolean next(char close) throws IOException {
+        int c = this.peek();
+
+        if (c == ',') {
+            this.buffer.position(this.buffer.position() + 1);
+            return true;
+        } else if (c == close) {
+            this.buffer.position(this.buffer.position() + 1);
+            return false;
+        }
+
+        throw this.error("Expected ',' or '" + close + "'", c);
+    }
+
+    /**
+     * Reads a JSON string.
+     *
+     * @return The decoded string.
+     * @throws IOException If the next value is not a well formed string.
+     */
+    String readString() throws IOException {
+        this.expect('"');
+        this.scratch.setLength(0);
+
+        while (true) {
+            int c = this.read();
+
+            if (c == '"') {
+                return this.scratch.toString();
+            } else if (c == '\\') {
+                this.scratch.append(this.readEscape());
+            } else if (c < 0) {
+                throw this.error("Unterminated string", c);
+            } else if (c < 0x80) {
+                this.scratch.append((char) c);
+            } else {
+                this.readMultiByte(c);
+            }
+        }
+    }
+
+    /**
+     * Reads a JSON number as an integer.
+     * <p/>
+     * Numbers with a fraction or exponent are truncated, matching {@code JSONArray.getInt}.
+     *
+     * @return The value of the number.
+     * @throws IOException If the next value is not a number.
+     */
+    int readInt() throws IOException {
+        int c = this.peek();
+        boolean negative = false;
+        long value = 0;
+        int digits = 0;
+
+        if (c == '-') {
+            negative = true;
+            this.buffer.position(this.buffer.position() + 1);
+            c = this.peekRaw();
+        }
+
+        while (c >= '0' && c <= '9') {
+            this.buffer.position(this.buffer.position() + 1);
+            value = value * 10 + (c - '0');
+            digits++;
+
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw new IOException("Number out of range.");
+            }
+
+            c = this.peekRaw();
+        }
+
+        if (digits == 0) {
+            throw this.error("Expected a number", c);
+        }
+
+        if (c == '.' || c == 'e' || c == 'E') {
+            return (int) Double.parseDouble((negative ? "-" : "") + value + this.readBareToken());
+        }
+
+        if (!negative && value > Integer.MAX_VALUE) {
+            throw new IOException("Number out of range.");
+        }
+
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * Reads a string or a bare number as text.
+     *
+     * @return The text of the value.
+     * @throws IOException If the next value is neither a string nor a number.
+     */
+    String readScalar() throws IOException {
+        int c = this.peek();
+
+        if (c == '"') {
+            return this.readString();
+        } else if (c == '-' || (c >= '0' && c <= '9')) {
+            return this.readBareToken();
+        }
+
+        throw this.error("Expected a string or number", c);
+    }
+
+    /**
+     * Skips over the next value, whatever its type.
+     *
+     * @throws IOException If the next value is malformed.
+     */
+    void skipValue() throws IOException {
+        int c = this.peek();
+
+        if (c == '"') {
+            this.readString();
+        } else if (c == '{') {
+            this.expect('{');
+
+            if (!this.consume('}')) {
+                do {
+                    this.readString();
+                    this.expect(':');
+                    this.skipValue();
+                } while (this.next('}'));
+            }
+        } else if (c == '[') {
+            this.expect('[');
+
+            if (!this.consume(']')) {
+                do {
+                    this.skipValue();
+                } while (this.next(']'));
+            }
+        } else if (c == '-' || (c >= '0' && c <= '9') || c == 't' || c == 'f' || c == 'n') {
+            this.readBareToken();
+        } else {
+            throw this.error("Unexpected character", c);
+        }
+    }
+
+    /**
+     * Gets the number of bytes of input consumed so far.
+     *
+     * @return The offset of the next byte from the start of the input.
+     */
+    long position() {
+        return this.discarded + this.buffer.position();
+    }
+
+    /**
+     * Gets the input not yet consumed, when the whole input is in memory.
+     *
+     * @return A view of the remaining input starting at index zero, or null if the input is read from a channel.
+     */
+    ByteBuffer remaining() {
+        return this.channel == null ? this.buffer.slice() : null;
+    }
+
+    /**
+     * Builds an exception describing a syntax error at the current position.
+     *
+     * @param message The description of the error.
+     * @param c       The character which was found.
+     * @return The exception to throw.
+     */
+    IOException error(String message, int c) {
+        String found = c < 0 ? "end of input" : "'" + (char) c + "'";
+
+        return new IOException(message + " but found " + found + ".");
+    }
+
+    /**
+     * Reads the next raw byte, refilling the buffer if required.
+     *
+     * @return The next byte as an unsigned value, or -1 at the end of input.
+     * @throws IOException If the underlying channel cannot be read.
+     */
+    private int read() throws IOException {
+        if (!this.buffer.hasRemaining() && !this.fill()) {
+            return -1;
+        }
+
+        return this.buffer.get() & 0xFF;
+    }
+
+    /**
+     * Returns the next raw byte without skipping whitespace or consuming it.
+     *
+     * @return The next byte as an unsigned value, or -1 at the end of input.
+     * @throws IOException If the underlying channel cannot be read.
+     */
+    private int peekRaw() throws IOException {
+        if (!this.buffer.hasRemaining() && !this.fill()) {
+            return -1;
+        }
+
+        return this.buffer.get(this.buffer.position()) & 0xFF;
+    }
+
+    /**
+     * Reads the characters of a number or literal up to the next delimiter.
+     *
+     * @return The characters read.
+     * @throws IOException If the underlying channel cannot be read.
+     */
+    private String readBareToken() throws IOException {
+        this.scratch.setLength(0);
+        int c = this.peekRaw();
+
+        while (c >= 0 && c != ',' && c != ']' && c != '}' && c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+            this.scratch.append((char) this.read());
+            c = this.peekRaw();
+        }
+
+        return this.scratch.toString();
+    }
+
+    /**
+     * Reads the character following a backslash within a string.
+     *
+     * @return The escaped character.
+     * @throws IOException If the escape sequence is malformed.
+     */
+    private char readEscape() throws IOException {
+        int c = this.read();
+
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 't':
+                return '\t';
+            case 'n':
+                return '\n';
+            case 'f':
+                return '\f';
+            case 'r':
+                return '\r';
+            case 'u':
+                int code = 0;
+
+                for (int i = 0; i < 4; ++i) {
+                    int digit = Character.digit(this.read(), 16);
+
+                    if (digit < 0) {
+                        throw new IOException("Malformed unicode escape.");
+                    }
+
+                    code = code * 16 + digit;
+                }
+
+                return (char) code;
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            default:
+                throw this.error("Illegal escape", c);
+        }
+    }
+
+    /**
+     * Decodes a UTF-8 multi-byte sequence into the scratch buffer.
+     *
+     * @param lead The first byte of the sequence.
+     * @throws IOException If the sequence is truncated.
+     */
+    private void readMultiByte(int lead) throws IOException {
+        int length = lead >= 0xF0 ? 3 : lead >= 0xE0 ? 2 : 1;
+        int code = lead & (0x3F >> length);
+
+        for (int i = 0; i < length; ++i) {
+            int c = this.read();
+
+            if (c < 0) {
+                throw this.error("Truncated character", c);
+            }
+
+            code = (code << 6) | (c & 0x3F);
+        }
+
+        this.scratch.appendCodePoint(code);
+    }
+
+    /**
+     * Refills the buffer from the channel.
+     *
+     * @return True if at least one byte is available.
+     * @throws IOException If the channel cannot be read.
+     */
+    private boolean fill() throws IOException {
+        if (this.channel == null) {
+            return false;
+        }
+
+        this.discarded += this.buffer.position();
+        this.buffer.compact();
+
+        int read;
+        do {
+            read = this.channel.read(this.buffer);
+        } while (read == 0);
+
+        this.buffer.flip();
+
+        return read > 0;
+    }
+}
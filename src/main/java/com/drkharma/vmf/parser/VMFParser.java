@@ -7,11 +7,16 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.Iterator;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 
 import static java.lang.Double.parseDouble;
 
@@ -43,36 +48,112 @@ public class VMFParser {
      * @throws IOException If there is an issue reading the file or it does not exist.
      */
     public VMFParser(File vmfFile) throws IOException {
+        this(readFile(vmfFile), vmfFile.getName());
+    }
+
+    /**
+     * A parser which maps VMF content read from a stream onto an equivalent object model.
+     * <p/>
+     * The stream is read to its end but is not closed.
+     *
+     * @param in   The stream containing the VMF content.
+     * @param name The name given to the parsed piece.
+     * @throws IOException If there is an issue reading the stream.
+     */
+    public VMFParser(InputStream in, String name) throws IOException {
+        this(Channels.newChannel(in), name);
+    }
+
+    /**
+     * A parser which maps VMF content read from a channel onto an equivalent object model.
+     * <p/>
+     * The channel is read to its end but is not closed.
+     *
+     * @param channel The channel containing the VMF content.
+     * @param name    The name given to the parsed piece.
+     * @throws IOException If there is an issue reading the channel.
+     */
+    public VMFParser(ReadableByteChannel channel, String name) throws IOException {
+        this(readChannel(channel), name);
+    }
+
+    /**
+     * A parser which maps VMF content held in memory onto an equivalent object model.
+     *
+     * @param contents The VMF content encoded as UTF-8.
+     * @param name     The name given to the parsed piece.
+     * @throws IOException If the content is not JSON.
+     */
+    public VMFParser(byte[] contents, String name) throws IOException {
+        this(ByteBuffer.wrap(contents), name);
+    }
+
+    /**
+     * A parser which maps VMF content held in a buffer onto an equivalent object model.
+     * <p/>
+     * The remaining bytes of the buffer are parsed; its position is left untouched.
+     *
+     * @param contents The VMF content encoded as UTF-8.
+     * @param name     The name given to the parsed piece.
+     * @throws IOException If the content is not JSON.
+     */
+    public VMFParser(ByteBuffer contents, String name) throws IOException {
         this.music = new VectorMusic();
-        this.fileName = vmfFile.getName();
+        this.fileName = name;
 
         try {
-            this.jsonObj = new JSONObject(readFile(vmfFile));
+            this.jsonObj = new JSONObject(StandardCharsets.UTF_8.decode(contents.duplicate()).toString());
         } catch (JSONException e) {
             throw new IOException(e.getMessage());
         }
     }
 
     /**
-     * Reads the contents of a file into a string.
+     * Maps the contents of a file into memory.
      *
      * @param file The file to read.
-     * @return The contents of the file as a string.
+     * @return The contents of the file.
+     * @throws IOException If the file cannot be read, or is 2GB or more, which is too large to map at once and to
+     *                     hold as a JSON document; {@link VMFStreamParser} parses such files.
      */
-    private static String readFile(File file) throws IOException {
-        String line;
+    private static ByteBuffer readFile(File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
 
-        BufferedReader br = new BufferedReader(new FileReader(file));
-        StringBuilder sb = new StringBuilder();
+        try {
+            FileChannel channel = in.getChannel();
+
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The file " + file.getName() + " is too large to load; parse it with "
+                        + VMFStreamParser.class.getSimpleName() + " instead.");
+            }
+
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            in.close();
+        }
+    }
 
-        while ((line = br.readLine()) != null) {
-            sb.append(line);
-            sb.append("\n");
+    /**
+     * Reads the contents of a channel into memory.
+     *
+     * @param channel The channel to read.
+     * @return The contents of the channel.
+     */
+    private static ByteBuffer readChannel(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(VMFLexer.BUFFER_SIZE);
+
+        while (channel.read(buffer) >= 0) {
+            if (!buffer.hasRemaining()) {
+                ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
         }
 
-        br.close();
+        buffer.flip();
 
-        return sb.toString();
+        return buffer;
     }
 
     /**
@@ -108,9 +189,9 @@ public class VMFParser {
         JSONObject keySignatures = header.getJSONObject("key_signature");
         JSONObject tempi = header.getJSONObject("tempo");
 
-        Iterator<String> tsIt = timeSignatures.keys();
-        Iterator<String> ksIt = keySignatures.keys();
-        Iterator<String> tempoIt = tempi.keys();
+        Iterator<String> tsIt = sortedKeys(timeSignatures);
+        Iterator<String> ksIt = sortedKeys(keySignatures);
+        Iterator<String> tempoIt = sortedKeys(tempi);
 
         VectorMusicHeader headerObj = this.music.getHeader();
 
@@ -160,33 +241,117 @@ public class VMFParser {
         }
     }
 
+    /**
+     * Gets the measure keys of a header object in order of measure, since {@link JSONObject} yields its keys in
+     * hash order. The header then receives its events in order and appends each without searching.
+     *
+     * @param obj The header object, keyed by measure.
+     * @return The keys of the object in order of measure.
+     */
+    @SuppressWarnings("unchecked")
+    private static Iterator<String> sortedKeys(JSONObject obj) {
+        List<String> keys = new ArrayList<String>(obj.length());
+        Iterator<String> it = obj.keys();
+
+        while (it.hasNext()) {
+            keys.add(it.next());
+        }
+
+        Collections.sort(keys, new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                return Double.compare(parseDouble(a), parseDouble(b));
+            }
+        });
+
+        return keys.iterator();
+    }
+
+    /**
+     * Parses the VMF file provided in the constructor, keeping every voice.
+     * <p/>
+     * All parts and voices are formed in a single pass over the body. Each vector of a tick belongs to the voice
+     * at the same position, and the music of every voice shares the header of the file.
+     *
+     * @return An instance of {@link VectorMusic} for each voice, in the order the voices appear in a tick.
+     * @throws IOException If there is an issue parsing the file.
+     * @throws TimeSignatureMissingException When the file contains no time signatures.
+     */
+    public List<VectorMusic> parseVoices() throws IOException, TimeSignatureMissingException {
+        try {
+            this.parseHeader();
+
+            return this.parseVoiceBodies();
+        } catch (JSONException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
     /**
      * Parses the body from the VMF file.
+     *
+     * @throws IOException If a tick is malformed.
      */
-    private void parseBody() throws JSONException {
+    private void parseBody() throws JSONException, IOException {
         JSONArray body = this.jsonObj.getJSONArray("body");
-        Note currentNote = null;
-        int currentOffset = 0;
+        NoteAccumulator accumulator = new NoteAccumulator();
+        int[] tick = new int[5];
+        Note completed;
 
         // Iterate over all ticks and form the notes of the melody.
         for (int i = 0; i < body.length(); ++i) {
             // For now, only monophonic music is supported, we take the first part in each tick.
-            JSONArray currentTick = body.getJSONArray(i).getJSONArray(0);
-
-            // Check the first dimension, if it is 1, a new note is attacked.
-            if (currentTick.getInt(0) == 1) {
-                currentNote = new Note(currentTick.getInt(1), currentTick.getInt(2), currentTick.getInt(3),
-                        currentTick.getInt(4), currentOffset);
-
-                this.music.addNote(currentNote);
-
-                // Reset the offset for the next note.
-                currentOffset = 1;
-            } else if (currentTick.getInt(0) == 2) {
-                currentNote.incrementDuration();
-                currentOffset++;
-            } else if (currentTick.getInt(0) == 0) {
-                currentOffset++;
+            readVector(body.getJSONArray(i).getJSONArray(0), tick);
+
+            if ((completed = accumulator.accept(tick)) != null) {
+                this.music.addNote(completed);
+            }
+        }
+
+        if ((completed = accumulator.finish()) != null) {
+            this.music.addNote(completed);
+        }
+    }
+
+    /**
+     * Parses the body from the VMF file into the notes of every voice.
+     *
+     * @return The music of each voice.
+     * @throws IOException If a tick is malformed.
+     */
+    private List<VectorMusic> parseVoiceBodies() throws JSONException, IOException {
+        JSONArray body = this.jsonObj.getJSONArray("body");
+        VoiceAccumulator accumulator = new VoiceAccumulator(this.music.getHeader());
+        int[] tick = new int[5];
+
+        for (int i = 0; i < body.length(); ++i) {
+            JSONArray currentTick = body.getJSONArray(i);
+
+            for (int j = 0; j < currentTick.length(); ++j) {
+                readVector(currentTick.getJSONArray(j), tick);
+                accumulator.accept(tick);
+            }
+
+            accumulator.endTick();
+        }
+
+        return accumulator.finish();
+    }
+
+    /**
+     * Reads a tick vector into a scratch buffer.
+     *
+     * @param vector The tick vector.
+     * @param tick   The buffer receiving the state, dynamic, articulation, pitch class and octave.
+     * @throws JSONException If the vector is malformed.
+     */
+    private static void readVector(JSONArray vector, int[] tick) throws JSONException {
+        tick[0] = vector.getInt(0);
+
+        // The remaining dimensions are only meaningful when a new note is attacked.
+        if (tick[0] == NoteAccumulator.ATTACK) {
+            for (int j = 1; j < tick.length; ++j) {
+                tick[j] = vector.getInt(j);
             }
         }
     }
@@ -0,0 +1,1052 @@
+package com.drkharma.vmf.parser;
+
+import com.drkharma.vmf.*;
+import com.drkharma.vmf.parser.exception.BodyBeforeHeaderException;
+import com.drkharma.vmf.parser.exception.TimeSignatureMissingException;
+import org.apache.commons.lang3.math.Fraction;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static java.lang.Double.parseDouble;
+
+/**
+ * A streaming parser for VMF files.
+ * <p/>
+ * Unlike {@link VMFParser}, the file is never loaded as a whole. The header and body are tokenized directly from
+ * the byte stream and each {@link Note} is handed out as soon as the tick which ends it has been consumed, so the
+ * memory used while parsing is bounded by the current tick rather than the size of the document.
+ * <p/>
+ * The header must precede the body in the file, or a {@link BodyBeforeHeaderException} is thrown, after which the
+ * file can still be parsed by {@link VMFParser}. A typical use is:
+ * <pre>
+ *     VMFStreamParser parser = new VMFStreamParser(file);
+ *     VectorMusicHeader header = parser.readHeader();
+ *     Note note;
+ *     while ((note = parser.nextNote()) != null) {
+ *         ...
+ *     }
+ *     parser.close();
+ * </pre>
+ */
+public class VMFStreamParser implements Closeable {
+
+    /**
+     * The number of dimensions in a tick vector which describe a note.
+     */
+    private static final int TICK_DIMENSIONS = 5;
+
+    /**
+     * The smallest part of the body, in bytes, which {@link #parseParallel()} decodes on its own.
+     */
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * The largest part of the body, in bytes, which is decoded on its own, leaving room below the 2GB which can be
+     * mapped at once for the part to run on to the next tick.
+     */
+    static final long MAX_CHUNK_SIZE = 1 << 30;
+
+    /**
+     * The size of the windows through which a file is mapped while scanning for tick boundaries.
+     */
+    private static final int SCAN_WINDOW = 64 * 1024;
+
+    /**
+     * The name of the file parsed.
+     */
+    private String fileName;
+
+    /**
+     * The tokenizer reading the file.
+     */
+    private VMFLexer lexer;
+
+    /**
+     * The resource to release when parsing is complete, or null if the source belongs to the caller.
+     */
+    private Closeable source;
+
+    /**
+     * The file being parsed, or null if the content is not read from the file system.
+     */
+    private FileChannel file;
+
+    /**
+     * The header of the file, once read.
+     */
+    private VectorMusicHeader header;
+
+    /**
+     * Forms notes from the ticks of the body.
+     */
+    private NoteAccumulator accumulator;
+
+    /**
+     * Scratch buffer receiving the dimensions of the tick being decoded.
+     */
+    private int[] tick;
+
+    /**
+     * The number of ticks of the body read so far.
+     */
+    private long ticksRead;
+
+    /**
+     * Whether the opening bracket of the body has been consumed.
+     */
+    private boolean inBody;
+
+    /**
+     * Whether the end of the body has been reached.
+     */
+    private boolean finished;
+
+    /**
+     * A streaming parser which reads a VMF file from the file system.
+     *
+     * @param vmfFile The VMF file on the file system.
+     * @throws IOException If the file does not exist or cannot be opened.
+     */
+    public VMFStreamParser(File vmfFile) throws IOException {
+        this(vmfFile, false);
+    }
+
+    /**
+     * A streaming parser which reads a VMF file from the file system, optionally through a memory mapping.
+     * <p/>
+     * When mapped, the file is tokenized straight from the {@link MappedByteBuffer} without copying it into a
+     * read buffer. The mapping is released by the garbage collector once the parser is no longer referenced. A file
+     * of 2GB or more, which cannot be mapped at once, is read through a buffer instead.
+     *
+     * @param vmfFile      The VMF file on the file system.
+     * @param memoryMapped Whether the file should be memory mapped rather than read through a buffer.
+     * @throws IOException If the file does not exist or cannot be opened.
+     */
+    public VMFStreamParser(File vmfFile, boolean memoryMapped) throws IOException {
+        FileInputStream in = new FileInputStream(vmfFile);
+        FileChannel channel = in.getChannel();
+
+        this.fileName = vmfFile.getName();
+        this.source = in;
+        this.file = channel;
+        this.accumulator = new NoteAccumulator();
+        this.tick = new int[TICK_DIMENSIONS];
+
+        if (memoryMapped && channel.size() <= Integer.MAX_VALUE) {
+            try {
+                this.lexer = new VMFLexer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        } else {
+            this.lexer = new VMFLexer(channel);
+        }
+    }
+
+    /**
+     * A streaming parser which reads VMF content from a stream.
+     * <p/>
+     * The stream is not closed by the parser.
+     *
+     * @param in   The stream containing the VMF content.
+     * @param name The name given to the parsed piece.
+     */
+    public VMFStreamParser(InputStream in, String name) {
+        this(Channels.newChannel(in), name);
+    }
+
+    /**
+     * A streaming parser which reads VMF content from a channel.
+     * <p/>
+     * The channel is not closed by the parser.
+     *
+     * @param channel The channel containing the VMF content.
+     * @param name    The name given to the parsed piece.
+     */
+    public VMFStreamParser(ReadableByteChannel channel, String name) {
+        this(new VMFLexer(channel), name);
+    }
+
+    /**
+     * A streaming parser which reads VMF content held in memory.
+     *
+     * @param contents The VMF content encoded as UTF-8.
+     * @param name     The name given to the parsed piece.
+     */
+    public VMFStreamParser(byte[] contents, String name) {
+        this(ByteBuffer.wrap(contents), name);
+    }
+
+    /**
+     * A streaming parser which reads VMF content held in a buffer.
+     * <p/>
+     * The remaining bytes of the buffer are parsed; its position is left untouched.
+     *
+     * @param contents The VMF content encoded as UTF-8.
+     * @param name     The name given to the parsed piece.
+     */
+    public VMFStreamParser(ByteBuffer contents, String name) {
+        this(new VMFLexer(contents.slice()), name);
+    }
+
+    /**
+     * A streaming parser over a tokenizer whose source is owned by the caller.
+     *
+     * @param lexer The tokenizer to read from.
+     * @param name  The name given to the parsed piece.
+     */
+    private VMFStreamParser(VMFLexer lexer, String name) {
+        this.fileName = name;
+        this.lexer = lexer;
+        this.accumulator = new NoteAccumulator();
+        this.tick = new int[TICK_DIMENSIONS];
+    }
+
+    /**
+     * Parses the whole file.
+     * <p/>
+     * The notes of the returned music are held in a {@link PackedNoteList}.
+     *
+     * @return An instance of {@link VectorMusic} representing the VMF file.
+     * @throws IOException If there is an issue parsing the file.
+     * @throws TimeSignatureMissingException When the file contains no time signatures.
+     */
+    public VectorMusic parse() throws IOException, TimeSignatureMissingException {
+        try {
+            PackedNoteList notes = new PackedNoteList();
+            VectorMusic music = new VectorMusic(this.readHeader(), notes);
+            Note note;
+
+            while ((note = this.nextNote()) != null) {
+                music.addNote(note);
+            }
+
+            notes.trimToSize();
+
+            return music;
+        } finally {
+            this.close();
+        }
+    }
+
+    /**
+     * Parses the whole file on a pool with one thread per processor, splitting the body into parts of at least a
+     * megabyte.
+     *
+     * @return An instance of {@link VectorMusic} identical to the one {@link #parse()} returns.
+     * @throws IOException If there is an issue parsing the file, or notes have already been read.
+     * @throws TimeSignatureMissingException When the file contains no time signatures.
+     * @see #parseParallel(ExecutorService, int)
+     */
+    public VectorMusic parseParallel() throws IOException, TimeSignatureMissingException {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = new ForkJoinPool(parallelism);
+
+        try {
+            return this.parseParallel(executor, 4 * parallelism, MIN_CHUNK_SIZE, MAX_CHUNK_SIZE);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Parses the whole file, decoding parts of the body in parallel.
+     * <p/>
+     * The header is read first. The body is then split at tick boundaries found by scanning its bytes for the end of
+     * one tick and the start of the next, and each part is decoded on the executor. A part hands back its notes
+     * together with the sustained ticks and rests which precede its first attack, so that the parts are stitched
+     * into exactly the notes a sequential parse forms: leading sustains extend the last note of the part before, and
+     * leading rests add to the offset of its own first note.
+     * <p/>
+     * A file is mapped a part at a time, so files of any size are decoded in parallel, and a body larger than a
+     * gigabyte a part is split into more parts than asked for. Content in memory, as in an array or a buffer, is
+     * split in place. Content read from a stream or channel is parsed sequentially.
+     *
+     * @param executor The executor on which parts of the body are decoded.
+     * @param chunks   The number of parts to split the body into, at most, unless the parts would be too large.
+     * @return An instance of {@link VectorMusic} identical to the one {@link #parse()} returns.
+     * @throws IOException If there is an issue parsing the file, or notes have already been read.
+     * @throws TimeSignatureMissingException When the file contains no time signatures.
+     */
+    public VectorMusic parseParallel(ExecutorService executor, int chunks)
+            throws IOException, TimeSignatureMissingException {
+        if (chunks < 1) {
+            throw new IllegalArgumentException("At least one chunk is required.");
+        }
+
+        return this.parseParallel(executor, chunks, 1, MAX_CHUNK_SIZE);
+    }
+
+    /**
+     * Parses the whole file, decoding parts of the body of a bounded size in parallel.
+     *
+     * @param executor     The executor on which parts of the body are decoded.
+     * @param chunks       The number of parts to split the body into, at most, unless the parts would be too large.
+     * @param minChunkSize The smallest size of a part in bytes, unless the body is smaller.
+     * @param maxChunkSize The largest size of a part in bytes, which a part may exceed only to reach the next tick.
+     * @return An instance of {@link VectorMusic} identical to the one {@link #parse()} returns.
+     * @throws IOException If there is an issue parsing the file, or notes have already been read.
+     * @throws TimeSignatureMissingException When the file contains no time signatures.
+     */
+    VectorMusic parseParallel(ExecutorService executor, int chunks, long minChunkSize, long maxChunkSize)
+            throws IOException, TimeSignatureMissingException {
+        try {
+            VectorMusicHeader header = this.readHeader();
+
+            if (this.inBody) {
+                throw new IOException("Notes have already been read from the body.");
+            }
+
+            this.seekBody();
+
+            Body body = this.body();
+            PackedNoteList notes;
+
+            if (this.finished) {
+                notes = new PackedNoteList(0);
+            } else if (body == null) {
+                return this.parse();
+            } else {
+                long size = body.size();
+                long count = Math.max(Math.min(chunks, size / minChunkSize), (size + maxChunkSize - 1) / maxChunkSize);
+
+                notes = stitch(decodeChunks(body, executor, (int) Math.max(1, count)));
+            }
+
+            this.finished = true;
+
+            return new VectorMusic(header, notes);
+        } finally {
+            this.close();
+        }
+    }
+
+    /**
+     * Parses the whole file, keeping every voice.
+     * <p/>
+     * All parts and voices are formed in a single pass over the body. Each vector of a tick belongs to the voice
+     * at the same position, and the music of every voice shares the header of the file.
+     *
+     * @return An instance of {@link VectorMusic} for each voice, in the order the voices appear in a tick.
+     * @throws IOException If there is an issue parsing the file, or notes have already been read.
+     * @throws TimeSignatureMissingException When the file contains no time signatures.
+     */
+    public List<VectorMusic> parseVoices() throws IOException, TimeSignatureMissingException {
+        try {
+            VoiceAccumulator accumulator = new VoiceAccumulator(this.readHeader());
+
+            if (this.inBody) {
+                throw new IOException("Notes have already been read from the body.");
+            }
+
+            this.seekBody();
+
+            while (!this.finished && this.openTick()) {
+                if (!this.lexer.consume(']')) {
+                    do {
+                        this.readVector();
+                        accumulator.accept(this.tick);
+                    } while (this.lexer.next(']'));
+                }
+
+                accumulator.endTick();
+            }
+
+            this.finished = true;
+
+            return accumulator.finish();
+        } finally {
+            this.close();
+        }
+    }
+
+    /**
+     * Reads the header of the file. Subsequent calls return the same header.
+     *
+     * @return The header of the VMF file.
+     * @throws BodyBeforeHeaderException If the body precedes the header.
+     * @throws IOException If the header is missing or malformed.
+     * @throws TimeSignatureMissingException If the time signatures section of the header is empty.
+     */
+    public VectorMusicHeader readHeader() throws IOException, TimeSignatureMissingException {
+        if (this.header != null) {
+            return this.header;
+        }
+
+        this.lexer.expect('{');
+
+        if (!this.lexer.consume('}')) {
+            do {
+                String key = this.lexer.readString();
+                this.lexer.expect(':');
+
+                if ("header".equals(key)) {
+                    this.header = this.parseHeader();
+                    this.header.setName(this.fileName);
+
+                    return this.header;
+                } else if ("body".equals(key)) {
+                    throw new BodyBeforeHeaderException("The header must precede the body to be parsed as a stream.");
+                }
+
+                this.lexer.skipValue();
+            } while (this.lexer.next('}'));
+        }
+
+        throw new IOException("JSONObject[\"header\"] not found.");
+    }
+
+    /**
+     * Reads the next note from the body.
+     * <p/>
+     * A note is returned once the tick following its last sustained tick has been read, so its duration is final.
+     *
+     * @return The next note, or null when the body has been fully consumed.
+     * @throws IOException If the body is missing or malformed, or the header has not been read.
+     */
+    public Note nextNote() throws IOException {
+        if (this.header == null) {
+            throw new IOException("The header must be read before the body.");
+        }
+
+        if (!this.inBody) {
+            this.seekBody();
+        }
+
+        while (!this.finished) {
+            if (!this.readTick()) {
+                this.finished = true;
+
+                return this.accumulator.finish();
+            }
+
+            Note completed = this.accumulator.accept(this.tick);
+
+            if (completed != null) {
+                return completed;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Releases the underlying file, if the parser opened one.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.source != null) {
+            this.source.close();
+        }
+    }
+
+    /**
+     * Parses the header object.
+     *
+     * @return The header.
+     * @throws IOException If the header is malformed or a value is missing.
+     * @throws TimeSignatureMissingException If the time signatures section of the header is empty.
+     */
+    private VectorMusicHeader parseHeader() throws IOException, TimeSignatureMissingException {
+        VectorMusicHeader headerObj = new VectorMusicHeader();
+        boolean hasTickValue = false, hasParts = false, hasVoices = false;
+        boolean hasTimeSignatures = false, hasKeySignatures = false, hasTempi = false;
+        boolean timeSignaturesEmpty = true;
+
+        this.lexer.expect('{');
+
+        if (!this.lexer.consume('}')) {
+            do {
+                String key = this.lexer.readString();
+                this.lexer.expect(':');
+
+                if ("tick_value".equals(key)) {
+                    headerObj.setTickValue(this.readTickValue());
+                    hasTickValue = true;
+                } else if ("number_of_parts".equals(key)) {
+                    headerObj.setNumberOfParts(this.lexer.readInt());
+                    hasParts = true;
+                } else if ("number_of_voices".equals(key)) {
+                    headerObj.setNumberOfVoices(this.lexer.readInt());
+                    hasVoices = true;
+                } else if ("time_signature".equals(key)) {
+                    timeSignaturesEmpty = !this.parseTimeSignatures(headerObj);
+                    hasTimeSignatures = true;
+                } else if ("key_signature".equals(key)) {
+                    if (!this.parseKeySignatures(headerObj)) {
+                        // If there is no key signature, we will assume the key is C major and it is at the
+                        // beginning of the piece.
+                        headerObj.addKeySignature(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR));
+                    }
+                    hasKeySignatures = true;
+                } else if ("tempo".equals(key)) {
+                    if (!this.parseTempi(headerObj)) {
+                        headerObj.addMetronomeMarking(new MetronomeMarking(0, 100));
+                    }
+                    hasTempi = true;
+                } else {
+                    this.lexer.skipValue();
+                }
+            } while (this.lexer.next('}'));
+        }
+
+        if (!(hasTickValue && hasParts && hasVoices && hasTimeSignatures && hasKeySignatures && hasTempi)) {
+            throw new IOException("The header is missing a required value.");
+        }
+
+        if (timeSignaturesEmpty) {
+            throw new TimeSignatureMissingException("A minimum of one time signature is required.");
+        }
+
+        return headerObj;
+    }
+
+    /**
+     * Parses the time signature object of the header.
+     *
+     * @param headerObj The header to populate.
+     * @return True if at least one time signature was present.
+     * @throws IOException If the object is malformed.
+     */
+    private boolean parseTimeSignatures(VectorMusicHeader headerObj) throws IOException {
+        this.lexer.expect('{');
+
+        if (this.lexer.consume('}')) {
+            return false;
+        }
+
+        do {
+            int measure = this.readMeasure();
+            headerObj.addTimeSignature(new TimeSignature(measure, this.lexer.readScalar()));
+        } while (this.lexer.next('}'));
+
+        return true;
+    }
+
+    /**
+     * Parses the key signature object of the header.
+     *
+     * @param headerObj The header to populate.
+     * @return True if at least one key signature was present.
+     * @throws IOException If the object is malformed.
+     */
+    private boolean parseKeySignatures(VectorMusicHeader headerObj) throws IOException {
+        this.lexer.expect('{');
+
+        if (this.lexer.consume('}')) {
+            return false;
+        }
+
+        do {
+            int measure = this.readMeasure();
+            KeySignature keySignature = KeySignature.getKeySignature(this.lexer.readInt());
+            headerObj.addKeySignature(new KeySignatureInstance(measure, keySignature));
+        } while (this.lexer.next('}'));
+
+        return true;
+    }
+
+    /**
+     * Parses the tempo object of the header.
+     *
+     * @param headerObj The header to populate.
+     * @return True if at least one tempo was present.
+     * @throws IOException If the object is malformed.
+     */
+    private boolean parseTempi(VectorMusicHeader headerObj) throws IOException {
+        this.lexer.expect('{');
+
+        if (this.lexer.consume('}')) {
+            return false;
+        }
+
+        do {
+            int measure = this.readMeasure();
+            headerObj.addMetronomeMarking(new MetronomeMarking(measure, this.lexer.readInt()));
+        } while (this.lexer.next('}'));
+
+        return true;
+    }
+
+    /**
+     * Reads the value of a tick as a fraction of a quarter note.
+     *
+     * @return The value of a tick.
+     * @throws IOException If the value is not a fraction.
+     */
+    private Fraction readTickValue() throws IOException {
+        try {
+            return Fraction.getFraction(this.lexer.readScalar());
+        } catch (NumberFormatException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a measure key such as {@code "4.0"} and the colon which follows it.
+     *
+     * @return The measure number.
+     * @throws IOException If the key is not a number.
+     */
+    private int readMeasure() throws IOException {
+        String key = this.lexer.readString();
+        this.lexer.expect(':');
+
+        try {
+            return (int) parseDouble(key);
+        } catch (NumberFormatException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    /**
+     * Advances past the keys following the header up to the opening bracket of the body.
+     *
+     * @throws IOException If the document has no body.
+     */
+    private void seekBody() throws IOException {
+        while (this.lexer.next('}')) {
+            String key = this.lexer.readString();
+            this.lexer.expect(':');
+
+            if ("body".equals(key)) {
+                this.lexer.expect('[');
+                this.inBody = true;
+                this.finished = this.lexer.consume(']');
+
+                return;
+            }
+
+            this.lexer.skipValue();
+        }
+
+        throw new IOException("JSONObject[\"body\"] not found.");
+    }
+
+    /**
+     * Decodes the next tick of the body into the scratch buffer.
+     * <p/>
+     * For now, only monophonic music is supported, we take the first part in each tick.
+     *
+     * @return False if the body has ended.
+     * @throws IOException If the tick is malformed.
+     */
+    private boolean readTick() throws IOException {
+        if (!this.openTick()) {
+            return false;
+        }
+
+        this.readVector();
+
+        while (this.lexer.next(']')) {
+            this.lexer.skipValue();
+        }
+
+        return true;
+    }
+
+    /**
+     * Consumes the opening bracket of the next tick of the body.
+     *
+     * @return False if the body has ended.
+     * @throws IOException If the body is malformed.
+     */
+    private boolean openTick() throws IOException {
+        if (this.ticksRead > 0 && !this.lexer.next(']')) {
+            return false;
+        }
+
+        this.lexer.expect('[');
+        this.ticksRead++;
+
+        return true;
+    }
+
+
+    /**
+     * Reads a tick vector into the scratch buffer.
+     *
+     * @throws IOException If the vector is malformed or too short to describe an attacked note.
+     */
+    private void readVector() throws IOException {
+        int length = 0;
+
+        this.lexer.expect('[');
+
+        if (!this.lexer.consume(']')) {
+            do {
+                int value = this.lexer.readInt();
+
+                if (length < TICK_DIMENSIONS) {
+                    this.tick[length] = value;
+                }
+
+                length++;
+            } while (this.lexer.next(']'));
+        }
+
+        if (length == 0 || (this.tick[0] == NoteAccumulator.ATTACK && length < TICK_DIMENSIONS)) {
+            throw new IOException("Malformed tick vector.");
+        }
+    }
+
+    /**
+     * Gets the body not yet consumed, from the first tick, as a file region or in memory.
+     *
+     * @return The body, or null if it is read from a stream or channel.
+     */
+    private Body body() throws IOException {
+        if (this.file != null) {
+            return new FileBody(this.file, this.lexer.position());
+        }
+
+        ByteBuffer remaining = this.lexer.remaining();
+
+        return remaining == null ? null : new BufferBody(remaining);
+    }
+
+    /**
+     * Splits the body at tick boundaries and decodes each part on an executor.
+     *
+     * @param body     The body, starting at its first tick.
+     * @param executor The executor on which parts are decoded.
+     * @param chunks   The number of parts to split the body into, at most.
+     * @return The decoded parts, in order.
+     * @throws IOException If a part is malformed or too large to map.
+     */
+    private List<Chunk> decodeChunks(final Body body, ExecutorService executor, int chunks) throws IOException {
+        List<Future<Chunk>> futures = new ArrayList<Future<Chunk>>(chunks);
+        long length = body.size();
+        long start = 0;
+
+        try {
+            for (int i = 1; i <= chunks && start >= 0; ++i) {
+                long end = i == chunks ? -1 : nextTickStart(body, Math.max(start + 1, length * i / chunks));
+
+                final long from = start;
+                final long to = end < 0 ? length : end;
+                final boolean last = end < 0;
+
+                if (to - from > Integer.MAX_VALUE) {
+                    throw new IOException("A part of the body without a tick boundary is too large to map.");
+                }
+
+                futures.add(executor.submit(new Callable<Chunk>() {
+                    @Override
+                    public Chunk call() throws IOException {
+                        VMFLexer lexer = new VMFLexer(body.map(from, to));
+
+                        return new VMFStreamParser(lexer, VMFStreamParser.this.fileName).readChunk(last);
+                    }
+                }));
+
+                start = end;
+            }
+
+            List<Chunk> decoded = new ArrayList<Chunk>(futures.size());
+
+            for (Future<Chunk> future : futures) {
+                decoded.add(future.get());
+            }
+
+            return decoded;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while decoding the body.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            throw new IOException(cause);
+        } finally {
+            for (Future<Chunk> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Finds the first tick which begins at or after a position, by scanning for the close of a vector and of its
+     * tick followed by a comma and an opening bracket. The body holds nothing but numbers and brackets, so no other
+     * sequence of bytes matches.
+     * <p/>
+     * The body is read a window at a time, and the scan carries its progress through the pattern from one window to
+     * the next.
+     *
+     * @param body The body.
+     * @param from The position to scan from.
+     * @return The position of the opening bracket of the tick, or -1 if no tick begins after the position.
+     * @throws IOException If the body cannot be read.
+     */
+    private static long nextTickStart(Body body, long from) throws IOException {
+        long size = body.size();
+        int matched = 0;
+
+        for (long base = from; base < size; base += SCAN_WINDOW) {
+            ByteBuffer window = body.map(base, Math.min(size, base + SCAN_WINDOW));
+            int limit = window.limit();
+
+            for (int i = 0; i < limit; ++i) {
+                byte b = window.get(i);
+
+                if (matched > 0 && (b == ' ' || b == '\n' || b == '\r' || b == '\t')) {
+                    continue;
+                }
+
+                // The bytes matched so far: 1 after a bracket, 2 after two brackets, 3 after the comma.
+                if (b == ']') {
+                    matched = matched == 1 || matched == 2 ? 2 : 1;
+                } else if (b == ',' && matched == 2) {
+                    matched = 3;
+                } else if (b == '[' && matched == 3) {
+                    return base + i;
+                } else {
+                    matched = 0;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Joins decoded parts of the body into the notes of the whole piece.
+     *
+     * @param chunks The decoded parts, in order.
+     * @return The notes.
+     * @throws IOException If the body begins with a sustained tick.
+     */
+    private static PackedNoteList stitch(List<Chunk> chunks) throws IOException {
+        int size = 0;
+
+        for (Chunk chunk : chunks) {
+            size += chunk.notes.size();
+        }
+
+        PackedNoteList notes = new PackedNoteList(size);
+        int carried = 0;
+
+        for (Chunk chunk : chunks) {
+            if (chunk.leadingSustains > 0) {
+                if (notes.isEmpty()) {
+                    throw new IOException("A sustained tick must follow an attacked note.");
+                }
+
+                int last = notes.size() - 1;
+                notes.setDuration(last, notes.getDuration(last) + chunk.leadingSustains);
+            }
+
+            if (chunk.notes.isEmpty()) {
+                carried += chunk.leadingOffset;
+                continue;
+            }
+
+            int first = notes.size();
+
+            notes.addAll(chunk.notes);
+            notes.setOffset(first, notes.getOffset(first) + carried);
+            carried = chunk.trailingOffset;
+        }
+
+        return notes;
+    }
+
+    /**
+     * Decodes every tick of a part of the body. Until the first attack, sustained ticks and rests are only counted,
+     * since they continue the note and the offset of the part before.
+     *
+     * @param last Whether the part ends the body, rather than ending before the first tick of the next part.
+     * @return The decoded part.
+     * @throws IOException If the part is malformed.
+     */
+    private Chunk readChunk(boolean last) throws IOException {
+        Chunk chunk = new Chunk();
+        NoteAccumulator accumulator = null;
+        Note completed;
+
+        do {
+            this.lexer.expect('[');
+            this.readVector();
+
+            while (this.lexer.next(']')) {
+                this.lexer.skipValue();
+            }
+
+            if (accumulator != null) {
+                if ((completed = accumulator.accept(this.tick)) != null) {
+                    chunk.notes.add(completed);
+                }
+            } else if (this.tick[0] == NoteAccumulator.ATTACK) {
+                accumulator = new NoteAccumulator(chunk.leadingOffset);
+                accumulator.accept(this.tick);
+            } else if (this.tick[0] == NoteAccumulator.SUSTAIN) {
+                chunk.leadingSustains++;
+                chunk.leadingOffset++;
+            } else if (this.tick[0] == NoteAccumulator.REST) {
+                chunk.leadingOffset++;
+            }
+
+            if (!this.lexer.next(']')) {
+                if (!last) {
+                    throw new IOException("The body ended before the last tick.");
+                }
+
+                break;
+            }
+        } while (last || this.lexer.peek() >= 0);
+
+        if (accumulator != null) {
+            chunk.notes.add(accumulator.finish());
+            chunk.trailingOffset = accumulator.getOffset();
+        }
+
+        return chunk;
+    }
+
+    /**
+     * The body of a file, from its first tick to the end of the input, which is read a region at a time.
+     */
+    private abstract static class Body {
+
+        /**
+         * Gets the size of the body.
+         *
+         * @return The number of bytes from the first tick to the end of the input.
+         */
+        abstract long size();
+
+        /**
+         * Gets a region of the body.
+         *
+         * @param start The offset of the first byte of the region, from the first tick.
+         * @param end   The offset after the last byte of the region, at most 2GB after the start.
+         * @return The bytes of the region, starting at index zero.
+         * @throws IOException If the region cannot be read.
+         */
+        abstract ByteBuffer map(long start, long end) throws IOException;
+    }
+
+    /**
+     * A body held in memory.
+     */
+    private static final class BufferBody extends Body {
+
+        /**
+         * The body, starting at index zero.
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * Constructor
+         *
+         * @param buffer The body, starting at index zero.
+         */
+        BufferBody(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        long size() {
+            return this.buffer.limit();
+        }
+
+        @Override
+        ByteBuffer map(long start, long end) {
+            ByteBuffer region = this.buffer.duplicate();
+            region.limit((int) end).position((int) start);
+
+            return region.slice();
+        }
+    }
+
+    /**
+     * A body read from a file, through a separate mapping of each region.
+     */
+    private static final class FileBody extends Body {
+
+        /**
+         * The file.
+         */
+        private final FileChannel channel;
+
+        /**
+         * The offset of the first tick in the file.
+         */
+        private final long offset;
+
+        /**
+         * The size of the body.
+         */
+        private final long size;
+
+        /**
+         * Constructor
+         *
+         * @param channel The file.
+         * @param offset  The offset of the first tick in the file.
+         * @throws IOException If the size of the file cannot be read.
+         */
+        FileBody(FileChannel channel, long offset) throws IOException {
+            this.channel = channel;
+            this.offset = offset;
+            this.size = channel.size() - offset;
+        }
+
+        @Override
+        long size() {
+            return this.size;
+        }
+
+        @Override
+        ByteBuffer map(long start, long end) throws IOException {
+            return this.channel.map(FileChannel.MapMode.READ_ONLY, this.offset + start, end - start);
+        }
+    }
+
+    /**
+     * The notes decoded from a part of the body, and the ticks which precede its first attack.
+     */
+    private static final class Chunk {
+
+        /**
+         * The notes attacked in the part. The offset of the first is counted from the beginning of the part.
+         */
+        private final PackedNoteList notes = new PackedNoteList();
+
+        /**
+         * The number of sustained ticks before the first attack, which extend the last note of the part before.
+         */
+        private int leadingSustains;
+
+        /**
+         * The number of sustained and rested ticks before the first attack.
+         */
+        private int leadingOffset;
+
+        /**
+         * The number of ticks from the beginning of the last note to the end of the part.
+         */
+        private int trailingOffset;
+    }
+}
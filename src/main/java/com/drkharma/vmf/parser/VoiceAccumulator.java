@@ -0,0 +1,116 @@
+package com.drkharma.vmf.parser;
+
+import com.drkharma.vmf.Note;
+import com.drkharma.vmf.VectorMusic;
+import com.drkharma.vmf.VectorMusicHeader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forms the note streams of every voice in a single pass over the ticks of a body.
+ * <p/>
+ * Each vector of a tick belongs to the voice at the same position. A voice which has no vector in a tick is
+ * resting for that tick, and a voice which first appears part way through the body has been resting since the
+ * beginning of the music.
+ */
+final class VoiceAccumulator {
+
+    /**
+     * The header shared by every voice.
+     */
+    private final VectorMusicHeader header;
+
+    /**
+     * The music formed for each voice.
+     */
+    private final List<VectorMusic> voices;
+
+    /**
+     * The note accumulator of each voice.
+     */
+    private final List<NoteAccumulator> accumulators;
+
+    /**
+     * The number of ticks consumed so far.
+     */
+    private int ticks;
+
+    /**
+     * The number of voices which received a vector in the current tick.
+     */
+    private int width;
+
+    /**
+     * Creates an accumulator for the voices declared in a header.
+     *
+     * @param header The header of the piece.
+     */
+    VoiceAccumulator(VectorMusicHeader header) {
+        this.header = header;
+        this.voices = new ArrayList<VectorMusic>();
+        this.accumulators = new ArrayList<NoteAccumulator>();
+
+        for (int i = 0; i < header.getNumberOfVoices(); ++i) {
+            this.addVoice();
+        }
+    }
+
+    /**
+     * Consumes the vector of the next voice in the current tick.
+     *
+     * @param tick The tick vector: state, dynamic, articulation, pitch class and octave.
+     * @throws IOException If the tick sustains a note when no note has been attacked.
+     */
+    void accept(int[] tick) throws IOException {
+        if (this.width == this.voices.size()) {
+            this.addVoice();
+        }
+
+        Note completed = this.accumulators.get(this.width).accept(tick);
+
+        if (completed != null) {
+            this.voices.get(this.width).addNote(completed);
+        }
+
+        this.width++;
+    }
+
+    /**
+     * Completes the current tick, resting every voice which had no vector in it.
+     */
+    void endTick() {
+        for (int i = this.width; i < this.accumulators.size(); ++i) {
+            this.accumulators.get(i).rest();
+        }
+
+        this.width = 0;
+        this.ticks++;
+    }
+
+    /**
+     * Completes every voice at the end of the body.
+     *
+     * @return The music of each voice, in the order the voices appear in a tick.
+     */
+    List<VectorMusic> finish() {
+        for (int i = 0; i < this.voices.size(); ++i) {
+            Note completed = this.accumulators.get(i).finish();
+
+            if (completed != null) {
+                this.voices.get(i).addNote(completed);
+            }
+        }
+
+        return this.voices;
+    }
+
+    /**
+     * Adds a voice which has been resting since the beginning of the music.
+     */
+    private void addVoice() {
+        this.voices.add(new VectorMusic(this.header, new ArrayList<Note>()));
+        this.accumulators.add(new NoteAccumulator(this.ticks));
+    }
+}
@@ -0,0 +1,23 @@
+package com.drkharma.vmf.parser.exception;
+
+import java.io.IOException;
+
+/**
+ * Exception for describing a VMF file whose body precedes its header, which cannot be parsed as a stream.
+ */
+public class BodyBeforeHeaderException extends IOException {
+
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor with provided message.
+     *
+     * @param s The message to return to the catcher.
+     */
+    public BodyBeforeHeaderException(String s) {
+        super(s);
+    }
+}
@@ -43,6 +43,24 @@ public class DynamicTest {
         Dynamic actual = Dynamic.getDynamic(0);
     }
 
+    /**
+     * Tests retrieval of a dynamic with the smallest integer code, whose absolute value is negative.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetDynamic005() {
+        Dynamic actual = Dynamic.getDynamic(Integer.MIN_VALUE);
+    }
+
+    /**
+     * Tests that every dynamic is found by its own code.
+     */
+    @Test
+    public void testGetDynamic006() {
+        for (Dynamic dynamic : Dynamic.values()) {
+            assertEquals(dynamic, Dynamic.getDynamic(dynamic.getDynamicCode()));
+        }
+    }
+
     /**
      * Tests retrieval of a dynamic code.
      */
@@ -57,4 +57,14 @@ public class KeySignatureTest {
     public void testGetKeySignature002() {
         KeySignature ks = KeySignature.getKeySignature(100);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that every key signature is found by its own code.
+     */
+    @Test
+    public void testGetKeySignature004() {
+        for (KeySignature keySignature : KeySignature.values()) {
+            assertEquals(keySignature, KeySignature.getKeySignature(keySignature.getKeySignatureCode()));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.drkharma.vmf;
+
+import org.apache.commons.lang3.math.Fraction;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test Class for {@link MeasureIndex}
+ */
+public class MeasureIndexTest {
+
+    /**
+     * Builds a header with the given tick value and time signatures.
+     *
+     * @param tickValue      The value of a tick.
+     * @param timeSignatures The time signatures.
+     * @return The header.
+     */
+    private static VectorMusicHeader header(Fraction tickValue, TimeSignature... timeSignatures) {
+        return new VectorMusicHeader(tickValue, 1, 1, Arrays.asList(timeSignatures),
+                Arrays.asList(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR)),
+                Arrays.asList(new MetronomeMarking(0, 120)));
+    }
+
+    /**
+     * Tests conversions under a single time signature.
+     */
+    @Test
+    public void testTickOfMeasure001() {
+        MeasureIndex index = new MeasureIndex(header(Fraction.getFraction(1, 4), new TimeSignature(0, "4/4")));
+
+        assertEquals(0, index.tickOfMeasure(0));
+        assertEquals(32, index.tickOfMeasure(2));
+        assertEquals(0, index.measureOfTick(15));
+        assertEquals(1, index.measureOfTick(31));
+        assertEquals(2, index.measureOfTick(32));
+    }
+
+    /**
+     * Tests conversions across time signature changes given out of order.
+     */
+    @Test
+    public void testTickOfMeasure002() {
+        MeasureIndex index = new MeasureIndex(header(Fraction.ONE,
+                new TimeSignature(4, "3/4"), new TimeSignature(0, "2/4"), new TimeSignature(2, "6/8")));
+
+        int[] expected = {0, 2, 4, 7, 10, 13, 16};
+
+        for (int measure = 0; measure < expected.length; ++measure) {
+            assertEquals(expected[measure], index.tickOfMeasure(measure));
+        }
+
+        assertEquals(1, index.measureOfTick(3));
+        assertEquals(2, index.measureOfTick(6));
+        assertEquals(3, index.measureOfTick(7));
+        assertEquals(5, index.measureOfTick(15));
+    }
+
+    /**
+     * Tests that measures which do not begin on a whole tick begin on the following tick.
+     */
+    @Test
+    public void testTickOfMeasure003() {
+        MeasureIndex index = new MeasureIndex(header(Fraction.ONE, new TimeSignature(0, "3/8")));
+
+        assertEquals(0, index.tickOfMeasure(0));
+        assertEquals(2, index.tickOfMeasure(1));
+        assertEquals(3, index.tickOfMeasure(2));
+        assertEquals(5, index.tickOfMeasure(3));
+        assertEquals(0, index.measureOfTick(1));
+        assertEquals(1, index.measureOfTick(2));
+        assertEquals(2, index.measureOfTick(4));
+        assertEquals(3, index.measureOfTick(5));
+    }
+
+    /**
+     * Tests that a header without time signatures is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMeasureIndex001() {
+        new MeasureIndex(header(Fraction.ONE));
+    }
+
+    /**
+     * Tests finding the notes of a measure.
+     */
+    @Test
+    public void testNotesInMeasure001() {
+        List<Note> notes = Arrays.asList(
+                new Note(-1, 0, 0, 4, 0, 3),
+                new Note(-1, 0, 4, 4, 3, 1),
+                new Note(-1, 0, 7, 4, 2, 1)
+        );
+        VectorMusicHeader header = header(Fraction.ONE, new TimeSignature(0, "2/4"));
+        VectorMusic music = new VectorMusic(header, notes);
+        MeasureIndex index = new MeasureIndex(header);
+
+        assertEquals(notes.subList(0, 1), index.notesInMeasure(music, 0));
+        assertEquals(notes.subList(0, 2), index.notesInMeasure(music, 1));
+        assertEquals(notes.subList(2, 3), index.notesInMeasure(music, 2));
+        assertEquals(Collections.emptyList(), index.notesInMeasure(music, 3));
+    }
+}
@@ -0,0 +1,125 @@
+package com.drkharma.vmf;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for {@link NoteSpliterator}
+ */
+public class NoteSpliteratorTest {
+
+    /**
+     * Collects the notes of a range and their onsets, in order.
+     */
+    private static final NoteSpliterator.Reducer<List<String>> COLLECTOR = new NoteSpliterator.Reducer<List<String>>() {
+        @Override
+        public List<String> identity() {
+            return new ArrayList<String>();
+        }
+
+        @Override
+        public List<String> accumulate(List<String> result, Note note, int onset) {
+            result.add(onset + ":" + note.getPitchClass() + note.getOctave());
+            return result;
+        }
+
+        @Override
+        public List<String> combine(List<String> left, List<String> right) {
+            left.addAll(right);
+            return left;
+        }
+    };
+
+    /**
+     * Builds a piece of random notes.
+     *
+     * @param size The number of notes.
+     * @param seed The seed of the notes.
+     * @return The piece.
+     */
+    private static VectorMusic piece(int size, long seed) {
+        Random random = new Random(seed);
+        List<Note> notes = new ArrayList<Note>(size);
+
+        for (int i = 0; i < size; ++i) {
+            notes.add(new Note(-1, 0, random.nextInt(12), 2 + random.nextInt(4), i == 0 ? 0 : 1 + random.nextInt(4)));
+        }
+
+        return new VectorMusic(new VectorMusicHeader(), notes);
+    }
+
+    /**
+     * Tests that splitting halves the range and that the parts carry the onsets of their notes.
+     */
+    @Test
+    public void testTrySplit001() {
+        final VectorMusic music = piece(11, 1);
+        NoteSpliterator suffix = music.notes();
+        NoteSpliterator prefix = suffix.trySplit();
+        final int[] next = {0};
+
+        NoteSpliterator.Action check = new NoteSpliterator.Action() {
+            @Override
+            public void accept(Note note, int onset) {
+                assertSame(music.getNotes().get(next[0]), note);
+                assertEquals(music.getOnset(next[0]), onset);
+                next[0]++;
+            }
+        };
+
+        assertEquals(5, prefix.size());
+        assertEquals(6, suffix.size());
+
+        assertTrue(prefix.tryAdvance(check));
+        prefix.forEachRemaining(check);
+        assertFalse(prefix.tryAdvance(check));
+        assertEquals(0, prefix.size());
+        assertNull(prefix.trySplit());
+
+        suffix.forEachRemaining(check);
+        assertEquals(11, next[0]);
+    }
+
+    /**
+     * Tests that a parallel reduction combines its parts in order.
+     */
+    @Test
+    public void testReduce001() {
+        VectorMusic music = piece(100000, 2);
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            assertEquals(music.notes().reduce(COLLECTOR), music.notes().reduce(pool, COLLECTOR));
+            assertEquals(100000, music.notes().reduce(pool, COLLECTOR).size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests the notes of an empty piece and of a piece whose notes are not in a random access list.
+     */
+    @Test
+    public void testNotes001() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+
+        try {
+            assertEquals(0, new VectorMusic().notes().size());
+            assertTrue(new VectorMusic().notes().reduce(pool, COLLECTOR).isEmpty());
+
+            VectorMusic music = piece(1000, 3);
+            VectorMusic linked = new VectorMusic(music.getHeader(), new LinkedList<Note>(music.getNotes()));
+
+            assertEquals(music.notes().reduce(COLLECTOR), linked.notes().reduce(pool, COLLECTOR));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.drkharma.vmf;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for {@link PackedNoteList}
+ */
+public class PackedNoteListTest {
+
+    /**
+     * Tests that notes read back equal the notes added.
+     */
+    @Test
+    public void testGet001() {
+        PackedNoteList list = new PackedNoteList(1);
+
+        list.add(new Note(-5, 7, 11, 2, 0, 4));
+        list.add(new Note(5, 0, 0, 8, 4, 1));
+
+        assertEquals(new Note(-5, 7, 11, 2, 0, 4), list.get(0));
+        assertEquals(new Note(5, 0, 0, 8, 4, 1), list.get(1));
+    }
+
+    /**
+     * Tests that an index outside of the list is rejected.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGet002() {
+        PackedNoteList list = new PackedNoteList();
+
+        list.add(new Note(-1, 0, 0, 4, 0));
+
+        list.get(1);
+    }
+
+    /**
+     * Tests the primitive accessors.
+     */
+    @Test
+    public void testGetDuration001() {
+        PackedNoteList list = new PackedNoteList();
+
+        list.add(new Note(-1, 0, 7, 3, 2, 5));
+
+        assertEquals(5, list.getDuration(0));
+        assertEquals(2, list.getOffset(0));
+        assertEquals(3, list.getOctave(0));
+        assertEquals(7, list.getPitchClassCode(0));
+    }
+
+    /**
+     * Tests insertion and removal in the middle of the list.
+     */
+    @Test
+    public void testAdd001() {
+        PackedNoteList list = new PackedNoteList();
+
+        list.add(new Note(-1, 0, 0, 4, 0));
+        list.add(new Note(-1, 0, 4, 4, 1));
+        list.add(1, new Note(-1, 0, 2, 4, 1));
+
+        assertEquals(Arrays.asList(
+                new Note(-1, 0, 0, 4, 0),
+                new Note(-1, 0, 2, 4, 1),
+                new Note(-1, 0, 4, 4, 1)
+        ), list);
+
+        Note removed = list.remove(0);
+
+        assertEquals(new Note(-1, 0, 0, 4, 0), removed);
+        assertEquals(2, list.size());
+        assertEquals(new Note(-1, 0, 2, 4, 1), list.get(0));
+    }
+
+    /**
+     * Tests that a packed list equals a linked list holding the same notes.
+     */
+    @Test
+    public void testEquals001() {
+        List<Note> notes = new LinkedList<Note>(Arrays.asList(
+                new Note(-1, 0, 0, 4, 0),
+                new Note(-1, 0, 4, 4, 1, 3)
+        ));
+
+        PackedNoteList list = new PackedNoteList(notes);
+        list.trimToSize();
+
+        assertEquals(notes, list);
+        assertEquals(notes.hashCode(), list.hashCode());
+    }
+
+    /**
+     * Tests appending another packed list and changing durations and offsets in place.
+     */
+    @Test
+    public void testAddAll001() {
+        PackedNoteList list = new PackedNoteList(Arrays.asList(new Note(-1, 0, 0, 4, 0)));
+        PackedNoteList other = new PackedNoteList(Arrays.asList(
+                new Note(2, 3, 7, 3, 2, 4),
+                new Note(-5, 0, 11, 5, 4, 1)
+        ));
+
+        assertTrue(list.addAll(other));
+        assertFalse(list.addAll(new PackedNoteList()));
+
+        list.setDuration(0, 5);
+        list.setOffset(1, 6);
+
+        assertEquals(Arrays.asList(
+                new Note(-1, 0, 0, 4, 0, 5),
+                new Note(2, 3, 7, 3, 6, 4),
+                new Note(-5, 0, 11, 5, 4, 1)
+        ), list);
+    }
+}
@@ -0,0 +1,68 @@
+package com.drkharma.vmf;
+
+import org.apache.commons.lang3.math.Fraction;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test Class for {@link TempoMap}
+ */
+public class TempoMapTest {
+
+    /**
+     * The tolerance of comparisons in seconds.
+     */
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Tests conversions across tempo changes given out of order.
+     */
+    @Test
+    public void testToSeconds001() {
+        TempoMap tempoMap = new TempoMap(new VectorMusicHeader(Fraction.ONE, 1, 1,
+                Arrays.asList(new TimeSignature(0, "4/4")),
+                Arrays.asList(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR)),
+                Arrays.asList(new MetronomeMarking(2, 60), new MetronomeMarking(0, 120))));
+
+        assertEquals(0, tempoMap.toSeconds(0), DELTA);
+        assertEquals(3.5, tempoMap.toSeconds(7), DELTA);
+        assertEquals(4, tempoMap.toSeconds(8), DELTA);
+        assertEquals(6, tempoMap.toSeconds(10), DELTA);
+
+        assertEquals(7, tempoMap.toTicks(3.5), DELTA);
+        assertEquals(8, tempoMap.toTicks(4), DELTA);
+        assertEquals(9.5, tempoMap.toTicks(5.5), DELTA);
+    }
+
+    /**
+     * Tests that a fractional tick value scales the length of a tick.
+     */
+    @Test
+    public void testToSeconds002() {
+        TempoMap tempoMap = new TempoMap(new VectorMusicHeader(Fraction.getFraction(1, 4), 1, 1,
+                Arrays.asList(new TimeSignature(0, "3/4")),
+                Arrays.asList(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR)),
+                Arrays.asList(new MetronomeMarking(0, 60), new MetronomeMarking(1, 120))));
+
+        assertEquals(3, tempoMap.toSeconds(12), DELTA);
+        assertEquals(3.5, tempoMap.toSeconds(16), DELTA);
+        assertEquals(16, tempoMap.toTicks(3.5), DELTA);
+    }
+
+    /**
+     * Tests that a piece without metronome markings is played at the default tempo.
+     */
+    @Test
+    public void testToSeconds003() {
+        TempoMap tempoMap = new TempoMap(new VectorMusicHeader(Fraction.ONE, 1, 1,
+                Arrays.asList(new TimeSignature(0, "4/4")),
+                Arrays.asList(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR)),
+                Collections.<MetronomeMarking>emptyList()));
+
+        assertEquals(60.0 / TempoMap.DEFAULT_TEMPO * 10, tempoMap.toSeconds(10), DELTA);
+    }
+}
@@ -0,0 +1,145 @@
+package com.drkharma.vmf;
+
+import org.apache.commons.lang3.math.Fraction;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for {@link VectorMusicHeader}
+ */
+public class VectorMusicHeaderTest {
+
+    /**
+     * Tests that events given out of order are sorted by measure.
+     */
+    @Test
+    public void testGetTimeSignatures001() {
+        VectorMusicHeader header = new VectorMusicHeader(Fraction.ONE, 1, 1,
+                Arrays.asList(new TimeSignature(8, "3/4"), new TimeSignature(0, "4/4"), new TimeSignature(4, "6/8")),
+                Arrays.asList(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR)),
+                Arrays.asList(new MetronomeMarking(0, 120)));
+
+        assertEquals(Arrays.asList(new TimeSignature(0, "4/4"), new TimeSignature(4, "6/8"),
+                new TimeSignature(8, "3/4")), header.getTimeSignatures());
+    }
+
+    /**
+     * Tests that added events are kept sorted, with events at the same measure in the order they were added.
+     */
+    @Test
+    public void testAddKeySignature001() {
+        VectorMusicHeader header = new VectorMusicHeader();
+
+        header.addKeySignature(new KeySignatureInstance(6, KeySignature.D_MAJOR_B_MINOR));
+        header.addKeySignature(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR));
+        header.addKeySignature(new KeySignatureInstance(3, KeySignature.G_MAJOR_E_MINOR));
+        header.addKeySignature(new KeySignatureInstance(3, KeySignature.F_MAJOR_D_MINOR));
+
+        assertEquals(Arrays.asList(
+                new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR),
+                new KeySignatureInstance(3, KeySignature.G_MAJOR_E_MINOR),
+                new KeySignatureInstance(3, KeySignature.F_MAJOR_D_MINOR),
+                new KeySignatureInstance(6, KeySignature.D_MAJOR_B_MINOR)
+        ), header.getKeySignatures());
+    }
+
+    /**
+     * Tests finding the events in effect at a measure.
+     */
+    @Test
+    public void testAt001() {
+        VectorMusicHeader header = new VectorMusicHeader();
+
+        header.addTimeSignature(new TimeSignature(0, "4/4"));
+        header.addTimeSignature(new TimeSignature(5, "3/4"));
+        header.addKeySignature(new KeySignatureInstance(2, KeySignature.G_MAJOR_E_MINOR));
+        header.addMetronomeMarking(new MetronomeMarking(0, 120));
+        header.addMetronomeMarking(new MetronomeMarking(10, 60));
+
+        assertEquals(new TimeSignature(0, "4/4"), header.timeSignatureAt(4));
+        assertEquals(new TimeSignature(5, "3/4"), header.timeSignatureAt(5));
+        assertEquals(new KeySignatureInstance(2, KeySignature.G_MAJOR_E_MINOR), header.keySignatureAt(1));
+        assertEquals(new KeySignatureInstance(2, KeySignature.G_MAJOR_E_MINOR), header.keySignatureAt(100));
+        assertEquals(new MetronomeMarking(0, 120), header.tempoAt(9));
+        assertEquals(new MetronomeMarking(10, 60), header.tempoAt(10));
+    }
+
+    /**
+     * Tests that no event is in effect in a piece without events.
+     */
+    @Test
+    public void testAt002() {
+        VectorMusicHeader header = new VectorMusicHeader();
+
+        assertNull(header.timeSignatureAt(0));
+        assertNull(header.keySignatureAt(3));
+        assertNull(header.tempoAt(-1));
+    }
+
+    /**
+     * Tests that the events cannot be changed other than through the header.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetMetronomeMarkings001() {
+        new VectorMusicHeader().getMetronomeMarkings().add(new MetronomeMarking(0, 120));
+    }
+
+    /**
+     * Tests that the default strategy generates a random version 4 ID once.
+     */
+    @Test
+    public void testGetId001() {
+        VectorMusicHeader header = new VectorMusicHeader();
+        UUID id = header.getId();
+
+        assertEquals(4, id.version());
+        assertEquals(2, id.variant());
+        assertSame(id, header.getId());
+        assertNotEquals(id, new VectorMusicHeader().getId());
+    }
+
+    /**
+     * Tests that content derived IDs are equal for equal headers with equal names.
+     */
+    @Test
+    public void testGetId002() {
+        IdStrategy previous = VectorMusicHeader.getDefaultIdStrategy();
+        VectorMusicHeader.setDefaultIdStrategy(IdStrategy.CONTENT);
+
+        try {
+            VectorMusicHeader first = new VectorMusicHeader("piece");
+            VectorMusicHeader second = new VectorMusicHeader("piece");
+            VectorMusicHeader other = new VectorMusicHeader("other");
+
+            first.addTimeSignature(new TimeSignature(0, "4/4"));
+            second.addTimeSignature(new TimeSignature(0, "4/4"));
+            other.addTimeSignature(new TimeSignature(0, "4/4"));
+
+            assertEquals(first.getId(), second.getId());
+            assertNotEquals(first.getId(), other.getId());
+            assertEquals(3, first.getId().version());
+        } finally {
+            VectorMusicHeader.setDefaultIdStrategy(previous);
+        }
+    }
+
+    /**
+     * Tests that a restored ID replaces the generated one, and that clearing it generates a new one.
+     */
+    @Test
+    public void testSetId001() {
+        VectorMusicHeader header = new VectorMusicHeader();
+        UUID id = new UUID(1, 2);
+
+        header.setId(id);
+        assertEquals(id, header.getId());
+
+        header.setId(null);
+        assertNotNull(header.getId());
+        assertNotEquals(id, header.getId());
+    }
+}
@@ -3,7 +3,12 @@ package com.drkharma.vmf;
 import org.apache.commons.lang3.math.Fraction;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
 
@@ -415,4 +420,183 @@ public class VectorMusicTest {
 
         assertNotEquals(vm1.hashCode(), vm2.hashCode());
     }
-}
\ No newline at end of file
+
+    /**
+     * Builds a voice of three notes beginning at ticks 0, 3 and 4, with rests at ticks 2 and 5.
+     *
+     * @return The voice.
+     */
+    private static VectorMusic voice() {
+        VectorMusic music = new VectorMusic();
+
+        music.addNote(new Note(-1, 0, 0, 4, 0, 2));
+        music.addNote(new Note(-1, 0, 4, 4, 3, 1));
+        music.addNote(new Note(-1, 0, 7, 4, 1, 1));
+
+        return music;
+    }
+
+    /**
+     * Tests the onsets of notes, including a note added after the index was built.
+     */
+    @Test
+    public void testGetOnset001() {
+        VectorMusic music = voice();
+
+        assertEquals(0, music.getOnset(0));
+        assertEquals(3, music.getOnset(1));
+        assertEquals(4, music.getOnset(2));
+
+        music.addNote(new Note(-1, 0, 0, 5, 2, 1));
+
+        assertEquals(6, music.getOnset(3));
+    }
+
+    /**
+     * Tests that an onset beyond the notes is rejected.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOnset002() {
+        voice().getOnset(3);
+    }
+
+    /**
+     * Tests that threads querying a piece at once all see a complete onset index.
+     */
+    @Test
+    public void testGetOnset003() throws Exception {
+        for (int round = 0; round < 50; ++round) {
+            final VectorMusic music = new VectorMusic();
+            final int size = 10000;
+            final CountDownLatch start = new CountDownLatch(1);
+            final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+            Thread[] threads = new Thread[4];
+
+            for (int i = 0; i < size; ++i) {
+                music.addNote(new Note(-1, 0, 0, 4, 1));
+            }
+
+            for (int t = 0; t < threads.length; ++t) {
+                threads[t] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+
+                            for (int i = size - 1; i >= 0; i -= 97) {
+                                assertEquals(i + 1, music.getOnset(i));
+                            }
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+
+            start.countDown();
+
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertNull(failure.get());
+        }
+    }
+
+    /**
+     * Tests finding the note sounding at a tick.
+     */
+    @Test
+    public void testNoteAt001() {
+        VectorMusic music = voice();
+        List<Note> notes = music.getNotes();
+
+        assertSame(notes.get(0), music.noteAt(0));
+        assertSame(notes.get(0), music.noteAt(1));
+        assertNull(music.noteAt(2));
+        assertSame(notes.get(1), music.noteAt(3));
+        assertSame(notes.get(2), music.noteAt(4));
+        assertNull(music.noteAt(5));
+        assertNull(music.noteAt(-1));
+        assertNull(new VectorMusic().noteAt(0));
+    }
+
+    /**
+     * Tests finding the notes sounding over ranges of ticks.
+     */
+    @Test
+    public void testNotesBetween001() {
+        VectorMusic music = voice();
+        List<Note> notes = music.getNotes();
+
+        assertEquals(notes, music.notesBetween(0, 10));
+        assertEquals(notes.subList(0, 1), music.notesBetween(1, 3));
+        assertEquals(notes.subList(1, 3), music.notesBetween(2, 5));
+        assertEquals(Collections.emptyList(), music.notesBetween(2, 3));
+        assertEquals(Collections.emptyList(), music.notesBetween(5, 10));
+        assertEquals(Collections.emptyList(), music.notesBetween(4, 4));
+    }
+
+    /**
+     * Tests that a piece built note by note has the fingerprint of an equal piece built from a list.
+     */
+    @Test
+    public void testGetFingerprint001() {
+        VectorMusic built = voice();
+        VectorMusic listed = new VectorMusic(new VectorMusicHeader("other name"), Arrays.asList(
+                new Note(-1, 0, 0, 4, 0, 2),
+                new Note(-1, 0, 4, 4, 3, 1),
+                new Note(-1, 0, 7, 4, 1, 1)
+        ));
+
+        assertEquals(built.getFingerprint(), listed.getFingerprint());
+        assertEquals(built.hashCode(), listed.hashCode());
+        assertEquals(built, listed);
+    }
+
+    /**
+     * Tests that pieces differing in a single note or header value have different fingerprints.
+     */
+    @Test
+    public void testGetFingerprint002() {
+        VectorMusic music = voice();
+        VectorMusic longer = voice();
+        VectorMusic retimed = voice();
+
+        longer.addNote(new Note(-1, 0, 0, 4, 1));
+        retimed.getHeader().addMetronomeMarking(new MetronomeMarking(0, 90));
+
+        assertNotEquals(music.getFingerprint(), longer.getFingerprint());
+        assertNotEquals(music.getFingerprint(), retimed.getFingerprint());
+        assertNotEquals(music, longer);
+        assertNotEquals(music, retimed);
+    }
+
+    /**
+     * Tests that the fingerprint is cached until a note is added or it is invalidated.
+     */
+    @Test
+    public void testGetFingerprint003() {
+        VectorMusic sustained = new VectorMusic(new VectorMusicHeader("x"), new ArrayList<Note>());
+        VectorMusic whole = new VectorMusic(new VectorMusicHeader("y"), new ArrayList<Note>());
+        Note note = new Note(-1, 0, 0, 4, 0);
+
+        sustained.getFingerprint();
+        sustained.addNote(note);
+        long fingerprint = sustained.getFingerprint();
+        note.incrementDuration();
+        whole.addNote(new Note(-1, 0, 0, 4, 0, 2));
+
+        // The note was changed behind the piece, so the cached fingerprint is stale.
+        assertEquals(fingerprint, sustained.getFingerprint());
+        assertNotEquals(whole, sustained);
+
+        sustained.invalidateFingerprint();
+
+        assertEquals(whole.getNotes(), sustained.getNotes());
+        assertEquals(whole, sustained);
+        assertEquals(whole.hashCode(), sustained.hashCode());
+        assertEquals(whole.getFingerprint(), sustained.getFingerprint());
+    }
+}
@@ -0,0 +1,123 @@
+package com.drkharma.vmf.corpus;
+
+import com.drkharma.vmf.VectorMusic;
+import com.drkharma.vmf.parser.exception.TimeSignatureMissingException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for {@link VMFCorpusParser}
+ */
+public class VMFCorpusParserTest {
+
+    /**
+     * Gets the path of a fixture file.
+     *
+     * @param name The name of the fixture.
+     * @return The path of the fixture.
+     */
+    private static Path fixture(String name) {
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+
+        try {
+            return Paths.get(classloader.getResource("fixtures/" + name).toURI());
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+            return null;
+        }
+    }
+
+    /**
+     * Tests that outcomes are delivered in the order of the files, with errors captured per file.
+     */
+    @Test
+    public void testIterator001() {
+        List<Path> files = Arrays.asList(
+                fixture("simple.vmf"),
+                fixture("noTimeSignatures.vmf"),
+                fixture("notJson.vmf"),
+                fixture("rest.vmf"),
+                fixture("simple.vmf").resolveSibling("doesNotExist.vmf")
+        );
+
+        VMFCorpusParser parser = new VMFCorpusParser(2);
+        Iterator<CorpusEntry> it = parser.iterator(files);
+        List<CorpusEntry> actual = new ArrayList<CorpusEntry>();
+
+        while (it.hasNext()) {
+            actual.add(it.next());
+        }
+
+        parser.close();
+
+        assertEquals(5, actual.size());
+
+        for (int i = 0; i < files.size(); ++i) {
+            assertEquals(files.get(i), actual.get(i).getPath());
+        }
+
+        assertTrue(actual.get(0).isSuccessful());
+        assertEquals(4, actual.get(0).getMusic().getNotes().size());
+        assertTrue(actual.get(1).getError() instanceof TimeSignatureMissingException);
+        assertTrue(actual.get(2).getError() instanceof IOException);
+        assertEquals(3, actual.get(3).getMusic().getNotes().size());
+        assertTrue(actual.get(4).getError() instanceof IOException);
+    }
+
+    /**
+     * Tests that a file whose body precedes its header is parsed as it would be with the header first.
+     */
+    @Test
+    public void testIterator002() {
+        VMFCorpusParser parser = new VMFCorpusParser(1);
+        Iterator<CorpusEntry> it = parser.iterator(Arrays.asList(fixture("simple.vmf"), fixture("bodyFirst.vmf")));
+        CorpusEntry simple = it.next();
+        CorpusEntry bodyFirst = it.next();
+
+        parser.close();
+
+        assertTrue(bodyFirst.isSuccessful());
+        assertEquals("bodyFirst.vmf", bodyFirst.getMusic().getHeader().getName());
+        assertEquals(simple.getMusic(), bodyFirst.getMusic());
+    }
+
+    /**
+     * Tests that every file of a directory is delivered to a callback.
+     */
+    @Test
+    public void testParse001() throws IOException, InterruptedException {
+        final Map<Path, VectorMusic> parsed = new ConcurrentHashMap<Path, VectorMusic>();
+        final Map<Path, Throwable> failed = new ConcurrentHashMap<Path, Throwable>();
+
+        List<Path> files = VMFCorpusParser.listFiles(fixture("simple.vmf").getParent());
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        new VMFCorpusParser(executor, 1).parse(files, new VMFCorpusParser.Callback() {
+            @Override
+            public void onParsed(Path path, VectorMusic music) {
+                parsed.put(path, music);
+            }
+
+            @Override
+            public void onError(Path path, Throwable error) {
+                failed.put(path, error);
+            }
+        });
+
+        executor.shutdown();
+
+        assertEquals(files.size(), parsed.size() + failed.size());
+        assertTrue(parsed.containsKey(fixture("sustained.vmf")));
+        assertTrue(failed.containsKey(fixture("missingHeader.vmf")));
+    }
+}
@@ -0,0 +1,83 @@
+package com.drkharma.vmf.corpus;
+
+import com.drkharma.vmf.VectorMusic;
+import com.drkharma.vmf.parser.VMFStreamParser;
+import com.drkharma.vmf.parser.exception.TimeSignatureMissingException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for {@link VMFDeduplicator}
+ */
+public class VMFDeduplicatorTest {
+
+    /**
+     * Gets the path of a fixture file.
+     *
+     * @param name The name of the fixture.
+     * @return The path of the fixture.
+     */
+    private static Path fixture(String name) {
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+
+        try {
+            return Paths.get(classloader.getResource("fixtures/" + name).toURI());
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+            return null;
+        }
+    }
+
+    /**
+     * Parses a fixture file.
+     *
+     * @param name The name of the fixture.
+     * @return The music of the fixture.
+     */
+    private static VectorMusic parse(String name) throws IOException, TimeSignatureMissingException {
+        return new VMFStreamParser(fixture(name).toFile()).parse();
+    }
+
+    /**
+     * Tests that separately parsed copies of a piece are found, with full comparison.
+     */
+    @Test
+    public void testAdd001() throws IOException, TimeSignatureMissingException {
+        VMFDeduplicator deduplicator = new VMFDeduplicator();
+        Path copy = Paths.get("copy.vmf");
+        Path other = Paths.get("other.vmf");
+
+        assertNull(deduplicator.add(fixture("simple.vmf"), parse("simple.vmf")));
+        assertNull(deduplicator.add(fixture("rest.vmf"), parse("rest.vmf")));
+        assertEquals(fixture("simple.vmf"), deduplicator.add(copy, parse("simple.vmf")));
+        assertEquals(fixture("simple.vmf"), deduplicator.add(other, parse("simple.vmf")));
+
+        Map<Path, List<Path>> duplicates = deduplicator.getDuplicates();
+
+        assertEquals(2, deduplicator.getUniqueCount());
+        assertEquals(Collections.singletonMap(fixture("simple.vmf"), Arrays.asList(copy, other)), duplicates);
+    }
+
+    /**
+     * Tests that duplicates are found by fingerprint alone without keeping the music.
+     */
+    @Test
+    public void testAdd002() throws IOException, TimeSignatureMissingException {
+        VMFDeduplicator deduplicator = new VMFDeduplicator(false);
+
+        assertNull(deduplicator.add(fixture("sustained.vmf"), parse("sustained.vmf")));
+        assertNull(deduplicator.add(fixture("simple.vmf"), parse("simple.vmf")));
+        assertEquals(fixture("sustained.vmf"), deduplicator.add(Paths.get("copy.vmf"), parse("sustained.vmf")));
+        assertEquals(2, deduplicator.getUniqueCount());
+    }
+}
@@ -0,0 +1,203 @@
+package com.drkharma.vmf.corpus;
+
+import com.drkharma.vmf.VectorMusic;
+import com.drkharma.vmf.parser.exception.TimeSignatureMissingException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for {@link VMFParseCache}
+ */
+public class VMFParseCacheTest {
+
+    /**
+     * A temporary directory for copies of fixtures and the disk tier.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Gets the path of a fixture file.
+     *
+     * @param name The name of the fixture.
+     * @return The path of the fixture.
+     */
+    private static Path fixture(String name) {
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+
+        try {
+            return Paths.get(classloader.getResource("fixtures/" + name).toURI());
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+            return null;
+        }
+    }
+
+    /**
+     * Gets the only snapshot in the disk tier.
+     *
+     * @param directory The directory holding the disk tier.
+     * @return The path of the snapshot.
+     * @throws IOException If the directory cannot be listed.
+     */
+    private static Path snapshot(Path directory) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.vmfs")) {
+            return stream.iterator().next();
+        }
+    }
+
+    /**
+     * Tests that identical content under a different path is served from memory.
+     */
+    @Test
+    public void testParse001() throws IOException, TimeSignatureMissingException {
+        Path copy = folder.getRoot().toPath().resolve("copy.vmf");
+        Files.copy(fixture("simple.vmf"), copy);
+
+        VMFParseCache cache = new VMFParseCache(10, Long.MAX_VALUE);
+        VectorMusic first = cache.parse(fixture("simple.vmf"));
+        VectorMusic second = cache.parse(copy);
+
+        assertSame(first, second);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(VMFParseCache.weigh(first), cache.getWeight());
+    }
+
+    /**
+     * Tests that the least recently used piece is evicted beyond the entry limit.
+     */
+    @Test
+    public void testParse002() throws IOException, TimeSignatureMissingException {
+        VMFParseCache cache = new VMFParseCache(2, Long.MAX_VALUE);
+
+        cache.parse(fixture("simple.vmf"));
+        cache.parse(fixture("rest.vmf"));
+        cache.parse(fixture("simple.vmf"));
+        cache.parse(fixture("sustained.vmf"));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+
+        // The rest fixture was the least recently used and must be parsed again.
+        cache.parse(fixture("rest.vmf"));
+        assertEquals(4, cache.getMissCount());
+
+        cache.parse(fixture("sustained.vmf"));
+        assertEquals(2, cache.getHitCount());
+    }
+
+    /**
+     * Tests that pieces are evicted beyond the weight limit.
+     */
+    @Test
+    public void testParse003() throws IOException, TimeSignatureMissingException {
+        VMFParseCache cache = new VMFParseCache(10, VMFParseCache.BASE_WEIGHT + 5 * VMFParseCache.NOTE_WEIGHT);
+
+        cache.parse(fixture("simple.vmf"));
+        cache.parse(fixture("rest.vmf"));
+
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    /**
+     * Tests that the disk tier serves pieces to a new cache without parsing.
+     */
+    @Test
+    public void testParse004() throws IOException, TimeSignatureMissingException {
+        Path directory = folder.getRoot().toPath().resolve("snapshots");
+
+        VectorMusic expected = new VMFParseCache(10, Long.MAX_VALUE, directory).parse(fixture("sustained.vmf"));
+
+        VMFParseCache cache = new VMFParseCache(10, Long.MAX_VALUE, directory);
+        VectorMusic actual = cache.parse(fixture("sustained.vmf"));
+
+        assertEquals(expected, actual);
+        assertEquals(0, cache.getMissCount());
+        assertEquals(1, cache.getDiskHitCount());
+    }
+
+    /**
+     * Tests that a truncated snapshot is discarded, the content parsed again and the snapshot rewritten.
+     */
+    @Test
+    public void testParse005() throws IOException, TimeSignatureMissingException {
+        Path directory = folder.getRoot().toPath().resolve("snapshots");
+
+        VectorMusic expected = new VMFParseCache(10, Long.MAX_VALUE, directory).parse(fixture("sustained.vmf"));
+
+        Path snapshot = snapshot(directory);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(bytes, bytes.length / 2));
+
+        VMFParseCache cache = new VMFParseCache(10, Long.MAX_VALUE, directory);
+
+        assertEquals(expected, cache.parse(fixture("sustained.vmf")));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, cache.getDiskHitCount());
+
+        VMFParseCache reopened = new VMFParseCache(10, Long.MAX_VALUE, directory);
+
+        assertEquals(expected, reopened.parse(fixture("sustained.vmf")));
+        assertEquals(1, reopened.getDiskHitCount());
+    }
+
+    /**
+     * Tests that a snapshot of another format is discarded and the content parsed again.
+     */
+    @Test
+    public void testParse006() throws IOException, TimeSignatureMissingException {
+        Path directory = folder.getRoot().toPath().resolve("snapshots");
+
+        VectorMusic expected = new VMFParseCache(10, Long.MAX_VALUE, directory).parse(fixture("simple.vmf"));
+
+        Path snapshot = snapshot(directory);
+        Files.write(snapshot, new byte[]{'n', 'o', 't', ' ', 'a', ' ', 's', 'n', 'a', 'p', 's', 'h', 'o', 't'});
+
+        VMFParseCache cache = new VMFParseCache(10, Long.MAX_VALUE, directory);
+
+        assertEquals(expected, cache.parse(fixture("simple.vmf")));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, cache.getDiskHitCount());
+    }
+
+    /**
+     * Tests that a snapshot which cannot be written does not fail the lookup or keep the piece out of memory.
+     */
+    @Test
+    public void testParse007() throws IOException, TimeSignatureMissingException {
+        // A file in place of the directory makes every snapshot write fail.
+        Path directory = folder.newFile("snapshots").toPath();
+
+        VMFParseCache cache = new VMFParseCache(10, Long.MAX_VALUE, directory);
+        VectorMusic first = cache.parse(fixture("simple.vmf"));
+        VectorMusic second = cache.parse(fixture("simple.vmf"));
+
+        assertSame(first, second);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    /**
+     * Tests that content whose body precedes its header is parsed as it would be with the header first.
+     */
+    @Test
+    public void testParse008() throws IOException, TimeSignatureMissingException {
+        VMFParseCache cache = new VMFParseCache(10, Long.MAX_VALUE);
+
+        assertEquals(cache.parse(fixture("simple.vmf")), cache.parse(fixture("bodyFirst.vmf")));
+        assertEquals(2, cache.getMissCount());
+    }
+}
@@ -0,0 +1,223 @@
+package com.drkharma.vmf.index;
+
+import com.drkharma.vmf.Note;
+import com.drkharma.vmf.VectorMusic;
+import com.drkharma.vmf.VectorMusicHeader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test Class for {@link MelodicIndexStore}
+ */
+public class MelodicIndexStoreTest {
+
+    /**
+     * A temporary folder for the stores under test.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Builds notes of a single duration from pitch classes and octaves.
+     *
+     * @param pitches Alternating pitch class codes and octaves.
+     * @return The notes.
+     */
+    private static List<Note> notes(int... pitches) {
+        List<Note> notes = new ArrayList<Note>();
+
+        for (int i = 0; i < pitches.length; i += 2) {
+            notes.add(new Note(-1, 0, pitches[i], pitches[i + 1], 1));
+        }
+
+        return notes;
+    }
+
+    /**
+     * Builds a random piece.
+     *
+     * @param random The source of randomness.
+     * @param length The number of notes.
+     * @return The piece.
+     */
+    private static VectorMusic randomPiece(Random random, int length) {
+        List<Note> notes = new ArrayList<Note>();
+
+        for (int i = 0; i < length; ++i) {
+            notes.add(new Note(-1, 0, random.nextInt(4), 4, 1 + random.nextInt(2)));
+        }
+
+        return new VectorMusic(new VectorMusicHeader(), notes);
+    }
+
+    /**
+     * Tests that flushed segments are found again when the store is reopened, with the same IDs.
+     */
+    @Test
+    public void testFlush001() throws IOException {
+        Path directory = this.folder.getRoot().toPath();
+        List<Note> fragment = notes(0, 4, 4, 4, 7, 4);
+
+        MelodicIndexStore store = new MelodicIndexStore(directory, 3, false);
+        store.add(new VectorMusic(new VectorMusicHeader(), notes(2, 4, 6, 4, 9, 4)));
+        store.add(new VectorMusic(new VectorMusicHeader(), notes(0, 4, 2, 4, 4, 4)));
+        store.flush();
+        store.add(new VectorMusic(new VectorMusicHeader(), notes(5, 4, 5, 4, 9, 4, 0, 5)));
+        store.close();
+
+        MelodicIndexStore reopened = new MelodicIndexStore(directory, 3, false);
+
+        assertEquals(2, reopened.getSegmentCount());
+        assertEquals(3, reopened.getDocumentCount());
+        assertEquals(Arrays.asList(new Match(0, 0), new Match(2, 1)), reopened.search(fragment));
+
+        // New pieces follow the persisted ones and are searched along with them.
+        assertEquals(3, reopened.add(new VectorMusic(new VectorMusicHeader(), notes(7, 3, 11, 3, 2, 4))));
+        assertArrayEquals(new int[]{0, 2, 3}, reopened.searchDocuments(fragment));
+    }
+
+    /**
+     * Tests that merging segments preserves the results of searches.
+     */
+    @Test
+    public void testMerge001() throws IOException {
+        Random random = new Random(42);
+        MelodicIndex expected = new MelodicIndex(4, true);
+        MelodicIndexStore store = new MelodicIndexStore(this.folder.getRoot().toPath(), 4, true);
+
+        // Enough pieces that the posting lists of each segment carry skips.
+        for (int i = 0; i < 300; ++i) {
+            VectorMusic piece = randomPiece(random, 40);
+
+            assertEquals(expected.add(piece), store.add(piece));
+
+            if (i % 100 == 99) {
+                store.flush();
+            }
+        }
+
+        List<List<Note>> fragments = new ArrayList<List<Note>>();
+        for (int i = 0; i < 20; ++i) {
+            fragments.add(randomPiece(random, 5).getNotes());
+        }
+
+        assertEquals(3, store.getSegmentCount());
+        for (List<Note> fragment : fragments) {
+            assertEquals(expected.search(fragment), store.search(fragment));
+        }
+
+        store.merge();
+
+        assertEquals(1, store.getSegmentCount());
+        assertEquals(2, this.folder.getRoot().list().length);
+        for (List<Note> fragment : fragments) {
+            assertEquals(expected.search(fragment), store.search(fragment));
+        }
+    }
+
+    /**
+     * Tests that merging keeps each segment within the maximum size, and that the merged store reopens.
+     */
+    @Test
+    public void testMerge002() throws IOException {
+        Path directory = this.folder.getRoot().toPath();
+        Random random = new Random(7);
+        MelodicIndex expected = new MelodicIndex(3, false);
+        MelodicIndexStore store = new MelodicIndexStore(directory, 3, false, 4096);
+
+        for (int i = 0; i < 80; ++i) {
+            VectorMusic piece = randomPiece(random, 30);
+
+            assertEquals(expected.add(piece), store.add(piece));
+
+            if (i % 5 == 4) {
+                store.flush();
+            }
+        }
+
+        store.merge();
+
+        assertTrue(store.getSegmentCount() > 1);
+        assertTrue(store.getSegmentCount() < 16);
+        for (File file : this.folder.getRoot().listFiles()) {
+            assertTrue(file.length() <= 4096);
+        }
+
+        MelodicIndexStore reopened = new MelodicIndexStore(directory, 3, false, 4096);
+
+        assertEquals(store.getSegmentCount(), reopened.getSegmentCount());
+        assertEquals(80, reopened.getDocumentCount());
+        for (int i = 0; i < 20; ++i) {
+            List<Note> fragment = randomPiece(random, 4).getNotes();
+
+            assertEquals(expected.search(fragment), store.search(fragment));
+            assertEquals(expected.search(fragment), reopened.search(fragment));
+        }
+    }
+
+    /**
+     * Tests that segments left behind by a merge interrupted before deleting them are not loaded again.
+     */
+    @Test
+    public void testMerge003() throws IOException {
+        Path directory = this.folder.newFolder().toPath();
+        Path saved = this.folder.newFolder().toPath();
+        List<Note> fragment = notes(0, 4, 4, 4, 7, 4);
+
+        MelodicIndexStore store = new MelodicIndexStore(directory, 3, false);
+        store.add(new VectorMusic(new VectorMusicHeader(), notes(0, 4, 4, 4, 7, 4)));
+        store.flush();
+        store.add(new VectorMusic(new VectorMusicHeader(), notes(2, 4, 0, 4, 4, 4, 7, 4)));
+        store.flush();
+
+        List<Path> originals = new ArrayList<Path>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "segment-*.vmfi")) {
+            for (Path file : stream) {
+                originals.add(Files.copy(file, saved.resolve(file.getFileName())));
+            }
+        }
+
+        store.merge();
+
+        for (Path file : originals) {
+            Files.copy(file, directory.resolve(file.getFileName()));
+        }
+        Files.createFile(directory.resolve("segment-123.tmp"));
+
+        MelodicIndexStore reopened = new MelodicIndexStore(directory, 3, false);
+
+        assertEquals(1, reopened.getSegmentCount());
+        assertEquals(2, reopened.getDocumentCount());
+        assertEquals(Arrays.asList(new Match(0, 0), new Match(1, 1)), reopened.search(fragment));
+        assertEquals(2, directory.toFile().list().length);
+    }
+
+    /**
+     * Tests that a store built with other n-gram settings is rejected.
+     */
+    @Test(expected = IOException.class)
+    public void testMelodicIndexStore001() throws IOException {
+        Path directory = this.folder.getRoot().toPath();
+
+        MelodicIndexStore store = new MelodicIndexStore(directory, 3, false);
+        store.add(new VectorMusic(new VectorMusicHeader(), notes(0, 4, 4, 4, 7, 4)));
+        store.close();
+
+        new MelodicIndexStore(directory, 3, true);
+    }
+}
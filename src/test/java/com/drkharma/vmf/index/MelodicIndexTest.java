@@ -0,0 +1,192 @@
+package com.drkharma.vmf.index;
+
+import com.drkharma.vmf.Note;
+import com.drkharma.vmf.VectorMusic;
+import com.drkharma.vmf.VectorMusicHeader;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test Class for {@link MelodicIndex}
+ */
+public class MelodicIndexTest {
+
+    /**
+     * Builds notes of a single duration from pitch classes and octaves.
+     *
+     * @param pitches Alternating pitch class codes and octaves.
+     * @return The notes.
+     */
+    private static List<Note> notes(int... pitches) {
+        List<Note> notes = new ArrayList<Note>();
+
+        for (int i = 0; i < pitches.length; i += 2) {
+            notes.add(new Note(-1, 0, pitches[i], pitches[i + 1], 1));
+        }
+
+        return notes;
+    }
+
+    /**
+     * Builds a piece from its notes.
+     *
+     * @param notes The notes.
+     * @return The piece.
+     */
+    private static VectorMusic piece(List<Note> notes) {
+        return new VectorMusic(new VectorMusicHeader(), notes);
+    }
+
+    /**
+     * Tests that a fragment is found in any transposition, at every position it occurs.
+     */
+    @Test
+    public void testSearch001() {
+        MelodicIndex index = new MelodicIndex(3);
+
+        // C E G E C E G, and the same a whole tone higher across an octave boundary.
+        int first = index.add(piece(notes(0, 4, 4, 4, 7, 4, 4, 4, 0, 4, 4, 4, 7, 4)));
+        int second = index.add(piece(notes(10, 3, 2, 4, 5, 4, 2, 4)));
+        int third = index.add(piece(notes(0, 4, 2, 4, 4, 4, 5, 4)));
+
+        // F A C, a transposition of C E G.
+        List<Match> matches = index.search(notes(5, 3, 9, 3, 0, 4));
+
+        assertEquals(Arrays.asList(new Match(first, 0), new Match(first, 4), new Match(second, 0)), matches);
+        assertArrayEquals(new int[]{first, second}, index.searchDocuments(notes(5, 3, 9, 3, 0, 4)));
+        assertEquals(Collections.<Match>emptyList(), index.search(notes(0, 4, 7, 4, 4, 4)));
+        assertEquals(3, index.getDocumentCount());
+        assertEquals(Arrays.asList(new Match(third, 0)), index.search(notes(0, 4, 2, 4, 4, 4, 5, 4)));
+    }
+
+    /**
+     * Tests that a fragment longer than n must match in full.
+     */
+    @Test
+    public void testSearch002() {
+        MelodicIndex index = new MelodicIndex(2);
+
+        int first = index.add(piece(notes(0, 4, 2, 4, 4, 4, 2, 4, 0, 4)));
+        index.add(piece(notes(0, 4, 2, 4, 4, 4, 5, 4)));
+
+        assertEquals(Arrays.asList(new Match(first, 1)), index.search(notes(2, 4, 4, 4, 2, 4, 0, 4)));
+    }
+
+    /**
+     * Tests that with rhythm the ratios of durations must also match.
+     */
+    @Test
+    public void testSearch003() {
+        MelodicIndex index = new MelodicIndex(3, true);
+
+        int even = index.add(piece(Arrays.asList(
+                new Note(-1, 0, 0, 4, 0, 2), new Note(-1, 0, 4, 4, 2, 2), new Note(-1, 0, 7, 4, 2, 4))));
+        index.add(piece(Arrays.asList(
+                new Note(-1, 0, 0, 4, 0, 2), new Note(-1, 0, 4, 4, 2, 1), new Note(-1, 0, 7, 4, 1, 4))));
+
+        List<Note> fragment = Arrays.asList(
+                new Note(-1, 0, 2, 4, 0, 1), new Note(-1, 0, 6, 4, 1, 1), new Note(-1, 0, 9, 4, 1, 2));
+
+        assertEquals(Arrays.asList(new Match(even, 0)), index.search(fragment));
+    }
+
+    /**
+     * Tests searches through long posting lists, which jump over pieces using their skips, against a scan of every
+     * piece.
+     */
+    @Test
+    public void testSearch005() {
+        Random random = new Random(11);
+        MelodicIndex index = new MelodicIndex(2);
+        List<long[]> pieces = new ArrayList<long[]>();
+
+        for (int i = 0; i < 2000; ++i) {
+            List<Note> notes = new ArrayList<Note>();
+
+            // Most pieces are a single repeated interval, so some terms occur in almost every piece.
+            for (int j = 0; j < 12; ++j) {
+                notes.add(new Note(-1, 0, random.nextInt(10) == 0 ? random.nextInt(12) : 2 * j % 12, 4, 1));
+            }
+
+            index.add(piece(notes));
+            pieces.add(NGrams.terms(notes, 2, false));
+        }
+
+        for (int f = 0; f < 200; ++f) {
+            List<Note> fragment = new ArrayList<Note>();
+            int length = 2 + random.nextInt(3);
+
+            for (int j = 0; j < length; ++j) {
+                fragment.add(new Note(-1, 0, random.nextInt(3) == 0 ? random.nextInt(12) : 2 * j % 12, 4, 1));
+            }
+
+            long[] terms = NGrams.terms(fragment, 2, false);
+            List<Match> expected = new ArrayList<Match>();
+
+            for (int document = 0; document < pieces.size(); ++document) {
+                long[] piece = pieces.get(document);
+
+                for (int position = 0; position + terms.length <= piece.length; ++position) {
+                    if (Arrays.equals(terms, Arrays.copyOfRange(piece, position, position + terms.length))) {
+                        expected.add(new Match(document, position));
+                    }
+                }
+            }
+
+            assertEquals(expected, index.search(fragment));
+        }
+    }
+
+    /**
+     * Tests that a fragment shorter than n is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSearch004() {
+        new MelodicIndex(4).search(notes(0, 4, 4, 4, 7, 4));
+    }
+
+    /**
+     * Tests that steps which differ only beyond the limits of the terms match each other.
+     */
+    @Test
+    public void testSearch006() {
+        MelodicIndex intervals = new MelodicIndex(2);
+
+        // Intervals of 132 and 144 semitones are both clamped to 127, while 126 is kept apart.
+        intervals.add(piece(notes(0, 0, 0, 11)));
+        intervals.add(piece(notes(0, 0, 0, 12)));
+        intervals.add(piece(notes(0, 0, 6, 10)));
+
+        assertArrayEquals(new int[]{0, 1}, intervals.searchDocuments(notes(0, 1, 0, 12)));
+        assertArrayEquals(new int[]{2}, intervals.searchDocuments(notes(0, 1, 6, 11)));
+
+        MelodicIndex rhythm = new MelodicIndex(2, true);
+
+        // Ratios of 16:1 and 32:1 are both clamped to 15:1, which 15:1 itself shares, while 14:1 is kept apart.
+        rhythm.add(piece(Arrays.asList(new Note(-1, 0, 0, 4, 1, 1), new Note(-1, 0, 2, 4, 1, 16))));
+        rhythm.add(piece(Arrays.asList(new Note(-1, 0, 0, 4, 1, 1), new Note(-1, 0, 2, 4, 1, 32))));
+        rhythm.add(piece(Arrays.asList(new Note(-1, 0, 0, 4, 1, 1), new Note(-1, 0, 2, 4, 1, 15))));
+        rhythm.add(piece(Arrays.asList(new Note(-1, 0, 0, 4, 1, 1), new Note(-1, 0, 2, 4, 1, 14))));
+
+        assertArrayEquals(new int[]{0, 1, 2}, rhythm.searchDocuments(
+                Arrays.asList(new Note(-1, 0, 5, 3, 1, 2), new Note(-1, 0, 7, 3, 1, 64))));
+        assertArrayEquals(new int[]{3}, rhythm.searchDocuments(
+                Arrays.asList(new Note(-1, 0, 5, 3, 1, 2), new Note(-1, 0, 7, 3, 1, 28))));
+    }
+
+    /**
+     * Tests that n-grams too long to pack into a term are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMelodicIndex001() {
+        new MelodicIndex(6, true);
+    }
+}
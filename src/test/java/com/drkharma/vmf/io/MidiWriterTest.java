@@ -0,0 +1,143 @@
+package com.drkharma.vmf.io;
+
+import com.drkharma.vmf.*;
+import org.apache.commons.lang3.math.Fraction;
+import org.junit.Test;
+
+import javax.sound.midi.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test Class for {@link MidiWriter}
+ */
+public class MidiWriterTest {
+
+    /**
+     * Builds a header with a tick value of an eighth note.
+     *
+     * @return The header.
+     */
+    private static VectorMusicHeader header() {
+        return new VectorMusicHeader(Fraction.getFraction(1, 2), 1, 2, "Test",
+                Arrays.asList(new TimeSignature(0, "3/4"), new TimeSignature(2, "6/8")),
+                Arrays.asList(new KeySignatureInstance(0, KeySignature.B_FLAT_MAJOR_G_MINOR)),
+                Arrays.asList(new MetronomeMarking(0, 120), new MetronomeMarking(1, 60)));
+    }
+
+    /**
+     * Writes music and reads it back with the MIDI system of the platform.
+     *
+     * @param voices The voices to write.
+     * @return The sequence read back.
+     */
+    private static Sequence roundTrip(VectorMusic... voices) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new MidiWriter(out, 96).write(Arrays.asList(voices));
+
+        return MidiSystem.getSequence(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    /**
+     * Gets the events of a track as arrays of tick, status, and data bytes.
+     *
+     * @param track The track.
+     * @return The events, without the end of the track.
+     */
+    private static long[][] events(Track track) {
+        long[][] events = new long[track.size() - 1][];
+
+        for (int i = 0; i < events.length; ++i) {
+            MidiEvent event = track.get(i);
+            byte[] bytes = event.getMessage().getMessage();
+            long[] values = new long[bytes.length + 1];
+
+            values[0] = event.getTick();
+            for (int j = 0; j < bytes.length; ++j) {
+                values[j + 1] = bytes[j] & 0xFF;
+            }
+
+            events[i] = values;
+        }
+
+        return events;
+    }
+
+    /**
+     * Tests that the notes of each voice are written with their keys, velocities and timing.
+     */
+    @Test
+    public void testWrite001() throws Exception {
+        VectorMusic first = new VectorMusic(header(), Arrays.asList(
+                new Note(1, 0, 0, 4, 0, 2),
+                new Note(3, 0, 9, 3, 4, 1),
+                new Note(3, 0, 9, 3, 1, 3)));
+        VectorMusic second = new VectorMusic(header(), Arrays.asList(new Note(-5, 0, 11, -1, 1, 1)));
+
+        Sequence sequence = roundTrip(first, second);
+
+        assertEquals(Sequence.PPQ, sequence.getDivisionType(), 0);
+        assertEquals(96, sequence.getResolution());
+        assertEquals(3, sequence.getTracks().length);
+
+        assertArrayEquals(new long[][]{
+                {0, 0x90, 60, 68},
+                {96, 0x80, 60, 0},
+                {192, 0x90, 57, 96},
+                {240, 0x80, 57, 0},
+                {240, 0x90, 57, 96},
+                {384, 0x80, 57, 0}
+        }, events(sequence.getTracks()[1]));
+        assertArrayEquals(new long[][]{
+                {48, 0x91, 11, 16},
+                {96, 0x81, 11, 0}
+        }, events(sequence.getTracks()[2]));
+    }
+
+    /**
+     * Tests that the header is written as meta events at the ticks of their measures.
+     */
+    @Test
+    public void testWrite002() throws Exception {
+        Sequence sequence = roundTrip(new VectorMusic(header(), Arrays.asList(new Note(1, 0, 0, 4, 0, 1))));
+
+        assertArrayEquals(new long[][]{
+                {0, 0xFF, 0x03, 4, 'T', 'e', 's', 't'},
+                {0, 0xFF, 0x58, 4, 3, 2, 24, 8},
+                {0, 0xFF, 0x59, 2, 0xFE, 0},
+                {0, 0xFF, 0x51, 3, 0x07, 0xA1, 0x20},
+                {288, 0xFF, 0x51, 3, 0x0F, 0x42, 0x40},
+                {576, 0xFF, 0x58, 4, 6, 3, 24, 8}
+        }, events(sequence.getTracks()[0]));
+        assertEquals(4.5, sequence.getMicrosecondLength() / 1e6, 1e-9);
+    }
+
+    /**
+     * Tests that voices beyond the ninth skip the percussion channel.
+     */
+    @Test
+    public void testWrite003() throws Exception {
+        VectorMusic[] voices = new VectorMusic[11];
+        for (int i = 0; i < voices.length; ++i) {
+            voices[i] = new VectorMusic(header(), Arrays.asList(new Note(1, 0, 0, 4, 0, 1)));
+        }
+
+        Sequence sequence = roundTrip(voices);
+
+        assertEquals(0x98, events(sequence.getTracks()[9])[0][1]);
+        assertEquals(0x9A, events(sequence.getTracks()[10])[0][1]);
+    }
+
+    /**
+     * Tests that a note outside the range of MIDI keys is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrite004() throws Exception {
+        roundTrip(new VectorMusic(header(), Arrays.asList(new Note(1, 0, 8, 9, 0, 1))));
+    }
+}
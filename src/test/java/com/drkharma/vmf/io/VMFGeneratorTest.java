@@ -0,0 +1,93 @@
+package com.drkharma.vmf.io;
+
+import com.drkharma.vmf.VectorMusic;
+import com.drkharma.vmf.corpus.VMFCorpusParser;
+import com.drkharma.vmf.parser.VMFParser;
+import com.drkharma.vmf.parser.VMFStreamParser;
+import com.drkharma.vmf.parser.exception.TimeSignatureMissingException;
+import org.apache.commons.lang3.math.Fraction;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for {@link VMFGenerator}
+ */
+public class VMFGeneratorTest {
+
+    /**
+     * A temporary directory for generated corpora.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Tests that generation is determined by the seed.
+     */
+    @Test
+    public void testToByteArray001() {
+        VMFGenerator generator = new VMFGenerator().setTicks(500).setChangeRates(0.5, 0.5, 0.5);
+
+        assertArrayEquals(generator.toByteArray(7), generator.toByteArray(7));
+        assertFalse(Arrays.equals(generator.toByteArray(7), generator.toByteArray(8)));
+    }
+
+    /**
+     * Tests that an indented polyphonic piece with frequent changes is parsed identically by both parsers.
+     */
+    @Test
+    public void testToByteArray002() throws IOException, TimeSignatureMissingException {
+        byte[] contents = new VMFGenerator()
+                .setTicks(300)
+                .setVoices(2, 3)
+                .setTickValue(Fraction.getFraction(1, 2))
+                .setChangeRates(0.5, 0.5, 0.5)
+                .setPretty(true)
+                .toByteArray(11);
+
+        List<VectorMusic> expected = new VMFParser(contents, "generated").parseVoices();
+        List<VectorMusic> actual = new VMFStreamParser(contents, "generated").parseVoices();
+
+        assertEquals(6, actual.size());
+        assertEquals(expected, actual);
+        assertEquals(2, actual.get(0).getHeader().getNumberOfParts());
+        assertEquals(Fraction.getFraction(1, 2), actual.get(0).getHeader().getTickValue());
+        assertTrue(actual.get(0).getHeader().getTimeSignatures().size() > 1);
+        assertTrue(actual.get(0).getHeader().getKeySignatures().size() > 1);
+        assertTrue(actual.get(0).getHeader().getMetronomeMarkings().size() > 1);
+    }
+
+    /**
+     * Tests that every tick attacks a note when only attacks are weighted.
+     */
+    @Test
+    public void testToByteArray003() throws IOException, TimeSignatureMissingException {
+        byte[] contents = new VMFGenerator().setTicks(250).setWeights(1, 0, 0).toByteArray(3);
+
+        VectorMusic music = new VMFStreamParser(contents, "generated").parse();
+
+        assertEquals(250, music.getNotes().size());
+    }
+
+    /**
+     * Tests that a corpus is written with one file per piece.
+     */
+    @Test
+    public void testWriteCorpus001() throws IOException, TimeSignatureMissingException {
+        Path directory = folder.getRoot().toPath().resolve("corpus");
+        VMFGenerator generator = new VMFGenerator().setTicks(100);
+
+        List<Path> files = generator.writeCorpus(directory, 5, 100);
+
+        assertEquals(files, VMFCorpusParser.listFiles(directory));
+        assertEquals(new VMFStreamParser(generator.toByteArray(103), "expected").parse(),
+                new VMFStreamParser(files.get(3).toFile()).parse());
+    }
+}
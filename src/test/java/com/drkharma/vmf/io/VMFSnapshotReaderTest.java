@@ -0,0 +1,74 @@
+package com.drkharma.vmf.io;
+
+import com.drkharma.vmf.*;
+import org.apache.commons.lang3.math.Fraction;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test Class for {@link VMFSnapshotReader}
+ */
+public class VMFSnapshotReaderTest {
+
+    /**
+     * Tests that a snapshot round trips exactly, including the identity of the piece.
+     */
+    @Test
+    public void testRead001() throws IOException {
+        VectorMusic expected = new VectorMusic(
+                new VectorMusicHeader(Fraction.getFraction(1, 4), 2, 3, "piece",
+                        Arrays.asList(new TimeSignature(0, "2/4"), new TimeSignature(12, "6/8")),
+                        Arrays.asList(new KeySignatureInstance(0, KeySignature.E_FLAT_MAJOR_C_MINOR),
+                                new KeySignatureInstance(8, KeySignature.B_MAJOR_G_SHARP_MINOR)),
+                        Arrays.asList(new MetronomeMarking(0, 120), new MetronomeMarking(4, 66))
+                ),
+                Arrays.asList(
+                        new Note(-5, 0, 0, 4, 0),
+                        new Note(5, 7, 11, -1, 1, 300),
+                        new Note(-1, 3, 7, 9, 100000, 2)
+                )
+        );
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VMFSnapshotWriter writer = new VMFSnapshotWriter(out);
+        writer.write(expected);
+        writer.write(new VectorMusic());
+        writer.close();
+
+        VMFSnapshotReader reader = new VMFSnapshotReader(new ByteArrayInputStream(out.toByteArray()));
+        VectorMusic actual = reader.read();
+
+        assertEquals(expected, actual);
+        assertEquals(expected.getHeader().getId(), actual.getHeader().getId());
+        assertEquals("piece", actual.getHeader().getName());
+        assertEquals(new VectorMusic(), reader.read());
+    }
+
+    /**
+     * Tests that a stream which does not hold a snapshot is rejected.
+     */
+    @Test(expected = IOException.class)
+    public void testRead002() throws IOException {
+        new VMFSnapshotReader(new ByteArrayInputStream("{\"header\": {}}".getBytes("UTF-8"))).read();
+    }
+
+    /**
+     * Tests that a truncated snapshot is rejected.
+     */
+    @Test(expected = EOFException.class)
+    public void testRead003() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new VMFSnapshotWriter(out).write(new VectorMusic());
+
+        byte[] truncated = Arrays.copyOf(out.toByteArray(), out.size() - 1);
+
+        new VMFSnapshotReader(new ByteArrayInputStream(truncated)).read();
+    }
+}
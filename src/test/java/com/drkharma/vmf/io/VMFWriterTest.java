@@ -0,0 +1,140 @@
+package com.drkharma.vmf.io;
+
+import com.drkharma.vmf.*;
+import com.drkharma.vmf.parser.VMFParser;
+import com.drkharma.vmf.parser.exception.TimeSignatureMissingException;
+import org.apache.commons.lang3.math.Fraction;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test Class for {@link VMFWriter}
+ */
+public class VMFWriterTest {
+
+    /**
+     * Parses every voice of VMF.
+     *
+     * @param contents The VMF.
+     * @return The voices.
+     */
+    private static List<VectorMusic> parse(byte[] contents) throws IOException, TimeSignatureMissingException {
+        return new VMFParser(contents, "test").parseVoices();
+    }
+
+    /**
+     * Writes voices to a stream.
+     *
+     * @param voices The voices.
+     * @return The VMF written.
+     */
+    private static byte[] write(List<VectorMusic> voices) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new VMFWriter(out).write(voices);
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Tests that the fixtures are written back byte for byte.
+     */
+    @Test
+    public void testWrite001() throws Throwable {
+        for (String name : Arrays.asList("simple.vmf", "sustained.vmf", "rest.vmf", "polyphonic.vmf")) {
+            byte[] fixture = Files.readAllBytes(Paths.get(getClass().getClassLoader()
+                    .getResource("fixtures/" + name).toURI()));
+
+            assertArrayEquals(name, fixture, write(parse(fixture)));
+        }
+    }
+
+    /**
+     * Tests that generated polyphonic pieces with frequent changes are written back byte for byte, indented or not.
+     */
+    @Test
+    public void testWrite002() throws IOException, TimeSignatureMissingException {
+        VMFGenerator generator = new VMFGenerator()
+                .setTicks(400)
+                .setVoices(2, 2)
+                .setTickValue(Fraction.getFraction(1, 3))
+                .setChangeRates(0.3, 0.3, 0.3)
+                .setWeights(3, 2, 0);
+
+        byte[] compact = generator.toByteArray(5);
+        StringWriter writer = new StringWriter();
+        new VMFWriter(writer, false).write(parse(compact));
+
+        assertEquals(new String(compact, "UTF-8"), writer.toString());
+
+        byte[] pretty = generator.setPretty(true).toByteArray(5);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new VMFWriter(Channels.newChannel(out)).write(parse(pretty));
+
+        assertArrayEquals(pretty, out.toByteArray());
+    }
+
+    /**
+     * Tests that music built in memory round trips through VMF.
+     */
+    @Test
+    public void testWrite003() throws IOException, TimeSignatureMissingException {
+        VectorMusicHeader header = new VectorMusicHeader(Fraction.getFraction(1, 4), 1, 1,
+                Arrays.asList(new TimeSignature(0, "3/4"), new TimeSignature(3, "2/4")),
+                Arrays.asList(new KeySignatureInstance(0, KeySignature.E_FLAT_MAJOR_C_MINOR)),
+                Arrays.asList(new MetronomeMarking(0, 90)));
+        VectorMusic music = new VectorMusic(header, Arrays.asList(
+                new Note(2, 3, 0, 4, 2, 3),
+                new Note(-2, 0, 11, 3, 5, 1),
+                new Note(-2, 6, 11, 3, 1, 4)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new VMFWriter(out).write(music);
+
+        assertEquals(music, new VMFParser(out.toByteArray(), "test").parse());
+    }
+
+    /**
+     * Tests that overlapping notes are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrite004() throws IOException {
+        new VMFWriter(new StringWriter()).write(new VectorMusic(new VectorMusicHeader(Fraction.ONE, 1, 1,
+                Arrays.asList(new TimeSignature(0, "4/4")),
+                Arrays.asList(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR)),
+                Arrays.asList(new MetronomeMarking(0, 90))), Arrays.asList(
+                new Note(1, 0, 0, 4, 0, 3),
+                new Note(1, 0, 2, 4, 2, 1))));
+    }
+
+    /**
+     * Tests that header sections filled in with defaults by the parser are written out explicitly.
+     */
+    @Test
+    public void testWrite005() throws Throwable {
+        String[][] cases = {
+                {"noKeySignature.vmf", "\"key_signature\": {}", "\"key_signature\": {\n      \"0.0\": 0\n    }"},
+                {"noTempo.vmf", "\"tempo\": {}", "\"tempo\": {\n      \"0.0\": 100\n    }"}
+        };
+
+        for (String[] c : cases) {
+            byte[] fixture = Files.readAllBytes(Paths.get(getClass().getClassLoader()
+                    .getResource("fixtures/" + c[0]).toURI()));
+            String expected = new String(fixture, StandardCharsets.UTF_8).replace(c[1], c[2]);
+
+            assertEquals(c[0], expected, new String(write(parse(fixture)), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.drkharma.vmf.io;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test Class for {@link VarInt}
+ */
+public class VarIntTest {
+
+    /**
+     * Tests that unsigned values round trip and small values use a single byte.
+     */
+    @Test
+    public void testRead001() {
+        long[] values = {0, 1, 127, 128, 300, Integer.MAX_VALUE, Long.MAX_VALUE, -1};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        for (long value : values) {
+            VarInt.write(out, value);
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(out.toByteArray());
+
+        for (long value : values) {
+            assertEquals(value, VarInt.read(in));
+        }
+
+        assertEquals(0, in.remaining());
+        assertEquals(1, encode(127).length);
+        assertEquals(2, encode(128).length);
+    }
+
+    /**
+     * Tests that signed values round trip and small negative values use a single byte.
+     */
+    @Test
+    public void testReadSigned001() {
+        long[] values = {0, -1, 1, -64, 63, Integer.MIN_VALUE, Long.MIN_VALUE, Long.MAX_VALUE};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        for (long value : values) {
+            VarInt.writeSigned(out, value);
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(out.toByteArray());
+
+        for (long value : values) {
+            assertEquals(value, VarInt.readSigned(in));
+        }
+
+        ByteArrayOutputStream small = new ByteArrayOutputStream();
+        VarInt.writeSigned(small, -64);
+
+        assertEquals(1, small.size());
+    }
+
+    /**
+     * Tests that a value too large for an int is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadInt001() {
+        VarInt.readInt(ByteBuffer.wrap(encode(Integer.MAX_VALUE + 1L)));
+    }
+
+    /**
+     * Encodes a single unsigned value.
+     *
+     * @param value The value.
+     * @return The encoded bytes.
+     */
+    private static byte[] encode(long value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VarInt.write(out, value);
+
+        return out.toByteArray();
+    }
+}
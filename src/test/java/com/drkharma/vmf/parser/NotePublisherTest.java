@@ -0,0 +1,233 @@
+package com.drkharma.vmf.parser;
+
+import com.drkharma.vmf.Note;
+import com.drkharma.vmf.VectorMusic;
+import com.drkharma.vmf.VectorMusicHeader;
+import com.drkharma.vmf.io.VMFGenerator;
+import com.drkharma.vmf.parser.exception.TimeSignatureMissingException;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for {@link NotePublisher}
+ */
+public class NotePublisherTest {
+
+    /**
+     * A subscriber which records what it receives, and requests a number of notes on subscribing and after each.
+     */
+    private static class RecordingSubscriber implements NotePublisher.Subscriber {
+
+        /**
+         * The number of notes requested on subscribing.
+         */
+        private final long initial;
+
+        /**
+         * The number of notes requested after each note.
+         */
+        private final long each;
+
+        /**
+         * Counted down when the stream ends.
+         */
+        final CountDownLatch ended = new CountDownLatch(1);
+
+        /**
+         * The events received, in order.
+         */
+        final List<Object> events = new ArrayList<Object>();
+
+        /**
+         * The subscription.
+         */
+        NotePublisher.Subscription subscription;
+
+        /**
+         * Constructor
+         *
+         * @param initial The number of notes requested on subscribing.
+         * @param each    The number of notes requested after each note.
+         */
+        RecordingSubscriber(long initial, long each) {
+            this.initial = initial;
+            this.each = each;
+        }
+
+        @Override
+        public void onSubscribe(NotePublisher.Subscription subscription) {
+            this.subscription = subscription;
+
+            if (this.initial > 0) {
+                subscription.request(this.initial);
+            }
+        }
+
+        @Override
+        public void onHeader(VectorMusicHeader header) {
+            this.events.add(header);
+        }
+
+        @Override
+        public void onNext(Note note) {
+            this.events.add(note);
+
+            if (this.each > 0) {
+                this.subscription.request(this.each);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.events.add(error);
+            this.ended.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            this.events.add("complete");
+            this.ended.countDown();
+        }
+    }
+
+    /**
+     * Reads a fixture.
+     *
+     * @param name The name of the fixture.
+     * @return The contents of the fixture.
+     */
+    private static byte[] fixture(String name) throws Exception {
+        return Files.readAllBytes(Paths.get(Thread.currentThread().getContextClassLoader()
+                .getResource("fixtures/" + name).toURI()));
+    }
+
+    /**
+     * Gets the events expected for a piece: its header, its notes and completion.
+     *
+     * @param music The piece.
+     * @return The events.
+     */
+    private static List<Object> expected(VectorMusic music) {
+        List<Object> events = new ArrayList<Object>();
+
+        events.add(music.getHeader());
+        events.addAll(music.getNotes());
+        events.add("complete");
+
+        return events;
+    }
+
+    /**
+     * Tests that no more notes are delivered than requested.
+     */
+    @Test
+    public void testSubscribe001() throws Throwable {
+        byte[] contents = fixture("simple.vmf");
+        RecordingSubscriber subscriber = new RecordingSubscriber(0, 0);
+        List<Object> expected = expected(new VMFStreamParser(contents, "simple.vmf").parse());
+
+        new NotePublisher(new VMFStreamParser(contents, "simple.vmf")).subscribe(subscriber);
+        assertEquals(0, subscriber.events.size());
+
+        subscriber.subscription.request(2);
+        assertEquals(expected.subList(0, 3), subscriber.events);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(expected, subscriber.events);
+    }
+
+    /**
+     * Tests that requesting one note at a time from within each delivery neither recurses nor loses notes.
+     */
+    @Test
+    public void testSubscribe002() throws Throwable {
+        byte[] contents = new VMFGenerator().setTicks(200000).toByteArray(3);
+        RecordingSubscriber subscriber = new RecordingSubscriber(1, 1);
+
+        new NotePublisher(new VMFStreamParser(contents, "generated")).subscribe(subscriber);
+
+        assertEquals(expected(new VMFStreamParser(contents, "generated").parse()), subscriber.events);
+    }
+
+    /**
+     * Tests delivery on an executor.
+     */
+    @Test
+    public void testSubscribe003() throws Throwable {
+        byte[] contents = new VMFGenerator().setTicks(20000).toByteArray(4);
+        RecordingSubscriber subscriber = new RecordingSubscriber(16, 1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            new NotePublisher(new VMFStreamParser(contents, "generated"), executor).subscribe(subscriber);
+
+            assertTrue(subscriber.ended.await(10, TimeUnit.SECONDS));
+            assertEquals(expected(new VMFStreamParser(contents, "generated").parse()), subscriber.events);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that a cancelled stream delivers nothing further.
+     */
+    @Test
+    public void testSubscribe004() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber(1, 0);
+
+        new NotePublisher(new VMFStreamParser(fixture("simple.vmf"), "simple.vmf")).subscribe(subscriber);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(10);
+
+        assertEquals(2, subscriber.events.size());
+        assertEquals(1, subscriber.ended.getCount());
+    }
+
+    /**
+     * Tests that failures to parse and invalid requests end the stream with an error.
+     */
+    @Test
+    public void testSubscribe005() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber(1, 0);
+
+        new NotePublisher(new VMFStreamParser(fixture("noTimeSignatures.vmf"), "noTimeSignatures.vmf"))
+                .subscribe(subscriber);
+
+        assertEquals(1, subscriber.events.size());
+        assertTrue(subscriber.events.get(0) instanceof TimeSignatureMissingException);
+
+        subscriber = new RecordingSubscriber(1, 0);
+        new NotePublisher(new VMFStreamParser(fixture("simple.vmf"), "simple.vmf")).subscribe(subscriber);
+        subscriber.subscription.request(0);
+        subscriber.subscription.request(1);
+
+        assertEquals(3, subscriber.events.size());
+        assertTrue(subscriber.events.get(2) instanceof IllegalArgumentException);
+    }
+
+    /**
+     * Tests that a file can be published to only one subscriber.
+     */
+    @Test
+    public void testSubscribe006() throws Exception {
+        NotePublisher publisher = new NotePublisher(new VMFStreamParser(fixture("simple.vmf"), "simple.vmf"));
+        RecordingSubscriber second = new RecordingSubscriber(1, 0);
+
+        publisher.subscribe(new RecordingSubscriber(0, 0));
+        publisher.subscribe(second);
+
+        assertEquals(1, second.events.size());
+        assertTrue(second.events.get(0) instanceof IllegalStateException);
+    }
+}
@@ -1,18 +1,27 @@
 package com.drkharma.vmf.parser;
 
 import com.drkharma.vmf.*;
+import com.drkharma.vmf.io.VMFGenerator;
 import com.drkharma.vmf.parser.exception.TimeSignatureMissingException;
 import org.apache.commons.lang3.math.Fraction;
 import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 
 /**
  * Test Class for {@link VMFParser}
@@ -312,4 +321,164 @@ public class VMFParserTest {
 
         assertEquals(expected, actual);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests the parsing of VMF content held in memory.
+     */
+    @Test
+    public void testParseBytes001() {
+        final String SIMPLE_VMF = "fixtures/rest.vmf";
+        VectorMusic actual = null;
+        VectorMusic expected = new VectorMusic(
+                new VectorMusicHeader(Fraction.ONE, 1, 1,
+                        Arrays.asList(new TimeSignature(0, "2/4")),
+                        Arrays.asList(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR)),
+                        Arrays.asList(new MetronomeMarking(0, 120))),
+                Arrays.asList(
+                        new Note(-1, 0, 0, 4, 0),
+                        new Note(-1, 0, 7, 4, 2),
+                        new Note(-1, 0, 4, 4, 1)
+                )
+        );
+
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        URI vmfURI = null;
+        try {
+            vmfURI = classloader.getResource(SIMPLE_VMF).toURI();
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+        }
+
+        try {
+            byte[] contents = Files.readAllBytes(Paths.get(vmfURI));
+            VMFParser parser = new VMFParser(contents, "rest");
+            actual = parser.parse();
+        } catch (TimeSignatureMissingException | IOException e) {
+            fail("Unexpected exception was thrown.");
+        }
+
+        assertEquals(expected, actual);
+        assertEquals("rest", actual.getHeader().getName());
+    }
+
+    /**
+     * Tests the parsing of VMF content read from a stream.
+     */
+    @Test
+    public void testParseStream001() {
+        final String SIMPLE_VMF = "fixtures/simple.vmf";
+        VectorMusic actual = null;
+        VectorMusic expected = new VectorMusic(
+                new VectorMusicHeader(Fraction.ONE, 1, 1,
+                        Arrays.asList(new TimeSignature(0, "2/4")),
+                        Arrays.asList(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR)),
+                        Arrays.asList(new MetronomeMarking(0, 120))
+                ),
+                Arrays.asList(
+                        new Note(-1, 0, 0, 4, 0),
+                        new Note(-1, 0, 4, 4, 1),
+                        new Note(-1, 0, 7, 4, 1),
+                        new Note(-1, 0, 4, 4, 1)
+                )
+        );
+
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+
+        try (InputStream in = classloader.getResourceAsStream(SIMPLE_VMF)) {
+            VMFParser parser = new VMFParser(in, "simple");
+            actual = parser.parse();
+        } catch (TimeSignatureMissingException | IOException e) {
+            fail("Unexpected exception was thrown.");
+        }
+
+        assertEquals(expected, actual);
+        assertEquals("simple", actual.getHeader().getName());
+    }
+
+    /**
+     * Tests the parsing of every voice of a polyphonic VMF file.
+     */
+    @Test
+    public void testParseVoices001() {
+        final String SIMPLE_VMF = "fixtures/polyphonic.vmf";
+        List<VectorMusic> actual = null;
+        VectorMusicHeader header = new VectorMusicHeader(Fraction.ONE, 2, 2,
+                Arrays.asList(new TimeSignature(0, "2/4")),
+                Arrays.asList(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR)),
+                Arrays.asList(new MetronomeMarking(0, 120))
+        );
+        List<VectorMusic> expected = Arrays.asList(
+                new VectorMusic(header, Arrays.asList(
+                        new Note(-1, 0, 0, 4, 0, 2),
+                        new Note(-1, 0, 4, 4, 2),
+                        new Note(-1, 0, 7, 4, 1)
+                )),
+                new VectorMusic(header, Arrays.asList(
+                        new Note(2, 0, 0, 3, 0),
+                        new Note(2, 0, 7, 3, 2, 2)
+                ))
+        );
+
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        URI vmfURI = null;
+        try {
+            vmfURI = classloader.getResource(SIMPLE_VMF).toURI();
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+        }
+
+        try {
+            VMFParser parser = new VMFParser(new File(vmfURI));
+            actual = parser.parseVoices();
+        } catch (TimeSignatureMissingException | IOException e) {
+            fail("Unexpected exception was thrown.");
+        }
+
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Tests that sustained ticks are decoded without allocating.
+     */
+    @Test
+    public void testParseAllocation001() throws IOException, TimeSignatureMissingException {
+        assertTicksDoNotAllocate(new VMFGenerator().setWeights(0, 1, 0));
+    }
+
+    /**
+     * Tests that rested ticks are decoded without allocating.
+     */
+    @Test
+    public void testParseAllocation002() throws IOException, TimeSignatureMissingException {
+        assertTicksDoNotAllocate(new VMFGenerator().setWeights(0, 0, 1));
+    }
+
+    /**
+     * Asserts that parsing a body allocates less than a byte per tick, beyond the building of the JSON tree.
+     *
+     * @param generator A generator of bodies which attack at most one note.
+     */
+    private static void assertTicksDoNotAllocate(VMFGenerator generator)
+            throws IOException, TimeSignatureMissingException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+
+        int ticks = 200000;
+        long thread = Thread.currentThread().getId();
+
+        // Warm up on a small body so class loading is not counted.
+        new VMFParser(generator.setTicks(1000).toByteArray(1), "warmup").parse();
+
+        VMFParser parser = new VMFParser(generator.setTicks(ticks).toByteArray(1), "allocation");
+
+        long before = allocations.getThreadAllocatedBytes(thread);
+        VectorMusic music = parser.parse();
+        long allocated = allocations.getThreadAllocatedBytes(thread) - before;
+
+        assertTrue(music.getNotes().size() <= 1);
+        assertTrue("Allocated " + allocated + " bytes for " + ticks + " ticks.", allocated < ticks);
+    }
+}
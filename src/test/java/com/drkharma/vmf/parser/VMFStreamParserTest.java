@@ -0,0 +1,684 @@
+package com.drkharma.vmf.parser;
+
+import com.drkharma.vmf.*;
+import com.drkharma.vmf.parser.exception.BodyBeforeHeaderException;
+import com.drkharma.vmf.parser.exception.TimeSignatureMissingException;
+import com.drkharma.vmf.io.VMFGenerator;
+import org.apache.commons.lang3.math.Fraction;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Test Class for {@link VMFStreamParser}
+ */
+public class VMFStreamParserTest {
+
+    /**
+     * Tests the parsing of a valid VMF file.
+     */
+    @Test
+    public void testParse001() {
+        final String SIMPLE_VMF = "fixtures/simple.vmf";
+        VectorMusic actual = null;
+        VectorMusic expected = new VectorMusic(
+                new VectorMusicHeader(Fraction.ONE, 1, 1,
+                        Arrays.asList(new TimeSignature(0, "2/4")),
+                        Arrays.asList(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR)),
+                        Arrays.asList(new MetronomeMarking(0, 120))
+                ),
+                Arrays.asList(
+                        new Note(-1, 0, 0, 4, 0),
+                        new Note(-1, 0, 4, 4, 1),
+                        new Note(-1, 0, 7, 4, 1),
+                        new Note(-1, 0, 4, 4, 1)
+                )
+        );
+
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        URI vmfURI = null;
+        try {
+            vmfURI = classloader.getResource(SIMPLE_VMF).toURI();
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+        }
+
+        try {
+            VMFStreamParser parser = new VMFStreamParser(new File(vmfURI));
+            actual = parser.parse();
+        } catch (TimeSignatureMissingException | IOException e) {
+            fail("Unexpected exception was thrown.");
+        }
+
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Tests the parsing of a VMF file with the header missing.
+     */
+    @Test(expected = IOException.class)
+    public void testParse002() throws IOException {
+        final String SIMPLE_VMF = "fixtures/missingHeader.vmf";
+        VectorMusic actual = null;
+
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        URI vmfURI = null;
+
+        try {
+            vmfURI = classloader.getResource(SIMPLE_VMF).toURI();
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+        }
+
+        VMFStreamParser parser = new VMFStreamParser(new File(vmfURI));
+        try {
+            actual = parser.parse();
+        } catch (TimeSignatureMissingException e) {
+            fail("Unexpected exception was thrown.");
+        }
+    }
+
+    /**
+     * Tests the parsing of a VMF file where a header value is missing.
+     */
+    @Test(expected = IOException.class)
+    public void testParse003() throws IOException {
+        final String SIMPLE_VMF = "fixtures/missingHeaderValue.vmf";
+        VectorMusic actual = null;
+
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        URI vmfURI = null;
+
+        try {
+            vmfURI = classloader.getResource(SIMPLE_VMF).toURI();
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+        }
+
+        VMFStreamParser parser = new VMFStreamParser(new File(vmfURI));
+        try {
+            actual = parser.parse();
+        } catch (TimeSignatureMissingException e) {
+            fail("Unexpected exception was thrown");
+        }
+    }
+
+    /**
+     * Tests the parsing of a VMF file where the time signatures list is empty.
+     */
+    @Test(expected = TimeSignatureMissingException.class)
+    public void testParse004() throws TimeSignatureMissingException {
+        final String SIMPLE_VMF = "fixtures/noTimeSignatures.vmf";
+        VectorMusic actual = null;
+
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        URI vmfURI = null;
+
+        try {
+            vmfURI = classloader.getResource(SIMPLE_VMF).toURI();
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+        }
+
+        try {
+            VMFStreamParser parser = new VMFStreamParser(new File(vmfURI));
+            actual = parser.parse();
+        } catch (IOException e) {
+            fail("Unexpected exception was thrown.");
+        }
+    }
+
+    /**
+     * Tests the parsing of a VMF file where the key signatures list is empty.
+     */
+    @Test
+    public void testParse005() {
+        final String SIMPLE_VMF = "fixtures/noKeySignature.vmf";
+        VectorMusic actual = null;
+        VectorMusic expected = new VectorMusic(
+                new VectorMusicHeader(Fraction.ONE, 1, 1,
+                        Arrays.asList(new TimeSignature(0, "2/4")),
+                        Arrays.asList(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR)),
+                        Arrays.asList(new MetronomeMarking(0, 120))
+                ),
+                Arrays.asList(
+                        new Note(-1, 0, 0, 4, 0),
+                        new Note(-1, 0, 4, 4, 1),
+                        new Note(-1, 0, 7, 4, 1),
+                        new Note(-1, 0, 4, 4, 1)
+                )
+        );
+
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        URI vmfURI = null;
+
+        try {
+            vmfURI = classloader.getResource(SIMPLE_VMF).toURI();
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+        }
+
+        try {
+            VMFStreamParser parser = new VMFStreamParser(new File(vmfURI));
+            actual = parser.parse();
+        } catch (TimeSignatureMissingException | IOException e) {
+            fail("Unexpected exception was thrown.");
+        }
+
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Tests the parsing of a VMF file where the contents are not JSON.
+     */
+    @Test(expected = IOException.class)
+    public void testParse006() throws IOException {
+        final String SIMPLE_VMF = "fixtures/notJson.vmf";
+        VectorMusic actual = null;
+
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        URI vmfURI = null;
+
+        try {
+            vmfURI = classloader.getResource(SIMPLE_VMF).toURI();
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+        }
+
+        try {
+            VMFStreamParser parser = new VMFStreamParser(new File(vmfURI));
+            actual = parser.parse();
+        } catch (TimeSignatureMissingException e) {
+            fail("Unexpected exception was thrown.");
+        }
+    }
+
+    /**
+     * Tests the parsing of a VMF file whose body precedes its header.
+     */
+    @Test(expected = BodyBeforeHeaderException.class)
+    public void testParse010() throws IOException, TimeSignatureMissingException, URISyntaxException {
+        URI vmfURI = Thread.currentThread().getContextClassLoader().getResource("fixtures/bodyFirst.vmf").toURI();
+
+        new VMFStreamParser(new File(vmfURI)).parse();
+    }
+
+    /**
+     * Tests the parsing of a valid VMF file with sustained notes.
+     */
+    @Test
+    public void testParse007() {
+        final String SIMPLE_VMF = "fixtures/sustained.vmf";
+        VectorMusic actual = null;
+        VectorMusic expected = new VectorMusic(
+                new VectorMusicHeader(Fraction.ONE, 1, 1,
+                        Arrays.asList(new TimeSignature(0, "2/4")),
+                        Arrays.asList(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR)),
+                        Arrays.asList(new MetronomeMarking(0, 120))
+                ),
+                Arrays.asList(
+                        new Note(-1, 0, 0, 4, 0, 2),
+                        new Note(-1, 0, 4, 4, 2, 2),
+                        new Note(-1, 0, 7, 4, 2, 2),
+                        new Note(-1, 0, 4, 4, 2, 2)
+                )
+        );
+
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        URI vmfURI = null;
+        try {
+            vmfURI = classloader.getResource(SIMPLE_VMF).toURI();
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+        }
+
+        try {
+            VMFStreamParser parser = new VMFStreamParser(new File(vmfURI));
+            actual = parser.parse();
+        } catch (TimeSignatureMissingException | IOException e) {
+            fail("Unexpected exception was thrown.");
+        }
+
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Tests the parsing of a valid VMF file with rests.
+     */
+    @Test
+    public void testParse008() {
+        final String SIMPLE_VMF = "fixtures/rest.vmf";
+        VectorMusic actual = null;
+        VectorMusic expected = new VectorMusic(
+                new VectorMusicHeader(Fraction.ONE, 1, 1,
+                        Arrays.asList(new TimeSignature(0, "2/4")),
+                        Arrays.asList(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR)),
+                        Arrays.asList(new MetronomeMarking(0, 120))),
+                Arrays.asList(
+                        new Note(-1, 0, 0, 4, 0),
+                        new Note(-1, 0, 7, 4, 2),
+                        new Note(-1, 0, 4, 4, 1)
+                )
+        );
+
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        URI vmfURI = null;
+        try {
+            vmfURI = classloader.getResource(SIMPLE_VMF).toURI();
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+        }
+
+        try {
+            VMFStreamParser parser = new VMFStreamParser(new File(vmfURI));
+            actual = parser.parse();
+        } catch (TimeSignatureMissingException | IOException e) {
+            fail("Unexpected exception was thrown.");
+        }
+
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Tests the parsing of a VMF file where the tempo list is empty.
+     */
+    @Test
+    public void testParse009() {
+        final String SIMPLE_VMF = "fixtures/noTempo.vmf";
+        VectorMusic actual = null;
+        VectorMusic expected = new VectorMusic(
+                new VectorMusicHeader(Fraction.ONE, 1, 1,
+                        Arrays.asList(new TimeSignature(0, "2/4")),
+                        Arrays.asList(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR)),
+                        Arrays.asList(new MetronomeMarking(0, 100))),
+                Arrays.asList(
+                        new Note(-1, 0, 0, 4, 0),
+                        new Note(-1, 0, 4, 4, 1),
+                        new Note(-1, 0, 7, 4, 1),
+                        new Note(-1, 0, 4, 4, 1)
+                )
+        );
+
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        URI vmfURI = null;
+
+        try {
+            vmfURI = classloader.getResource(SIMPLE_VMF).toURI();
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+        }
+
+        try {
+            VMFStreamParser parser = new VMFStreamParser(new File(vmfURI));
+            actual = parser.parse();
+        } catch (TimeSignatureMissingException | IOException e) {
+            fail("Unexpected exception was thrown.");
+        }
+
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Tests that notes are handed out one at a time with their final durations.
+     */
+    @Test
+    public void testNextNote001() {
+        final String SIMPLE_VMF = "fixtures/sustained.vmf";
+        List<Note> actual = new ArrayList<Note>();
+        List<Note> expected = Arrays.asList(
+                new Note(-1, 0, 0, 4, 0, 2),
+                new Note(-1, 0, 4, 4, 2, 2),
+                new Note(-1, 0, 7, 4, 2, 2),
+                new Note(-1, 0, 4, 4, 2, 2)
+        );
+
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        URI vmfURI = null;
+        try {
+            vmfURI = classloader.getResource(SIMPLE_VMF).toURI();
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+        }
+
+        try {
+            VMFStreamParser parser = new VMFStreamParser(new File(vmfURI));
+            parser.readHeader();
+
+            Note note;
+            while ((note = parser.nextNote()) != null) {
+                actual.add(note);
+            }
+
+            assertNull(parser.nextNote());
+            parser.close();
+        } catch (TimeSignatureMissingException | IOException e) {
+            fail("Unexpected exception was thrown.");
+        }
+
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Tests that reading notes before the header is rejected.
+     */
+    @Test(expected = IOException.class)
+    public void testNextNote002() throws IOException {
+        final String SIMPLE_VMF = "fixtures/simple.vmf";
+
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        URI vmfURI = null;
+        try {
+            vmfURI = classloader.getResource(SIMPLE_VMF).toURI();
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+        }
+
+        VMFStreamParser parser = new VMFStreamParser(new File(vmfURI));
+        try {
+            parser.nextNote();
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * Tests the parsing of a valid VMF file through a memory mapping.
+     */
+    @Test
+    public void testParseMapped001() {
+        final String SIMPLE_VMF = "fixtures/sustained.vmf";
+        VectorMusic actual = null;
+        VectorMusic expected = new VectorMusic(
+                new VectorMusicHeader(Fraction.ONE, 1, 1,
+                        Arrays.asList(new TimeSignature(0, "2/4")),
+                        Arrays.asList(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR)),
+                        Arrays.asList(new MetronomeMarking(0, 120))
+                ),
+                Arrays.asList(
+                        new Note(-1, 0, 0, 4, 0, 2),
+                        new Note(-1, 0, 4, 4, 2, 2),
+                        new Note(-1, 0, 7, 4, 2, 2),
+                        new Note(-1, 0, 4, 4, 2, 2)
+                )
+        );
+
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        URI vmfURI = null;
+        try {
+            vmfURI = classloader.getResource(SIMPLE_VMF).toURI();
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+        }
+
+        try {
+            VMFStreamParser parser = new VMFStreamParser(new File(vmfURI), true);
+            actual = parser.parse();
+        } catch (TimeSignatureMissingException | IOException e) {
+            fail("Unexpected exception was thrown.");
+        }
+
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Tests the parsing of a memory mapped VMF file where the contents are not JSON.
+     */
+    @Test(expected = IOException.class)
+    public void testParseMapped002() throws IOException {
+        final String SIMPLE_VMF = "fixtures/notJson.vmf";
+
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        URI vmfURI = null;
+
+        try {
+            vmfURI = classloader.getResource(SIMPLE_VMF).toURI();
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+        }
+
+        try {
+            VMFStreamParser parser = new VMFStreamParser(new File(vmfURI), true);
+            parser.parse();
+        } catch (TimeSignatureMissingException e) {
+            fail("Unexpected exception was thrown.");
+        }
+    }
+
+    /**
+     * Tests the parsing of VMF content held in memory.
+     */
+    @Test
+    public void testParseBytes001() {
+        final String SIMPLE_VMF = "fixtures/rest.vmf";
+        VectorMusic actual = null;
+        VectorMusic expected = new VectorMusic(
+                new VectorMusicHeader(Fraction.ONE, 1, 1,
+                        Arrays.asList(new TimeSignature(0, "2/4")),
+                        Arrays.asList(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR)),
+                        Arrays.asList(new MetronomeMarking(0, 120))),
+                Arrays.asList(
+                        new Note(-1, 0, 0, 4, 0),
+                        new Note(-1, 0, 7, 4, 2),
+                        new Note(-1, 0, 4, 4, 1)
+                )
+        );
+
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        URI vmfURI = null;
+        try {
+            vmfURI = classloader.getResource(SIMPLE_VMF).toURI();
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+        }
+
+        try {
+            byte[] contents = Files.readAllBytes(Paths.get(vmfURI));
+            VMFStreamParser parser = new VMFStreamParser(contents, "rest");
+            actual = parser.parse();
+        } catch (TimeSignatureMissingException | IOException e) {
+            fail("Unexpected exception was thrown.");
+        }
+
+        assertEquals(expected, actual);
+        assertEquals("rest", actual.getHeader().getName());
+    }
+
+    /**
+     * Tests the parsing of VMF content read from a stream.
+     */
+    @Test
+    public void testParseStream001() {
+        final String SIMPLE_VMF = "fixtures/simple.vmf";
+        VectorMusic actual = null;
+        VectorMusic expected = new VectorMusic(
+                new VectorMusicHeader(Fraction.ONE, 1, 1,
+                        Arrays.asList(new TimeSignature(0, "2/4")),
+                        Arrays.asList(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR)),
+                        Arrays.asList(new MetronomeMarking(0, 120))
+                ),
+                Arrays.asList(
+                        new Note(-1, 0, 0, 4, 0),
+                        new Note(-1, 0, 4, 4, 1),
+                        new Note(-1, 0, 7, 4, 1),
+                        new Note(-1, 0, 4, 4, 1)
+                )
+        );
+
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+
+        try (InputStream in = classloader.getResourceAsStream(SIMPLE_VMF)) {
+            VMFStreamParser parser = new VMFStreamParser(in, "simple");
+            actual = parser.parse();
+        } catch (TimeSignatureMissingException | IOException e) {
+            fail("Unexpected exception was thrown.");
+        }
+
+        assertEquals(expected, actual);
+        assertEquals("simple", actual.getHeader().getName());
+    }
+
+    /**
+     * Tests the parsing of every voice of a polyphonic VMF file.
+     */
+    @Test
+    public void testParseVoices001() {
+        final String SIMPLE_VMF = "fixtures/polyphonic.vmf";
+        List<VectorMusic> actual = null;
+        VectorMusicHeader header = new VectorMusicHeader(Fraction.ONE, 2, 2,
+                Arrays.asList(new TimeSignature(0, "2/4")),
+                Arrays.asList(new KeySignatureInstance(0, KeySignature.C_MAJOR_A_MINOR)),
+                Arrays.asList(new MetronomeMarking(0, 120))
+        );
+        List<VectorMusic> expected = Arrays.asList(
+                new VectorMusic(header, Arrays.asList(
+                        new Note(-1, 0, 0, 4, 0, 2),
+                        new Note(-1, 0, 4, 4, 2),
+                        new Note(-1, 0, 7, 4, 1)
+                )),
+                new VectorMusic(header, Arrays.asList(
+                        new Note(2, 0, 0, 3, 0),
+                        new Note(2, 0, 7, 3, 2, 2)
+                ))
+        );
+
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        URI vmfURI = null;
+        try {
+            vmfURI = classloader.getResource(SIMPLE_VMF).toURI();
+        } catch (URISyntaxException e) {
+            fail("Fixture file not found.");
+        }
+
+        try {
+            VMFStreamParser parser = new VMFStreamParser(new File(vmfURI));
+            actual = parser.parseVoices();
+        } catch (TimeSignatureMissingException | IOException e) {
+            fail("Unexpected exception was thrown.");
+        }
+
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Tests that splitting the body into any number of parts parses the same notes as a sequential parse, with notes
+     * sustained and rests carried across the edges of parts.
+     */
+    @Test
+    public void testParseParallel001() throws Throwable {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            for (int[] weights : new int[][]{{3, 2, 1}, {1, 12, 2}, {1, 2, 12}}) {
+                for (boolean pretty : new boolean[]{false, true}) {
+                    byte[] contents = new VMFGenerator()
+                            .setTicks(5000)
+                            .setVoices(2, 1)
+                            .setWeights(weights[0], weights[1], weights[2])
+                            .setPretty(pretty)
+                            .toByteArray(weights[1]);
+                    VectorMusic expected = new VMFStreamParser(contents, "generated").parse();
+
+                    for (int chunks : new int[]{1, 2, 3, 7, 64, 5000, 20000}) {
+                        VectorMusic actual = new VMFStreamParser(contents, "generated").parseParallel(executor, chunks);
+
+                        assertEquals(expected, actual);
+                        assertEquals(expected.getNotes(), actual.getNotes());
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests parallel parsing of a memory mapped file, of a stream, which is parsed sequentially, and of an empty body.
+     */
+    @Test
+    public void testParseParallel002() throws Throwable {
+        ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+        File rest = new File(classloader.getResource("fixtures/rest.vmf").toURI());
+        VectorMusic expected = new VMFStreamParser(rest).parse();
+
+        assertEquals(expected, new VMFStreamParser(rest, true).parseParallel());
+
+        try (InputStream in = classloader.getResourceAsStream("fixtures/rest.vmf")) {
+            assertEquals(expected, new VMFStreamParser(in, "rest.vmf").parseParallel());
+        }
+
+        byte[] empty = new VMFGenerator().setTicks(0).toByteArray(1);
+        assertEquals(0, new VMFStreamParser(empty, "empty").parseParallel().getNotes().size());
+    }
+
+    /**
+     * Tests that a body which begins with a sustained tick is rejected however it is split.
+     */
+    @Test
+    public void testParseParallel003() throws Throwable {
+        byte[] contents = ("{\"header\": {\"tick_value\": \"1\", \"number_of_parts\": 1, \"number_of_voices\": 1, "
+                + "\"time_signature\": {\"0.0\": \"2/4\"}, \"key_signature\": {\"0.0\": 0}, "
+                + "\"tempo\": {\"0.0\": 120}}, \"body\": [[[0, 0, 0, 0, 0, 0]], [[2, -1, 0, 0, 4, 0]], "
+                + "[[1, -1, 0, 0, 4, 0]]]}").getBytes("UTF-8");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            for (int chunks = 1; chunks <= 3; ++chunks) {
+                try {
+                    new VMFStreamParser(contents, "invalid").parseParallel(executor, chunks);
+                    fail("A sustained tick must follow an attacked note.");
+                } catch (IOException e) {
+                    assertEquals("A sustained tick must follow an attacked note.", e.getMessage());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that a file is decoded a mapped region at a time, with parts capped in size, whether or not the parser
+     * maps the whole file itself.
+     */
+    @Test
+    public void testParseParallel004() throws Throwable {
+        File file = File.createTempFile("generated", ".vmf");
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try {
+            Files.write(file.toPath(), new VMFGenerator()
+                    .setTicks(20000)
+                    .setVoices(2, 1)
+                    .setPretty(true)
+                    .toByteArray(3));
+            VectorMusic expected = new VMFStreamParser(file).parse();
+
+            for (boolean memoryMapped : new boolean[]{false, true}) {
+                for (long maxChunkSize : new long[]{100, 4096, file.length()}) {
+                    VectorMusic actual = new VMFStreamParser(file, memoryMapped)
+                            .parseParallel(executor, 1, 1, maxChunkSize);
+
+                    assertEquals(expected, actual);
+                    assertEquals(expected.getNotes(), actual.getNotes());
+                }
+            }
+        } finally {
+            executor.shutdown();
+            Files.delete(file.toPath());
+        }
+    }
+}